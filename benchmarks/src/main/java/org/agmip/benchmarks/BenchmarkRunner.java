@@ -0,0 +1,30 @@
+package org.agmip.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.openjdk.jmh.Main;
+
+/**
+ * Entry of the benchmark jar. Same as the JMH command line, but the results
+ * are written to {@code jmh-result.json} in JSON format unless another result
+ * format or file is given, so the throughput can be tracked per release.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar [JMH options] [benchmark regexp]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<String> options = new ArrayList<String>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add(0, "-rf");
+            options.add(1, "json");
+        }
+        if (!options.contains("-rff")) {
+            options.add(0, "-rff");
+            options.add(1, "jmh-result.json");
+        }
+        Main.main(options.toArray(new String[options.size()]));
+    }
+}
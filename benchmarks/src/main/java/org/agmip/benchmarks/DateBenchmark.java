@@ -0,0 +1,80 @@
+package org.agmip.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.agmip.common.AgmipDate;
+import org.agmip.common.DateCodec;
+import org.agmip.common.Functions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the AgMIP date codecs and the date functions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateBenchmark {
+
+    private final String date = "19820203";
+    private final String pdate = "19811115";
+    private final AgmipDate agmipDate = AgmipDate.valueOf(date);
+    private final AgmipDate agmipPdate = AgmipDate.valueOf(pdate);
+    private final int epochDay = DateCodec.parse(date);
+    private final Date javaDate = DateCodec.toDate(epochDay);
+
+    @Benchmark
+    public int codecParse() {
+        return DateCodec.parse(date);
+    }
+
+    @Benchmark
+    public String codecFormat() {
+        return DateCodec.format(epochDay);
+    }
+
+    @Benchmark
+    public Date convertFromAgmipDateString() {
+        return Functions.convertFromAgmipDateString(date);
+    }
+
+    @Benchmark
+    public String convertToAgmipDateString() {
+        return Functions.convertToAgmipDateString(javaDate);
+    }
+
+    @Benchmark
+    public String dateOffset() {
+        return Functions.dateOffset(date, "45");
+    }
+
+    @Benchmark
+    public AgmipDate dateOffsetAgmipDate() {
+        return Functions.dateOffset(agmipDate, 45);
+    }
+
+    @Benchmark
+    public String yearOffset() {
+        return Functions.yearOffset(date, "3");
+    }
+
+    @Benchmark
+    public String calcDAP() {
+        return Functions.calcDAP(date, pdate);
+    }
+
+    @Benchmark
+    public int calcDAPAgmipDate() {
+        return Functions.calcDAP(agmipDate, agmipPdate);
+    }
+}
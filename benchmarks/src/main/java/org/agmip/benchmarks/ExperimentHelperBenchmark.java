@@ -0,0 +1,119 @@
+package org.agmip.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.agmip.functions.DailyWeatherColumns;
+import org.agmip.functions.ExperimentHelper;
+import org.agmip.functions.PlantingCriteria;
+import org.agmip.functions.PlantingRequest;
+import org.agmip.functions.RainfallIndex;
+import org.agmip.functions.SyntheticAceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of the planting window search over 1, 10 and 30 years of daily
+ * weather
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExperimentHelperBenchmark {
+
+    @Param({"1", "10", "30"})
+    public int years;
+    private HashMap<String, Object> data;
+    private HashMap<String, Object> gapData;
+    private RainfallIndex rainfall;
+    private List<PlantingRequest> requests;
+    private DailyWeatherColumns columns;
+    private PlantingCriteria criteria;
+
+    @Setup
+    public void setup() {
+        data = new SyntheticAceGenerator(42).combinedExperiment(1981, years, 6);
+
+        // Drop one record in each 100 days, so the expected offsets miss
+        gapData = new SyntheticAceGenerator(42).combinedExperiment(1981, years, 6);
+        HashMap<String, Object> weather = (HashMap<String, Object>) gapData.get("weather");
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) weather.get("dailyWeather");
+        for (int i = dailyArr.size() - 50; i > 0; i -= 100) {
+            dailyArr.remove(i);
+        }
+
+        // Shared by the experiments of the station
+        rainfall = RainfallIndex.of(data);
+
+        // 50 rules of planting window for the same station
+        requests = new ArrayList<PlantingRequest>();
+        for (int i = 0; i < 50; i++) {
+            String eDate = String.format("%02d-01", 1 + i % 6);
+            String lDate = String.format("%02d-15", 3 + i % 6);
+            requests.add(new PlantingRequest(data, eDate, lDate, Integer.toString(20 + i), Integer.toString(3 + i % 5)));
+        }
+
+        columns = DailyWeatherColumns.fromData(data);
+        criteria = new PlantingCriteria()
+                .rainAtLeast(5, 40)
+                .minAbove("tmin", 3, 5)
+                .noFrost(10);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getAutoPlantingDate() {
+        return ExperimentHelper.getAutoPlantingDate(data, "03-01", "05-15", "40", "5");
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getAutoPlantingDateLongWindow() {
+        return ExperimentHelper.getAutoPlantingDate(data, "01-15", "11-30", "120", "10");
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getAutoPlantingDateWithGaps() {
+        return ExperimentHelper.getAutoPlantingDate(gapData, "03-01", "05-15", "40", "5");
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getAutoPlantingDateSharedIndex() {
+        return ExperimentHelper.getAutoPlantingDate(data, rainfall, "03-01", "05-15", "40", "5");
+    }
+
+    @Benchmark
+    public List<HashMap<String, ArrayList<String>>> getAutoPlantingDateRequests() {
+        List<HashMap<String, ArrayList<String>>> results = new ArrayList<HashMap<String, ArrayList<String>>>();
+        for (PlantingRequest r : requests) {
+            results.add(ExperimentHelper.getAutoPlantingDate(r.getData(), r.getEDate(), r.getLDate(), r.getRain(), r.getDays()));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<HashMap<String, ArrayList<String>>> getAutoPlantingDates() {
+        return ExperimentHelper.getAutoPlantingDates(RainfallIndex.of(data), requests);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getAutoPlantingDateCriteria() {
+        return ExperimentHelper.getAutoPlantingDate(data, columns, "03-01", "05-15", criteria);
+    }
+
+    @Benchmark
+    public ArrayList<HashMap<String, String>> getAutoIrrigationEvent() {
+        return ExperimentHelper.getAutoIrrigationEvent(data, "4", "8", new String[]{"600", "600", "600", "600"}, new String[]{"30", "30", "30", "30"});
+    }
+}
@@ -0,0 +1,99 @@
+package org.agmip.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.agmip.common.Functions;
+import org.agmip.common.Functions.CompareMode;
+import org.agmip.common.Functions.PrecisionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the String arithmetic in {@link Functions}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FunctionsBenchmark {
+
+    @Param({"EXACT", "DOUBLE"})
+    public String precision;
+    private final String[] values = {"23.4", "12.1", "0.5", "1653", "273.16", "-3.25", "101.3"};
+
+    @Setup
+    public void setup() {
+        Functions.setPrecisionMode(PrecisionMode.valueOf(precision));
+    }
+
+    @TearDown
+    public void tearDown() {
+        Functions.setPrecisionMode(PrecisionMode.EXACT);
+    }
+
+    @Benchmark
+    public String sum() {
+        return Functions.sum(values);
+    }
+
+    @Benchmark
+    public String product() {
+        return Functions.product(values[0], values[1], values[2]);
+    }
+
+    @Benchmark
+    public String multiply() {
+        return Functions.multiply(values[0], values[4]);
+    }
+
+    @Benchmark
+    public String divide() {
+        return Functions.divide(values[0], values[1]);
+    }
+
+    @Benchmark
+    public String divideScale() {
+        return Functions.divide(values[3], values[4], 6);
+    }
+
+    @Benchmark
+    public String average() {
+        return Functions.average(values);
+    }
+
+    @Benchmark
+    public String averageScale() {
+        return Functions.average(2, values);
+    }
+
+    @Benchmark
+    public String minMax() {
+        return Functions.substract(Functions.max(values), Functions.min(values));
+    }
+
+    @Benchmark
+    public String exp() {
+        return Functions.exp(Functions.divide(Functions.multiply("17.27", values[0]), Functions.sum(values[0], "237.3"), 6));
+    }
+
+    @Benchmark
+    public boolean compare() {
+        return Functions.compare(values[0], values[1], CompareMode.GREATER);
+    }
+
+    @Benchmark
+    public String round() {
+        return Functions.round(values[5], 1);
+    }
+}
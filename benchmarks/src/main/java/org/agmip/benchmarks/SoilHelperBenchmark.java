@@ -0,0 +1,67 @@
+package org.agmip.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.agmip.functions.SoilHelper;
+import org.agmip.functions.SyntheticAceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the soil layer functions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoilHelperBenchmark {
+
+    @Param({"6", "20"})
+    public int layers;
+    private HashMap<String, Object> data;
+    private final ArrayList<String> ptVars = new ArrayList<String>(Arrays.asList("slll", "sldul", "slsat", "sksat", "slbdm"));
+
+    @Setup
+    public void setup() {
+        data = new HashMap<String, Object>();
+        data.put("soil", new SyntheticAceGenerator(42).soil("BNCH000001", layers));
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getRootDistribution() {
+        return SoilHelper.getRootDistribution(data, "slrgf", "1", "20", "180");
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getIcnDistribution() {
+        return SoilHelper.getIcnDistribution(data, "25");
+    }
+
+    @Benchmark
+    public ArrayList<HashMap<String, String>> splittingSoillayer() {
+        return SoilHelper.splittingSoillayer(data, false);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getSoilValsFromOthPara() {
+        return SoilHelper.getSoilValsFromOthPara(data, "PTSaxton2006", ptVars);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> reduceWP() {
+        return SoilHelper.reduceWP(data, "10");
+    }
+}
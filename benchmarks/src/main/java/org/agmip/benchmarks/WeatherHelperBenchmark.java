@@ -0,0 +1,100 @@
+package org.agmip.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.agmip.functions.DailyWeatherColumns;
+import org.agmip.functions.EtoMethod;
+import org.agmip.functions.SyntheticAceGenerator;
+import org.agmip.functions.WeatherHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of the weather derivations over 1, 10 and 30 years of daily
+ * weather, with the daily maps and with the columnar view, sequentially and
+ * by year in parallel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherHelperBenchmark {
+
+    @Param({"1", "10", "30"})
+    public int years;
+    private HashMap<String, Object> data;
+    private DailyWeatherColumns columns;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        data = new SyntheticAceGenerator(42).combinedExperiment(1981, years, 6);
+        columns = DailyWeatherColumns.fromData(data);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public HashMap<String, String> getTavAndAmp() {
+        return WeatherHelper.getTavAndAmp(data);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getEto() {
+        return WeatherHelper.getEto(data);
+    }
+
+    @Benchmark
+    public DailyWeatherColumns buildColumns() {
+        return DailyWeatherColumns.fromData(data);
+    }
+
+    @Benchmark
+    public HashMap<String, String> getTavAndAmpColumns() {
+        return WeatherHelper.getTavAndAmp(columns);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getEtoColumns() {
+        return WeatherHelper.getEto(columns);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getEtoHargreavesSamani() {
+        return WeatherHelper.getEto(columns, EtoMethod.HARGREAVES_SAMANI);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getEtoPriestleyTaylor() {
+        return WeatherHelper.getEto(columns, EtoMethod.PRIESTLEY_TAYLOR);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getEtoParallel() {
+        return WeatherHelper.getEto(data, executor);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<String>> getEtoColumnsParallel() {
+        return WeatherHelper.getEto(columns, executor);
+    }
+}
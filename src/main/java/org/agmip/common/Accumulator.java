@@ -0,0 +1,240 @@
+package org.agmip.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import org.agmip.common.Functions.PrecisionMode;
+
+/**
+ * Streaming accumulator for the sum, average, minimum and maximum of a series
+ * of numbers.
+ *
+ * The values are added one by one without building any intermediate string.
+ * In {@code EXACT} mode the running sum is kept as a {@code BigDecimal} and
+ * the results are the same as {@link Functions#sum(String...)},
+ * {@link Functions#average(String...)}, {@link Functions#min(String...)} and
+ * {@link Functions#max(String...)} on the same values; in {@code DOUBLE} mode
+ * it is kept as a {@code double}. The instance is not thread-safe.
+ */
+public class Accumulator {
+
+    private final boolean exact;
+    private int count;
+    private BigDecimal exactSum;
+    private BigDecimal exactMin;
+    private BigDecimal exactMax;
+    private double sum;
+    private double min;
+    private double max;
+
+    /**
+     * Create an accumulator with the current precision mode of
+     * {@link Functions}.
+     */
+    public Accumulator() {
+        this(Functions.getPrecisionMode());
+    }
+
+    /**
+     * Create an accumulator with the given precision mode.
+     *
+     * @param mode The precision mode, {@code null} for {@code EXACT}
+     */
+    public Accumulator(PrecisionMode mode) {
+        this.exact = mode != PrecisionMode.DOUBLE;
+        reset();
+    }
+
+    /**
+     * Clear all the added values
+     */
+    public final void reset() {
+        count = 0;
+        exactSum = BigDecimal.ZERO;
+        exactMin = null;
+        exactMax = null;
+        sum = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+    }
+
+    /**
+     * Add a numeric string
+     *
+     * @param value A valid number string
+     *
+     * @return false if the value is {@code null} or invalid and has been
+     * skipped
+     */
+    public boolean add(String value) {
+        if (value == null) {
+            return false;
+        }
+        if (exact) {
+            BigDecimal bd;
+            try {
+                bd = Functions.toBigDecimal(value);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            addExact(bd);
+            return true;
+        } else {
+            return add(DoubleFunctions.parse(value));
+        }
+    }
+
+    /**
+     * Add a {@code BigDecimal} number
+     *
+     * @param value A number
+     *
+     * @return false if the value is {@code null} and has been skipped
+     */
+    public boolean add(BigDecimal value) {
+        if (value == null) {
+            return false;
+        }
+        if (exact) {
+            addExact(value);
+            return true;
+        } else {
+            return add(value.doubleValue());
+        }
+    }
+
+    /**
+     * Add a number
+     *
+     * @param value A valid number
+     *
+     * @return false if the value is {@code NaN} or infinite and has been
+     * skipped
+     */
+    public boolean add(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+        if (exact) {
+            addExact(BigDecimal.valueOf(value));
+        } else {
+            if (count == 0 || value < min) {
+                min = value;
+            }
+            if (count == 0 || value > max) {
+                max = value;
+            }
+            sum += value;
+            count++;
+        }
+        return true;
+    }
+
+    private void addExact(BigDecimal value) {
+        if (count == 0) {
+            exactSum = value;
+            exactMin = value;
+            exactMax = value;
+        } else {
+            exactSum = exactSum.add(value);
+            if (exactMin.compareTo(value) > 0) {
+                exactMin = value;
+            }
+            if (exactMax.compareTo(value) < 0) {
+                exactMax = value;
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Get the number of added values
+     *
+     * @return The count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the sum of added values
+     *
+     * @return The sum, or {@code null} if no value has been added
+     */
+    public String getSum() {
+        if (count == 0) {
+            return null;
+        }
+        return exact ? exactSum.toString() : DoubleFunctions.toString(sum);
+    }
+
+    /**
+     * Get the minimum of added values
+     *
+     * @return The minimum, or {@code null} if no value has been added
+     */
+    public String getMin() {
+        if (count == 0) {
+            return null;
+        }
+        return exact ? exactMin.toString() : DoubleFunctions.toString(min);
+    }
+
+    /**
+     * Get the maximum of added values
+     *
+     * @return The maximum, or {@code null} if no value has been added
+     */
+    public String getMax() {
+        if (count == 0) {
+            return null;
+        }
+        return exact ? exactMax.toString() : DoubleFunctions.toString(max);
+    }
+
+    /**
+     * Get the sum of added values as {@code double}
+     *
+     * @return The sum, or {@code NaN} if no value has been added
+     */
+    public double doubleSum() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return exact ? exactSum.doubleValue() : sum;
+    }
+
+    /**
+     * Get the average of added values. When the result is indivisible, the
+     * scale will depends on the scale of the sum, same as
+     * {@link Functions#average(String...)}.
+     *
+     * @return The average, or {@code null} if no value has been added
+     */
+    public String result() {
+        if (count == 0) {
+            return null;
+        } else if (exact) {
+            return Functions.divideDecimal(exactSum, BigDecimal.valueOf(count)).toString();
+        } else {
+            return DoubleFunctions.toString(sum / count);
+        }
+    }
+
+    /**
+     * Get the average of added values with given scale, same as
+     * {@link Functions#average(int, String...)}.
+     *
+     * @param scale scale of the average to be returned
+     *
+     * @return The average, or {@code null} if no value has been added
+     */
+    public String result(int scale) {
+        if (count == 0) {
+            return null;
+        } else if (exact) {
+            return exactSum.divide(BigDecimal.valueOf(count), scale, RoundingMode.HALF_UP).toString();
+        } else {
+            return DoubleFunctions.round(sum / count, scale);
+        }
+    }
+}
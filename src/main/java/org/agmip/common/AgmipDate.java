@@ -0,0 +1,178 @@
+package org.agmip.common;
+
+import java.io.Serializable;
+
+/**
+ * Immutable AgMIP date backed by an epoch day (days since 1970-01-01).
+ *
+ * Comparison, offset and difference are plain integer operations, so the
+ * loops over daily records do not need to go through the YYYYMMDD text. Use
+ * {@link #valueOf(String)} and {@link #toString()} at the edges.
+ */
+public final class AgmipDate implements Comparable<AgmipDate>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final int epochDay;
+
+    private AgmipDate(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    /**
+     * Parse an AgMIP standard date string (YYYYMMDD).
+     *
+     * @param agmipDate AgMIP standard date string
+     * @return the {@code AgmipDate}, or {@code null} if the string is not a
+     * valid date
+     */
+    public static AgmipDate valueOf(String agmipDate) {
+        int day = DateCodec.parse(agmipDate);
+        if (day == DateCodec.INVALID) {
+            return null;
+        }
+        return new AgmipDate(day);
+    }
+
+    /**
+     * Get the {@code AgmipDate} for the epoch day.
+     *
+     * @param epochDay The epoch day
+     * @return the {@code AgmipDate}, or {@code null} for
+     * {@link DateCodec#INVALID}
+     */
+    public static AgmipDate ofEpochDay(int epochDay) {
+        if (epochDay == DateCodec.INVALID) {
+            return null;
+        }
+        return new AgmipDate(epochDay);
+    }
+
+    /**
+     * Get the {@code AgmipDate} for the given year, month and day, see
+     * {@link DateCodec#of(int, int, int)}.
+     *
+     * @param year The year
+     * @param month The month, 1 for January
+     * @param day The day of month
+     * @return the {@code AgmipDate}
+     */
+    public static AgmipDate of(int year, int month, int day) {
+        return new AgmipDate(DateCodec.of(year, month, day));
+    }
+
+    /**
+     * @return the epoch day
+     */
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * @return the year
+     */
+    public int getYear() {
+        return DateCodec.getYear(epochDay);
+    }
+
+    /**
+     * @return the month, 1 for January
+     */
+    public int getMonth() {
+        return DateCodec.getMonth(epochDay);
+    }
+
+    /**
+     * @return the day of month
+     */
+    public int getDay() {
+        return DateCodec.getDay(epochDay);
+    }
+
+    /**
+     * @return the day of year, 1 for January 1st
+     */
+    public int getDayOfYear() {
+        return DateCodec.getDayOfYear(epochDay);
+    }
+
+    /**
+     * @return the month and day as a MMDD integer, e.g. 229 for February 29th
+     */
+    public int getMonthDay() {
+        return DateCodec.getMonthDay(epochDay);
+    }
+
+    /**
+     * Offset the date by a set number of days.
+     *
+     * @param days number of days to offset (can be negative)
+     * @return the {@code AgmipDate} of <code>this + days</code>
+     */
+    public AgmipDate plusDays(int days) {
+        return days == 0 ? this : new AgmipDate(epochDay + days);
+    }
+
+    /**
+     * Offset the date by a set number of years, see
+     * {@link DateCodec#addYears(int, int)}.
+     *
+     * @param years number of years to offset (can be negative)
+     * @return the {@code AgmipDate} of <code>this + years</code>
+     */
+    public AgmipDate plusYears(int years) {
+        return years == 0 ? this : new AgmipDate(DateCodec.addYears(epochDay, years));
+    }
+
+    /**
+     * Get the number of days from this date to the other date.
+     *
+     * @param other The other date
+     * @return <code>other - this</code> in days
+     */
+    public int daysUntil(AgmipDate other) {
+        return other.epochDay - epochDay;
+    }
+
+    /**
+     * Check if this date is earlier than the other date.
+     *
+     * @param other The other date
+     * @return true if <code>this &lt; other</code>
+     */
+    public boolean isBefore(AgmipDate other) {
+        return epochDay < other.epochDay;
+    }
+
+    /**
+     * Check if this date is later than the other date.
+     *
+     * @param other The other date
+     * @return true if <code>this &gt; other</code>
+     */
+    public boolean isAfter(AgmipDate other) {
+        return epochDay > other.epochDay;
+    }
+
+    @Override
+    public int compareTo(AgmipDate other) {
+        return epochDay < other.epochDay ? -1 : (epochDay == other.epochDay ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof AgmipDate && ((AgmipDate) obj).epochDay == epochDay;
+    }
+
+    @Override
+    public int hashCode() {
+        return epochDay;
+    }
+
+    /**
+     * @return the AgMIP standard date string (YYYYMMDD)
+     */
+    @Override
+    public String toString() {
+        return DateCodec.format(epochDay);
+    }
+}
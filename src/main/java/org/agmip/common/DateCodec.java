@@ -0,0 +1,275 @@
+package org.agmip.common;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Thread-safe codec between AgMIP standard date string (YYYYMMDD) and epoch
+ * day, the number of days since 1970-01-01.
+ *
+ * All the conversions are pure integer arithmetic on the proleptic Gregorian
+ * calendar, so there is no lock and no {@code Date} or {@code Calendar}
+ * object involved, except for {@link #toDate(int)} and
+ * {@link #fromDate(Date)} which use a per-thread calendar of the default time
+ * zone.
+ */
+public final class DateCodec {
+
+    /**
+     * The epoch day used for an invalid date
+     */
+    public static final int INVALID = Integer.MIN_VALUE;
+    private static final int DAYS_0000_TO_1970 = 719468;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final ThreadLocal<GregorianCalendar> CALENDAR = new ThreadLocal<GregorianCalendar>() {
+        @Override
+        protected GregorianCalendar initialValue() {
+            return new GregorianCalendar();
+        }
+    };
+
+    /**
+     * Cannot instantiate this class.
+     */
+    private DateCodec() {
+    }
+
+    /**
+     * Parse an AgMIP standard date string (YYYYMMDD) to epoch day. Only the
+     * 8-digit text of a real calendar date is accepted.
+     *
+     * @param agmipDate AgMIP standard date string
+     *
+     * @return the epoch day, or {@link #INVALID} if the string is not a valid
+     * date
+     */
+    public static int parse(String agmipDate) {
+        if (agmipDate == null || agmipDate.length() != 8) {
+            return INVALID;
+        }
+        int value = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = agmipDate.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        int year = value / 10000;
+        int month = value / 100 % 100;
+        int day = value % 100;
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Format an epoch day to AgMIP standard date string (YYYYMMDD).
+     *
+     * @param epochDay The epoch day
+     *
+     * @return the AgMIP standard date string, or {@code null} for
+     * {@link #INVALID}
+     */
+    public static String format(int epochDay) {
+        if (epochDay == INVALID) {
+            return null;
+        }
+        int ymd = toYearMonthDay(epochDay);
+        int year = ymd / 10000;
+        if (year < 0 || year > 9999) {
+            return String.format("%04d%02d%02d", year, Math.abs(ymd / 100 % 100), Math.abs(ymd % 100));
+        }
+        char[] buf = new char[8];
+        for (int i = 7; i >= 0; i--) {
+            buf[i] = (char) ('0' + ymd % 10);
+            ymd /= 10;
+        }
+        return new String(buf);
+    }
+
+    /**
+     * Get the epoch day of the given date. The month and day are lenient,
+     * e.g. day 0 is the last day of previous month and month 13 is the January
+     * of next year.
+     *
+     * @param year The year
+     * @param month The month, 1 for January
+     * @param day The day of month
+     *
+     * @return the epoch day
+     */
+    public static int of(int year, int month, int day) {
+        int m = month - 1;
+        year += floorDiv(m, 12);
+        m = m - floorDiv(m, 12) * 12;
+        return toEpochDay(year, m + 1, 1) + day - 1;
+    }
+
+    private static int toEpochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Get the date of the epoch day in the form of a YYYYMMDD integer
+     *
+     * @param epochDay The epoch day
+     * @return the integer of {@code year * 10000 + month * 100 + day}
+     */
+    public static int toYearMonthDay(int epochDay) {
+        int z = epochDay + DAYS_0000_TO_1970;
+        int era = floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + (year < 0 ? -1 : 1) * (month * 100 + day);
+    }
+
+    /**
+     * Get the year of the epoch day
+     *
+     * @param epochDay The epoch day
+     * @return the year
+     */
+    public static int getYear(int epochDay) {
+        return toYearMonthDay(epochDay) / 10000;
+    }
+
+    /**
+     * Get the month of the epoch day
+     *
+     * @param epochDay The epoch day
+     * @return the month, 1 for January
+     */
+    public static int getMonth(int epochDay) {
+        return Math.abs(toYearMonthDay(epochDay) / 100 % 100);
+    }
+
+    /**
+     * Get the day of month of the epoch day
+     *
+     * @param epochDay The epoch day
+     * @return the day of month
+     */
+    public static int getDay(int epochDay) {
+        return Math.abs(toYearMonthDay(epochDay) % 100);
+    }
+
+    /**
+     * Get the month and day of the epoch day in the form of a MMDD integer
+     *
+     * @param epochDay The epoch day
+     * @return the integer of {@code month * 100 + day}, e.g. 229 for February
+     * 29th
+     */
+    public static int getMonthDay(int epochDay) {
+        return Math.abs(toYearMonthDay(epochDay) % 10000);
+    }
+
+    /**
+     * Get the day of year of the epoch day
+     *
+     * @param epochDay The epoch day
+     * @return the day of year, 1 for January 1st
+     */
+    public static int getDayOfYear(int epochDay) {
+        return epochDay - toEpochDay(getYear(epochDay), 1, 1) + 1;
+    }
+
+    /**
+     * Offset the epoch day by a set number of years. Same as
+     * {@code Calendar.add(Calendar.YEAR, years)}, February 29th will become
+     * February 28th in a non-leap year.
+     *
+     * @param epochDay The epoch day
+     * @param years number of years to offset
+     * @return the epoch day of <code>epochDay + years</code>
+     */
+    public static int addYears(int epochDay, int years) {
+        int ymd = toYearMonthDay(epochDay);
+        int year = ymd / 10000 + years;
+        int month = Math.abs(ymd / 100 % 100);
+        int day = Math.min(Math.abs(ymd % 100), lengthOfMonth(year, month));
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Check if the year is a leap year in the proleptic Gregorian calendar
+     *
+     * @param year The year
+     * @return True for leap year
+     */
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Get the number of days in the month
+     *
+     * @param year The year
+     * @param month The month, 1 for January
+     * @return the number of days
+     */
+    public static int lengthOfMonth(int year, int month) {
+        if (month == 2 && isLeapYear(year)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Convert the epoch day to the {@code Date} at the midnight of default
+     * time zone, same as the one parsed by {@code SimpleDateFormat}.
+     *
+     * @param epochDay The epoch day
+     * @return the {@code Date}, or {@code null} for {@link #INVALID}
+     */
+    public static Date toDate(int epochDay) {
+        if (epochDay == INVALID) {
+            return null;
+        }
+        int ymd = toYearMonthDay(epochDay);
+        GregorianCalendar cal = CALENDAR.get();
+        cal.clear();
+        cal.set(ymd / 10000, Math.abs(ymd / 100 % 100) - 1, Math.abs(ymd % 100));
+        return cal.getTime();
+    }
+
+    /**
+     * Get the epoch day of the {@code Date} in default time zone.
+     *
+     * @param date The {@code Date}
+     * @return the epoch day, or {@link #INVALID} for {@code null}
+     */
+    public static int fromDate(Date date) {
+        if (date == null) {
+            return INVALID;
+        }
+        GregorianCalendar cal = CALENDAR.get();
+        cal.setTime(date);
+        int year = cal.get(Calendar.YEAR);
+        if (cal.get(Calendar.ERA) == GregorianCalendar.BC) {
+            year = 1 - year;
+        }
+        return toEpochDay(year, cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH));
+    }
+
+    private static int floorDiv(int x, int y) {
+        int q = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            q--;
+        }
+        return q;
+    }
+}
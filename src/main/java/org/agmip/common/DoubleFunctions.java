@@ -0,0 +1,590 @@
+package org.agmip.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import org.agmip.common.Functions.CompareMode;
+
+/**
+ * Primitive {@code double} twin of the arithmetic in {@link Functions}.
+ *
+ * The methods in {@link Functions} take and return numeric strings, so that a
+ * chained formula will parse and print the same numbers again and again. The
+ * methods here work on {@code double} values directly and use
+ * {@link Double#NaN} where {@link Functions} would use {@code null}: invalid
+ * or missing inputs become {@code NaN} and any {@code NaN} input makes the
+ * result {@code NaN}. The only places where text is involved are the edge
+ * adapters {@link #parse(String)}, {@link #toString(double)} and
+ * {@link #round(double, int)}.
+ */
+public final class DoubleFunctions {
+
+    /**
+     * Bound of the relative error of a short chain of {@code double}
+     * operations, with a wide margin
+     */
+    private static final double RELATIVE_ERROR = 1e-13;
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+
+    /**
+     * Cannot instantiate this class.
+     */
+    private DoubleFunctions() {
+    }
+
+    /**
+     * Convert a numeric string to a {@code double}.
+     *
+     * Only the numeric strings recognized by {@code BigDecimal} are accepted,
+     * so {@code "NaN"}, {@code "Infinity"}, hexadecimal and suffixed values
+     * are treated as invalid just like in {@link Functions}.
+     *
+     * @param numeric A valid number string
+     *
+     * @return the {@code double} value or {@code NaN} if the string is
+     * {@code null} or invalid
+     */
+    public static double parse(String numeric) {
+        if (!isNumeric(numeric)) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(numeric);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Convert a group of numeric strings to a {@code double} array.
+     *
+     * @param numerics valid number strings
+     *
+     * @return the {@code double} values, invalid element will be {@code NaN}
+     */
+    public static double[] parse(String... numerics) {
+        if (numerics == null) {
+            return new double[0];
+        }
+        double[] ret = new double[numerics.length];
+        for (int i = 0; i < numerics.length; i++) {
+            ret[i] = parse(numerics[i]);
+        }
+        return ret;
+    }
+
+    /**
+     * Check if the input string has the syntax of a {@code BigDecimal} number
+     * string, without building any object.
+     *
+     * @param str The input string
+     *
+     * @return true for a valid number string
+     */
+    public static boolean isNumeric(String str) {
+        if (str == null) {
+            return false;
+        }
+        int len = str.length();
+        int i = 0;
+        if (i < len && (str.charAt(i) == '-' || str.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < len && isDigit(str.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < len && str.charAt(i) == '.') {
+            i++;
+            while (i < len && isDigit(str.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < len && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+            i++;
+            if (i < len && (str.charAt(i) == '-' || str.charAt(i) == '+')) {
+                i++;
+            }
+            int expDigits = 0;
+            while (i < len && isDigit(str.charAt(i))) {
+                i++;
+                expDigits++;
+            }
+            if (expDigits == 0) {
+                return false;
+            }
+        }
+        return i == len;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Convert a {@code double} value to a plain number string without the
+     * trailing zeros.
+     *
+     * @param value The input value
+     *
+     * @return the number string or {@code null} if the value is {@code NaN}
+     * or infinite
+     */
+    public static String toString(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        } else if (value == 0) {
+            return "0";
+        }
+        String str = Double.toString(value);
+        if (str.indexOf('E') < 0) {
+            return str.endsWith(".0") ? str.substring(0, str.length() - 2) : str;
+        }
+        BigDecimal bd = new BigDecimal(str).stripTrailingZeros();
+        if (bd.scale() < 0) {
+            bd = bd.setScale(0);
+        }
+        return bd.toPlainString();
+    }
+
+    /**
+     * Convert a group of {@code double} values to number strings.
+     *
+     * @param values The input values
+     *
+     * @return the number strings, {@code NaN} element will be {@code null}
+     */
+    public static String[] toStrings(double... values) {
+        if (values == null) {
+            return new String[0];
+        }
+        String[] ret = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ret[i] = toString(values[i]);
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the closest {@code decimal} string to the argument, with given
+     * scale, using HALF_UP mode. The result is the same as
+     * {@code Functions.round(value + "", scale)}.
+     *
+     * @param value The input value
+     * @param scale The scale of the result
+     *
+     * @return the rounded number string or {@code null} if the value is
+     * {@code NaN} or infinite
+     */
+    public static String round(double value, int scale) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        }
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).toString();
+    }
+
+    /**
+     * Returns the closest {@code double} to the argument, with given scale,
+     * using HALF_UP mode. This is calculated with binary floating arithmetic,
+     * so a value which is exactly a half in decimal but not in binary may be
+     * rounded to the other side; use {@link #round(double, int)} when the
+     * result is published.
+     *
+     * @param value The input value
+     * @param scale The scale of the result, [0, 18]
+     *
+     * @return the rounded value
+     */
+    public static double roundHalfUp(double value, int scale) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || scale < 0 || scale >= POW10.length) {
+            return value;
+        }
+        double factor = POW10[scale];
+        double ret = Math.floor(Math.abs(value) * factor + 0.5) / factor;
+        return value < 0 ? -ret : ret;
+    }
+
+    /**
+     * Check if the value is too close to a half-way point of the given scale
+     * for the rounding to be trusted, since the error of the binary floating
+     * arithmetic may put it on the other side than the exact decimal result.
+     *
+     * @param value The input value
+     * @param scale The scale of the rounding, [0, 18]
+     * @param tolerance The distance to the half-way point, in the unit of the
+     * last digit of the scale
+     *
+     * @return true if the value is within the tolerance, it is too large for
+     * the error of a few {@code double} operations to be within the tolerance,
+     * or it is {@code NaN} or infinite
+     */
+    public static boolean isNearHalfWay(double value, int scale, double tolerance) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || scale < 0 || scale >= POW10.length) {
+            return true;
+        }
+        double abs = Math.abs(value * POW10[scale]);
+        return abs * RELATIVE_ERROR >= tolerance || Math.abs(abs - Math.floor(abs) - 0.5) < tolerance;
+    }
+
+    /**
+     * Multiply two numbers together
+     *
+     * @param f1 A valid number
+     * @param f2 A valid number
+     *
+     * @return <code>f1*f2</code>
+     */
+    public static double multiply(double f1, double f2) {
+        return f1 * f2;
+    }
+
+    /**
+     * Get the sum of all input numbers
+     *
+     * @param addends one or more valid numbers
+     *
+     * @return <code>addends[0] + addends[1] + ...</code>
+     */
+    public static double sum(double... addends) {
+        if (addends == null) {
+            return Double.NaN;
+        }
+        return sum(addends, 0, addends.length);
+    }
+
+    /**
+     * Get the sum of the numbers in the range of the array
+     *
+     * @param values The array of valid numbers
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return <code>values[from] + ... + values[to - 1]</code>, or {@code NaN}
+     * for invalid range
+     */
+    public static double sum(double[] values, int from, int to) {
+        if (!isValidRange(values, from, to)) {
+            return Double.NaN;
+        }
+        double sum = values[from];
+        for (int i = from + 1; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Get the difference of minuend and all subtrahends
+     *
+     * @param minuend A valid number
+     * @param subtrahends one or more valid numbers
+     *
+     * @return <code>minuend - subtrahends[0] - subtrahends[1] - ...</code>
+     */
+    public static double substract(double minuend, double... subtrahends) {
+        if (subtrahends == null) {
+            return minuend;
+        }
+        double difference = minuend;
+        for (int i = 0; i < subtrahends.length; i++) {
+            difference -= subtrahends[i];
+        }
+        return difference;
+    }
+
+    /**
+     * Get the product of all input numbers
+     *
+     * @param factors one or more valid numbers
+     *
+     * @return <code>factors[0] * factors[1] * ...</code>
+     */
+    public static double product(double... factors) {
+        if (factors == null) {
+            return Double.NaN;
+        }
+        return product(factors, 0, factors.length);
+    }
+
+    /**
+     * Get the product of the numbers in the range of the array
+     *
+     * @param values The array of valid numbers
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return <code>values[from] * ... * values[to - 1]</code>, or {@code NaN}
+     * for invalid range
+     */
+    public static double product(double[] values, int from, int to) {
+        if (!isValidRange(values, from, to)) {
+            return Double.NaN;
+        }
+        double product = values[from];
+        for (int i = from + 1; i < to; i++) {
+            product *= values[i];
+        }
+        return product;
+    }
+
+    /**
+     * Get the result of dividend divided by divisor.
+     *
+     * @param dividend A valid number
+     * @param divisor A valid number
+     *
+     * @return <code>dividend / divisor</code>, or {@code NaN} when divisor is
+     * zero
+     */
+    public static double divide(double dividend, double divisor) {
+        if (divisor == 0) {
+            return Double.NaN;
+        }
+        return dividend / divisor;
+    }
+
+    /**
+     * Get the average of all input numbers.
+     *
+     * @param values one or more valid numbers
+     *
+     * @return <code>(values[0] + values[1] + ...) / values.length</code>
+     */
+    public static double average(double... values) {
+        if (values == null) {
+            return Double.NaN;
+        }
+        return average(values, 0, values.length);
+    }
+
+    /**
+     * Get the average of the numbers in the range of the array
+     *
+     * @param values The array of valid numbers
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The average number, or {@code NaN} for invalid range
+     */
+    public static double average(double[] values, int from, int to) {
+        return sum(values, from, to) / (to - from);
+    }
+
+    /**
+     * Returns the minimum number from a group of input value. {@code NaN}
+     * element is ignored.
+     *
+     * @param values One of more valid numbers
+     *
+     * @return the minimum number, or {@code NaN} when no valid number is given
+     */
+    public static double min(double... values) {
+        if (values == null) {
+            return Double.NaN;
+        }
+        return min(values, 0, values.length);
+    }
+
+    /**
+     * Returns the minimum number in the range of the array. {@code NaN}
+     * element is ignored.
+     *
+     * @param values The array of valid numbers
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return the minimum number, or {@code NaN} when no valid number is in
+     * the range
+     */
+    public static double min(double[] values, int from, int to) {
+        double ret = Double.NaN;
+        if (isValidRange(values, from, to)) {
+            for (int i = from; i < to; i++) {
+                if (!Double.isNaN(values[i]) && (Double.isNaN(ret) || values[i] < ret)) {
+                    ret = values[i];
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the maximum number from a group of input value. {@code NaN}
+     * element is ignored.
+     *
+     * @param values One of more valid numbers
+     *
+     * @return the maximum number, or {@code NaN} when no valid number is given
+     */
+    public static double max(double... values) {
+        if (values == null) {
+            return Double.NaN;
+        }
+        return max(values, 0, values.length);
+    }
+
+    /**
+     * Returns the maximum number in the range of the array. {@code NaN}
+     * element is ignored.
+     *
+     * @param values The array of valid numbers
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return the maximum number, or {@code NaN} when no valid number is in
+     * the range
+     */
+    public static double max(double[] values, int from, int to) {
+        double ret = Double.NaN;
+        if (isValidRange(values, from, to)) {
+            for (int i = from; i < to; i++) {
+                if (!Double.isNaN(values[i]) && (Double.isNaN(ret) || values[i] > ret)) {
+                    ret = values[i];
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static boolean isValidRange(double[] values, int from, int to) {
+        return values != null && from >= 0 && from < to && to <= values.length;
+    }
+
+    /**
+     * Returns Euler's number <i>e</i> raised to the power of a value.
+     *
+     * @param exponent A valid number
+     *
+     * @return the value <i>e</i><sup>{@code exponent}</sup>
+     */
+    public static double exp(double exponent) {
+        return Math.exp(exponent);
+    }
+
+    /**
+     * Returns the natural logarithm (base <i>e</i>) of a value.
+     *
+     * @param val A valid number
+     *
+     * @return the value ln&nbsp;{@code val}
+     */
+    public static double log(double val) {
+        return Math.log(val);
+    }
+
+    /**
+     * Returns the value of the first argument raised to the power of the second
+     * argument.
+     *
+     * @param base the base.
+     * @param exponent the exponent.
+     * @return the value {@code base}<sup>{@code exponent}</sup>.
+     */
+    public static double pow(double base, double exponent) {
+        return Math.pow(base, exponent);
+    }
+
+    /**
+     * Returns the correctly rounded positive square root of a value.
+     *
+     * @param value A valid number
+     * @return the positive square root of {@code value}.
+     */
+    public static double sqrt(double value) {
+        return Math.sqrt(value);
+    }
+
+    /**
+     * Returns the trigonometric cosine of an angle.
+     *
+     * @param value A valid number for an angle, in radians
+     * @return the cosine of the argument
+     */
+    public static double cos(double value) {
+        return Math.cos(value);
+    }
+
+    /**
+     * Returns the trigonometric sine of an angle.
+     *
+     * @param value A valid number for an angle, in radians
+     * @return the sine of the argument
+     */
+    public static double sin(double value) {
+        return Math.sin(value);
+    }
+
+    /**
+     * Returns the trigonometric tangent of an angle.
+     *
+     * @param value A valid number for an angle, in radians
+     * @return the tangent of the argument
+     */
+    public static double tan(double value) {
+        return Math.tan(value);
+    }
+
+    /**
+     * Returns the arc cosine of a value.
+     *
+     * @param value A valid number
+     * @return the arc cosine of the argument.
+     */
+    public static double acos(double value) {
+        return Math.acos(value);
+    }
+
+    /**
+     * Returns the arc sine of a value.
+     *
+     * @param value A valid number
+     * @return the arc sine of the argument.
+     */
+    public static double asin(double value) {
+        return Math.asin(value);
+    }
+
+    /**
+     * Returns the arc tangent of a value.
+     *
+     * @param value A valid number
+     * @return the arc tangent of the argument.
+     */
+    public static double atan(double value) {
+        return Math.atan(value);
+    }
+
+    /**
+     * Compare the input number by given mode
+     *
+     * @param v1 A valid number
+     * @param v2 A valid number
+     * @param mode The compare mode
+     *
+     * @return the boolean compare result based on given mode; invalid mode or
+     * {@code NaN} value will return false
+     */
+    public static boolean compare(double v1, double v2, CompareMode mode) {
+        if (Double.isNaN(v1) || Double.isNaN(v2) || mode == null) {
+            return false;
+        }
+        switch (mode) {
+            case LESS:
+                return v1 < v2;
+            case NOTLESS:
+                return v1 >= v2;
+            case GREATER:
+                return v1 > v2;
+            case NOTGREATER:
+                return v1 <= v2;
+            case EQUAL:
+                return v1 == v2;
+            default:
+                return false;
+        }
+    }
+}
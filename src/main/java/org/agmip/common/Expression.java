@@ -0,0 +1,501 @@
+package org.agmip.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import static org.agmip.util.MapUtil.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compiled arithmetic formula, such as
+ * {@code 0.6108 * exp(17.27 * t / (t + 237.3))}.
+ *
+ * The formula is parsed only once by {@link #compile(String, String...)}, all
+ * the sub-expressions which only contain literals are folded into constants,
+ * and the result is a tree of nodes which reads the variables from a slot
+ * array. So evaluating the same formula for every daily record only costs the
+ * arithmetic. The instance is immutable and can be shared between threads.
+ *
+ * Supported syntax: numbers, variables, {@code + - * / ^}, parentheses, the
+ * constants {@code PI} and {@code E}, and the functions {@code exp, log, sqrt,
+ * pow, sin, cos, tan, acos, asin, atan, abs, min, max}. Same as
+ * {@link DoubleFunctions}, invalid values are represented by {@code NaN}.
+ */
+public final class Expression {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Expression.class);
+    private static final String[] FUNCTIONS = {"exp", "log", "sqrt", "pow", "sin", "cos", "tan", "acos", "asin", "atan", "abs", "min", "max"};
+    private static final int FN_EXP = 0;
+    private static final int FN_LOG = 1;
+    private static final int FN_SQRT = 2;
+    private static final int FN_POW = 3;
+    private static final int FN_SIN = 4;
+    private static final int FN_COS = 5;
+    private static final int FN_TAN = 6;
+    private static final int FN_ACOS = 7;
+    private static final int FN_ASIN = 8;
+    private static final int FN_ATAN = 9;
+    private static final int FN_ABS = 10;
+    private static final int FN_MIN = 11;
+    private final String formula;
+    private final String[] variables;
+    private final Node root;
+
+    private Expression(String formula, String[] variables, Node root) {
+        this.formula = formula;
+        this.variables = variables;
+        this.root = root;
+    }
+
+    /**
+     * Compile the formula into an evaluator.
+     *
+     * @param formula The formula text
+     * @param variables The variable names, the order will be used as the slot
+     * index for {@link #evaluate(double...)}. If no name is given, the
+     * variables will be collected from the formula by the order of their first
+     * appearance.
+     *
+     * @return The compiled {@code Expression}, or {@code null} if the formula
+     * is invalid
+     */
+    public static Expression compile(String formula, String... variables) {
+        if (formula == null) {
+            LOG.error("The formula is missing");
+            return null;
+        }
+        boolean collect = variables == null || variables.length == 0;
+        ArrayList<String> vars = new ArrayList<String>();
+        if (!collect) {
+            vars.addAll(Arrays.asList(variables));
+        }
+        try {
+            Parser parser = new Parser(formula, vars, collect);
+            Node root = parser.parse();
+            return new Expression(formula, vars.toArray(new String[vars.size()]), root);
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid formula [{}]: {}", formula, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get the original formula text
+     *
+     * @return The formula
+     */
+    public String getFormula() {
+        return formula;
+    }
+
+    /**
+     * Get the variable names by the order of slot index
+     *
+     * @return The variable names
+     */
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    /**
+     * Get the slot index for the given variable
+     *
+     * @param variable The variable name
+     * @return The slot index, or -1 if not used by this expression
+     */
+    public int getSlot(String variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the whole formula has been folded into one constant
+     *
+     * @return True for constant formula
+     */
+    public boolean isConstant() {
+        return root instanceof Const;
+    }
+
+    /**
+     * Evaluate the formula with the given slot values.
+     *
+     * @param slots The variable values by the order of {@link #getVariables()}
+     * @return The result, or {@code NaN} if it can not be calculated
+     */
+    public double evaluate(double... slots) {
+        if (slots == null || slots.length < variables.length) {
+            return Double.NaN;
+        }
+        return root.eval(slots);
+    }
+
+    /**
+     * Evaluate the formula with the values from a data map, e.g. a daily
+     * weather record or a soil layer.
+     *
+     * @param data The data map which contains the variables
+     * @return The result number string, or {@code null} if it can not be
+     * calculated
+     */
+    public String evaluate(Map data) {
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            slots[i] = DoubleFunctions.parse(getValueOr(data, variables[i], "").trim());
+        }
+        return DoubleFunctions.toString(root.eval(slots));
+    }
+
+    @Override
+    public String toString() {
+        return formula;
+    }
+
+    /**
+     * Node of the compiled expression tree
+     */
+    private static abstract class Node {
+
+        abstract double eval(double[] slots);
+    }
+
+    private static final class Const extends Node {
+
+        private final double value;
+
+        Const(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double eval(double[] slots) {
+            return value;
+        }
+    }
+
+    private static final class Var extends Node {
+
+        private final int slot;
+
+        Var(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        double eval(double[] slots) {
+            return slots[slot];
+        }
+    }
+
+    private static final class Negate extends Node {
+
+        private final Node child;
+
+        Negate(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        double eval(double[] slots) {
+            return -child.eval(slots);
+        }
+    }
+
+    private static final class Binary extends Node {
+
+        private final char op;
+        private final Node left;
+        private final Node right;
+
+        Binary(char op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double eval(double[] slots) {
+            double l = left.eval(slots);
+            double r = right.eval(slots);
+            switch (op) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                case '/':
+                    return DoubleFunctions.divide(l, r);
+                default:
+                    return Math.pow(l, r);
+            }
+        }
+    }
+
+    private static final class Call extends Node {
+
+        private final int function;
+        private final Node[] args;
+
+        /**
+         * @param function The index of the function in {@link #FUNCTIONS}
+         * @param args The argument nodes
+         */
+        Call(int function, Node[] args) {
+            this.function = function;
+            this.args = args;
+        }
+
+        @Override
+        double eval(double[] slots) {
+            double v = args[0].eval(slots);
+            switch (function) {
+                case FN_EXP:
+                    return Math.exp(v);
+                case FN_LOG:
+                    return Math.log(v);
+                case FN_SQRT:
+                    return Math.sqrt(v);
+                case FN_POW:
+                    return Math.pow(v, args[1].eval(slots));
+                case FN_SIN:
+                    return Math.sin(v);
+                case FN_COS:
+                    return Math.cos(v);
+                case FN_TAN:
+                    return Math.tan(v);
+                case FN_ACOS:
+                    return Math.acos(v);
+                case FN_ASIN:
+                    return Math.asin(v);
+                case FN_ATAN:
+                    return Math.atan(v);
+                case FN_ABS:
+                    return Math.abs(v);
+                case FN_MIN:
+                    // Same as DoubleFunctions.min, NaN is ignored
+                    for (int i = 1; i < args.length; i++) {
+                        double w = args[i].eval(slots);
+                        if (!Double.isNaN(w) && (Double.isNaN(v) || w < v)) {
+                            v = w;
+                        }
+                    }
+                    return v;
+                default:
+                    for (int i = 1; i < args.length; i++) {
+                        double w = args[i].eval(slots);
+                        if (!Double.isNaN(w) && (Double.isNaN(v) || w > v)) {
+                            v = w;
+                        }
+                    }
+                    return v;
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser which folds the constant sub-expressions while
+     * building the tree.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private final ArrayList<String> vars;
+        private final boolean collect;
+        private int pos = 0;
+
+        Parser(String text, ArrayList<String> vars, boolean collect) {
+            this.text = text;
+            this.vars = vars;
+            this.collect = collect;
+        }
+
+        Node parse() {
+            Node ret = parseSum();
+            skipSpace();
+            if (pos < text.length()) {
+                throw new IllegalArgumentException("unexpected '" + text.charAt(pos) + "' at " + pos);
+            }
+            return ret;
+        }
+
+        private Node parseSum() {
+            Node ret = parseProduct();
+            while (true) {
+                skipSpace();
+                if (accept('+')) {
+                    ret = fold(new Binary('+', ret, parseProduct()));
+                } else if (accept('-')) {
+                    ret = fold(new Binary('-', ret, parseProduct()));
+                } else {
+                    return ret;
+                }
+            }
+        }
+
+        private Node parseProduct() {
+            Node ret = parseUnary();
+            while (true) {
+                skipSpace();
+                if (accept('*')) {
+                    ret = fold(new Binary('*', ret, parseUnary()));
+                } else if (accept('/')) {
+                    ret = fold(new Binary('/', ret, parseUnary()));
+                } else {
+                    return ret;
+                }
+            }
+        }
+
+        private Node parseUnary() {
+            skipSpace();
+            if (accept('-')) {
+                return fold(new Negate(parseUnary()));
+            } else if (accept('+')) {
+                return parseUnary();
+            }
+            return parsePower();
+        }
+
+        private Node parsePower() {
+            Node base = parsePrimary();
+            skipSpace();
+            if (accept('^')) {
+                return fold(new Binary('^', base, parseUnary()));
+            }
+            return base;
+        }
+
+        private Node parsePrimary() {
+            skipSpace();
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("unexpected end of formula");
+            }
+            char c = text.charAt(pos);
+            if (accept('(')) {
+                Node ret = parseSum();
+                expect(')');
+                return ret;
+            } else if (Character.isDigit(c) || c == '.') {
+                return parseNumber();
+            } else if (Character.isLetter(c) || c == '_') {
+                return parseName();
+            }
+            throw new IllegalArgumentException("unexpected '" + c + "' at " + pos);
+        }
+
+        private Node parseNumber() {
+            int start = pos;
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+                int mark = pos;
+                pos++;
+                if (pos < text.length() && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+                    pos++;
+                }
+                if (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                    while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                        pos++;
+                    }
+                } else {
+                    pos = mark;
+                }
+            }
+            String literal = text.substring(start, pos);
+            double value = DoubleFunctions.parse(literal);
+            if (Double.isNaN(value)) {
+                throw new IllegalArgumentException("invalid number " + literal);
+            }
+            return new Const(value);
+        }
+
+        private Node parseName() {
+            int start = pos;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            String name = text.substring(start, pos);
+            skipSpace();
+            if (accept('(')) {
+                int function = Arrays.asList(FUNCTIONS).indexOf(name.toLowerCase());
+                if (function < 0) {
+                    throw new IllegalArgumentException("unknown function " + name);
+                }
+                ArrayList<Node> args = new ArrayList<Node>();
+                args.add(parseSum());
+                skipSpace();
+                while (accept(',')) {
+                    args.add(parseSum());
+                    skipSpace();
+                }
+                expect(')');
+                int expected = function == FN_POW ? 2 : 1;
+                if (function >= FN_MIN) {
+                    expected = args.size();
+                }
+                if (args.size() != expected) {
+                    throw new IllegalArgumentException("wrong number of arguments for " + name);
+                }
+                return fold(new Call(function, args.toArray(new Node[args.size()])));
+            } else if (name.equals("PI")) {
+                return new Const(Math.PI);
+            } else if (name.equals("E")) {
+                return new Const(Math.E);
+            }
+            int slot = vars.indexOf(name);
+            if (slot < 0) {
+                if (!collect) {
+                    throw new IllegalArgumentException("undeclared variable " + name);
+                }
+                vars.add(name);
+                slot = vars.size() - 1;
+            }
+            return new Var(slot);
+        }
+
+        private Node fold(Node node) {
+            boolean constant;
+            if (node instanceof Binary) {
+                constant = ((Binary) node).left instanceof Const && ((Binary) node).right instanceof Const;
+            } else if (node instanceof Negate) {
+                constant = ((Negate) node).child instanceof Const;
+            } else if (node instanceof Call) {
+                constant = true;
+                for (Node arg : ((Call) node).args) {
+                    constant &= arg instanceof Const;
+                }
+            } else {
+                constant = false;
+            }
+            return constant ? new Const(node.eval(null)) : node;
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean accept(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            skipSpace();
+            if (!accept(c)) {
+                throw new IllegalArgumentException("'" + c + "' is expected at " + pos);
+            }
+        }
+    }
+}
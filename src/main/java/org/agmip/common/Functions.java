@@ -7,11 +7,13 @@ import java.io.Writer;
 import java.math.BigInteger;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,7 +21,24 @@ import org.slf4j.LoggerFactory;
 public class Functions {
 
     private static final Logger log = LoggerFactory.getLogger(Functions.class);
-    private static final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyyMMdd");
+    private static final ThreadLocal<SimpleDateFormat> dateFormatter = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyyMMdd");
+        }
+    };
+    private static volatile PrecisionMode precisionMode = PrecisionMode.fromProperty(System.getProperty(PrecisionMode.PROPERTY));
+    private static final int NUMERIC_CACHE_KEY_LENGTH = 24;
+    private static final int NUMERIC_CACHE_SIZE = 4096;
+    private static final HashMap<String, BigDecimal> NUMERIC_CONSTANTS = new HashMap<String, BigDecimal>();
+    private static final ConcurrentHashMap<String, BigDecimal> NUMERIC_CACHE = new ConcurrentHashMap<String, BigDecimal>();
+
+    static {
+        String[] constants = {"-1", "0", "0.0", "0.01", "0.1", "0.5", "1", "1.0", "2", "3", "4", "10", "12", "24", "100", "1000", "273.16", "365", "86400"};
+        for (String c : constants) {
+            NUMERIC_CONSTANTS.put(c, new BigDecimal(c));
+        }
+    }
 
     /**
      * Cannot instantiate this class.
@@ -27,6 +46,64 @@ public class Functions {
     private Functions() {
     }
 
+    /**
+     * Precision mode of the arithmetic functions
+     */
+    public enum PrecisionMode {
+
+        /**
+         * Exact decimal arithmetic by {@code BigDecimal}, the default mode
+         */
+        EXACT,
+        /**
+         * Binary floating arithmetic by {@code double}, the result is only
+         * formatted to a plain number string at the end of each call
+         */
+        DOUBLE;
+        /**
+         * The system property for the initial mode of the process
+         */
+        public static final String PROPERTY = "org.agmip.common.precision";
+
+        private static PrecisionMode fromProperty(String value) {
+            if (value != null && value.trim().equalsIgnoreCase(DOUBLE.name())) {
+                return DOUBLE;
+            }
+            return EXACT;
+        }
+    }
+
+    /**
+     * Set the precision mode of the arithmetic functions for the whole
+     * process. The initial mode is given by the system property
+     * {@code org.agmip.common.precision}, and is {@code EXACT} by default.
+     *
+     * In {@code DOUBLE} mode, {@code numericOffset}, {@code multiply},
+     * {@code sum}, {@code substract}, {@code product}, {@code divide},
+     * {@code average} and {@code compare} are calculated by
+     * {@link DoubleFunctions}. The result has no trailing zeros, and the
+     * relative error is within a few ulps of {@code double} except for the
+     * values rounded by a given scale.
+     *
+     * @param mode The precision mode, {@code null} for {@code EXACT}
+     */
+    public static void setPrecisionMode(PrecisionMode mode) {
+        precisionMode = mode == null ? PrecisionMode.EXACT : mode;
+    }
+
+    /**
+     * Get the current precision mode of the arithmetic functions
+     *
+     * @return The precision mode
+     */
+    public static PrecisionMode getPrecisionMode() {
+        return precisionMode;
+    }
+
+    private static boolean isDoubleMode() {
+        return precisionMode == PrecisionMode.DOUBLE;
+    }
+
     /**
      * Converts a numeric string to a {@code BigInteger}.
      *
@@ -65,7 +142,7 @@ public class Functions {
         BigDecimal decimal;
 
         try {
-            decimal = new BigDecimal(numeric);
+            decimal = toBigDecimal(numeric);
         } catch (Exception ex) {
             return null;
         }
@@ -77,6 +154,43 @@ public class Functions {
         return integer;
     }
 
+    /**
+     * Converts a numeric string to a {@code BigDecimal}.
+     *
+     * Same as {@code new BigDecimal(numeric)}, but the short strings are only
+     * parsed once. The common constants are pooled, and the other short
+     * strings are kept in a bounded cache which is cleared once it is full.
+     * Since {@code BigDecimal} is immutable, the cached instances are safely
+     * shared between threads.
+     *
+     * @param numeric A numeric string recognized by {@code BigDecimal}
+     *
+     * @return {@code BigDecimal} representation of the string
+     *
+     * @throws NumberFormatException if the string is not a valid number
+     * @throws NullPointerException if the string is {@code null}
+     *
+     * @see BigDecimal
+     */
+    public static BigDecimal toBigDecimal(String numeric) {
+        BigDecimal ret = NUMERIC_CONSTANTS.get(numeric);
+        if (ret != null) {
+            return ret;
+        }
+        if (numeric == null || numeric.length() > NUMERIC_CACHE_KEY_LENGTH) {
+            return new BigDecimal(numeric);
+        }
+        ret = NUMERIC_CACHE.get(numeric);
+        if (ret == null) {
+            ret = new BigDecimal(numeric);
+            if (NUMERIC_CACHE.size() >= NUMERIC_CACHE_SIZE) {
+                NUMERIC_CACHE.clear();
+            }
+            NUMERIC_CACHE.put(numeric, ret);
+        }
+        return ret;
+    }
+
     /**
      * Convert from AgMIP standard date string (YYYYMMDD) to a {@code Date}
      *
@@ -84,9 +198,13 @@ public class Functions {
      *
      * @return {@code Date} represented by the AgMIP date string or {@code null}
      */
-    public synchronized static Date convertFromAgmipDateString(String agmipDate) {
+    public static Date convertFromAgmipDateString(String agmipDate) {
+        int epochDay = DateCodec.parse(agmipDate);
+        if (epochDay != DateCodec.INVALID) {
+            return DateCodec.toDate(epochDay);
+        }
         try {
-            return dateFormatter.parse(agmipDate);
+            return dateFormatter.get().parse(agmipDate);
         } catch (Exception ex) {
             return null;
         }
@@ -99,9 +217,9 @@ public class Functions {
      *
      * @return an AgMIP standard date string representation of {@code date}.
      */
-    public synchronized static String convertToAgmipDateString(Date date) {
+    public static String convertToAgmipDateString(Date date) {
         if (date != null) {
-            return dateFormatter.format(date);
+            return DateCodec.format(DateCodec.fromDate(date));
         } else {
             return null;
         }
@@ -115,23 +233,40 @@ public class Functions {
      *
      * @return a formatted date string or {@code null}
      */
-    public synchronized static String formatAgmipDateString(String agmipDate, String format) {
+    public static String formatAgmipDateString(String agmipDate, String format) {
         try {
             SimpleDateFormat fmt = new SimpleDateFormat(format);
-            Date d = dateFormatter.parse(agmipDate);
+            Date d = convertFromAgmipDateString(agmipDate);
             return fmt.format(d);
         } catch (Exception ex) {
             return null;
         }
     }
-    
+
+    /**
+     * Convert from AgMIP standard date string (YYYYMMDD) to epoch day. The
+     * string which is not handled by {@link DateCodec} will be parsed as
+     * before with the lenient {@code SimpleDateFormat}.
+     *
+     * @param agmipDate AgMIP standard date string
+     *
+     * @return the epoch day or {@link DateCodec#INVALID}
+     */
+    private static int toEpochDay(String agmipDate) {
+        int epochDay = DateCodec.parse(agmipDate);
+        if (epochDay == DateCodec.INVALID) {
+            epochDay = DateCodec.fromDate(convertFromAgmipDateString(agmipDate));
+        }
+        return epochDay;
+    }
+
     public static String calcDAP(String date, String pdate) {
-        Date d = convertFromAgmipDateString(date);
-        Date p = convertFromAgmipDateString(pdate);
-        if (d == null || p == null) {
+        int d = toEpochDay(date);
+        int p = toEpochDay(pdate);
+        if (d == DateCodec.INVALID || p == DateCodec.INVALID) {
             return "";
         } else {
-            return convertMsToDay(d.getTime() - p.getTime());
+            return (d - p) + "";
         }
     }
     
@@ -149,22 +284,19 @@ public class Functions {
      * @return AgMIP standard date string of <code>initial + offset</code>
      */
     public static String dateOffset(String initial, String offset) {
-        Date date = convertFromAgmipDateString(initial);
+        int epochDay = toEpochDay(initial);
         BigInteger iOffset;
-        if (date == null) {
+        if (epochDay == DateCodec.INVALID) {
             // Invalid date
             return null;
         }
-        GregorianCalendar cal = new GregorianCalendar();
-        cal.setTime(date);
 
         try {
             iOffset = new BigInteger(offset);
-            cal.add(GregorianCalendar.DAY_OF_MONTH, iOffset.intValue());
         } catch (Exception ex) {
             return null;
         }
-        return convertToAgmipDateString(cal.getTime());
+        return DateCodec.format(epochDay + iOffset.intValue());
     }
 
     /**
@@ -177,22 +309,69 @@ public class Functions {
      * @return AgMIP standard date string of <code>initial + offset</code>
      */
     public static String yearOffset(String initial, String offset) {
-        Date date = convertFromAgmipDateString(initial);
+        int epochDay = toEpochDay(initial);
         BigInteger iOffset;
-        if (date == null) {
+        if (epochDay == DateCodec.INVALID) {
             // Invalid date
             return null;
         }
-        GregorianCalendar cal = new GregorianCalendar();
-        cal.setTime(date);
 
         try {
             iOffset = new BigInteger(offset);
-            cal.add(GregorianCalendar.YEAR, iOffset.intValue());
         } catch (Exception ex) {
             return null;
         }
-        return convertToAgmipDateString(cal.getTime());
+        return DateCodec.format(DateCodec.addYears(epochDay, iOffset.intValue()));
+    }
+
+    /**
+     * Offset an {@code AgmipDate} by a set number of days.
+     *
+     * @param initial The initial date
+     * @param offset number of days to offset (can be positive or negative
+     * integer)
+     *
+     * @return {@code AgmipDate} of <code>initial + offset</code>, or
+     * {@code null} if the initial date is missing
+     */
+    public static AgmipDate dateOffset(AgmipDate initial, int offset) {
+        if (initial == null) {
+            return null;
+        }
+        return initial.plusDays(offset);
+    }
+
+    /**
+     * Offset an {@code AgmipDate} by a set number of years.
+     *
+     * @param initial The initial date
+     * @param offset number of years to offset (can be positive or negative
+     * integer)
+     *
+     * @return {@code AgmipDate} of <code>initial + offset</code>, or
+     * {@code null} if the initial date is missing
+     */
+    public static AgmipDate yearOffset(AgmipDate initial, int offset) {
+        if (initial == null) {
+            return null;
+        }
+        return initial.plusYears(offset);
+    }
+
+    /**
+     * Calculate the days after planting for the given date.
+     *
+     * @param date The date
+     * @param pdate The planting date
+     *
+     * @return <code>date - pdate</code> in days, or {@link DateCodec#INVALID}
+     * if any date is missing
+     */
+    public static int calcDAP(AgmipDate date, AgmipDate pdate) {
+        if (date == null || pdate == null) {
+            return DateCodec.INVALID;
+        }
+        return pdate.daysUntil(date);
     }
 
     /**
@@ -209,12 +388,15 @@ public class Functions {
      * @see BigDecimal
      */
     public static String numericOffset(String initial, String offset) {
+        if (isDoubleMode()) {
+            return DoubleFunctions.toString(DoubleFunctions.parse(initial) + DoubleFunctions.parse(offset));
+        }
         BigDecimal number;
         BigDecimal dOffset;
 
         try {
-            number = new BigDecimal(initial);
-            dOffset = new BigDecimal(offset);
+            number = toBigDecimal(initial);
+            dOffset = toBigDecimal(offset);
         } catch (Exception ex) {
             return null;
         }
@@ -234,12 +416,15 @@ public class Functions {
      * @see BigDecimal
      */
     public static String multiply(String f1, String f2) {
+        if (isDoubleMode()) {
+            return DoubleFunctions.toString(DoubleFunctions.multiply(DoubleFunctions.parse(f1), DoubleFunctions.parse(f2)));
+        }
         BigDecimal factor1;
         BigDecimal factor2;
 
         try {
-            factor1 = new BigDecimal(f1);
-            factor2 = new BigDecimal(f2);
+            factor1 = toBigDecimal(f1);
+            factor2 = toBigDecimal(f2);
         } catch (Exception ex) {
             return null;
         }
@@ -262,13 +447,15 @@ public class Functions {
 
         if (addends == null || addends.length == 0) {
             return null;
+        } else if (isDoubleMode()) {
+            return DoubleFunctions.toString(DoubleFunctions.sum(DoubleFunctions.parse(addends)));
         }
 
         BigDecimal sum;
         try {
-            sum = new BigDecimal(addends[0]);
+            sum = toBigDecimal(addends[0]);
             for (int i = 1; i < addends.length; i++) {
-                sum = sum.add(new BigDecimal(addends[i]));
+                sum = sum.add(toBigDecimal(addends[i]));
             }
             return sum.toString();
         } catch (Exception e) {
@@ -292,13 +479,15 @@ public class Functions {
 
         if (subtrahends == null) {
             return minuend;
+        } else if (isDoubleMode()) {
+            return DoubleFunctions.toString(DoubleFunctions.substract(DoubleFunctions.parse(minuend), DoubleFunctions.parse(subtrahends)));
         }
 
         BigDecimal difference;
         try {
-            difference = new BigDecimal(minuend);
+            difference = toBigDecimal(minuend);
             for (int i = 0; i < subtrahends.length; i++) {
-                difference = difference.subtract(new BigDecimal(subtrahends[i]));
+                difference = difference.subtract(toBigDecimal(subtrahends[i]));
             }
             return difference.toString();
         } catch (Exception e) {
@@ -321,13 +510,15 @@ public class Functions {
 
         if (factors == null || factors.length == 0) {
             return null;
+        } else if (isDoubleMode()) {
+            return DoubleFunctions.toString(DoubleFunctions.product(DoubleFunctions.parse(factors)));
         }
 
         BigDecimal prodcut;
         try {
-            prodcut = new BigDecimal(factors[0]);
+            prodcut = toBigDecimal(factors[0]);
             for (int i = 1; i < factors.length; i++) {
-                prodcut = prodcut.multiply(new BigDecimal(factors[i]));
+                prodcut = prodcut.multiply(toBigDecimal(factors[i]));
             }
             return prodcut.toString();
         } catch (Exception e) {
@@ -349,9 +540,12 @@ public class Functions {
      * @see BigDecimal
      */
     public static String divide(String dividend, String divisor) {
+        if (isDoubleMode()) {
+            return DoubleFunctions.toString(DoubleFunctions.divide(DoubleFunctions.parse(dividend), DoubleFunctions.parse(divisor)));
+        }
         try {
-            BigDecimal bdDividend = new BigDecimal(dividend);
-            BigDecimal bdDivisor = new BigDecimal(divisor);
+            BigDecimal bdDividend = toBigDecimal(dividend);
+            BigDecimal bdDivisor = toBigDecimal(divisor);
             try {
                 return bdDividend.divide(bdDivisor).toString();
             } catch (ArithmeticException ae) {
@@ -377,18 +571,105 @@ public class Functions {
      * @see BigDecimal
      */
     public static String divide(String dividend, String divisor, int scale) {
+        if (isDoubleMode()) {
+            return DoubleFunctions.round(DoubleFunctions.divide(DoubleFunctions.parse(dividend), DoubleFunctions.parse(divisor)), scale);
+        }
         BigDecimal bdDividend;
         BigDecimal bdDivisor;
 
         try {
-            bdDividend = new BigDecimal(dividend);
-            bdDivisor = new BigDecimal(divisor);
+            bdDividend = toBigDecimal(dividend);
+            bdDivisor = toBigDecimal(divisor);
             return bdDividend.divide(bdDivisor, scale, RoundingMode.HALF_UP).toString();
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * Get the sum of all input numbers
+     *
+     * @param addends one or more numbers
+     *
+     * @return <code>addends[0] + addends[1] + ...</code>, or {@code null} for
+     * missing number
+     */
+    public static BigDecimal sumDecimal(BigDecimal... addends) {
+        if (addends == null || addends.length == 0 || addends[0] == null) {
+            return null;
+        }
+        BigDecimal sum = addends[0];
+        for (int i = 1; i < addends.length; i++) {
+            if (addends[i] == null) {
+                return null;
+            }
+            sum = sum.add(addends[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Get the product of all input numbers
+     *
+     * @param factors one or more numbers
+     *
+     * @return <code>factors[0] * factors[1] * ...</code>, or {@code null} for
+     * missing number
+     */
+    public static BigDecimal productDecimal(BigDecimal... factors) {
+        if (factors == null || factors.length == 0 || factors[0] == null) {
+            return null;
+        }
+        BigDecimal product = factors[0];
+        for (int i = 1; i < factors.length; i++) {
+            if (factors[i] == null) {
+                return null;
+            }
+            product = product.multiply(factors[i]);
+        }
+        return product;
+    }
+
+    /**
+     * Get the result of dividend divided by divisor. When the result is
+     * indivisible, the scale will depends on the scale of dividend and divisor,
+     * same as {@link #divide(String, String)}.
+     *
+     * @param dividend The dividend
+     * @param divisor The divisor
+     *
+     * @return <code>dividend / divisor</code>, or {@code null} for missing
+     * number or zero divisor
+     */
+    public static BigDecimal divideDecimal(BigDecimal dividend, BigDecimal divisor) {
+        if (dividend == null || divisor == null || divisor.signum() == 0) {
+            return null;
+        }
+        try {
+            return dividend.divide(divisor);
+        } catch (ArithmeticException ae) {
+            int scale = Math.max(dividend.scale(), divisor.scale()) + 1;
+            return dividend.divide(divisor, scale, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * Get the result of dividend divided by divisor with given scale.
+     *
+     * @param dividend The dividend
+     * @param divisor The divisor
+     * @param scale scale of the {@code BigDecimal} quotient to be returned.
+     *
+     * @return <code>dividend / divisor</code>, or {@code null} for missing
+     * number or zero divisor
+     */
+    public static BigDecimal divideDecimal(BigDecimal dividend, BigDecimal divisor, int scale) {
+        if (dividend == null || divisor == null || divisor.signum() == 0) {
+            return null;
+        }
+        return dividend.divide(divisor, scale, RoundingMode.HALF_UP);
+    }
+
     /**
      * Get the average of all input numbers. When the result is indivisible, the
      * scale will depends on the scale of all input numbers
@@ -427,6 +708,222 @@ public class Functions {
         return null;
     }
 
+    /**
+     * Get the sum of the numbers in the range of the array
+     *
+     * @param values The array of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return <code>values[from] + ... + values[to - 1]</code>, or
+     * {@code null} for invalid range or value
+     */
+    public static String sum(String[] values, int from, int to) {
+        return values == null ? null : sum(Arrays.asList(values), from, to);
+    }
+
+    /**
+     * Get the sum of the numbers in the range of the list
+     *
+     * @param values The list of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return <code>values[from] + ... + values[to - 1]</code>, or
+     * {@code null} for invalid range or value
+     */
+    public static String sum(List<String> values, int from, int to) {
+        Accumulator acc = accumulate(values, from, to, false);
+        return acc == null ? null : acc.getSum();
+    }
+
+    /**
+     * Get the product of the numbers in the range of the array
+     *
+     * @param values The array of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return <code>values[from] * ... * values[to - 1]</code>, or
+     * {@code null} for invalid range or value
+     */
+    public static String product(String[] values, int from, int to) {
+        return values == null ? null : product(Arrays.asList(values), from, to);
+    }
+
+    /**
+     * Get the product of the numbers in the range of the list
+     *
+     * @param values The list of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return <code>values[from] * ... * values[to - 1]</code>, or
+     * {@code null} for invalid range or value
+     */
+    public static String product(List<String> values, int from, int to) {
+        if (!isValidRange(values, from, to)) {
+            return null;
+        }
+        try {
+            if (isDoubleMode()) {
+                double product = 1;
+                for (int i = from; i < to; i++) {
+                    product *= DoubleFunctions.parse(values.get(i));
+                }
+                return DoubleFunctions.toString(product);
+            }
+            BigDecimal product = toBigDecimal(values.get(from));
+            for (int i = from + 1; i < to; i++) {
+                product = product.multiply(toBigDecimal(values.get(i)));
+            }
+            return product.toString();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the minimum of the numbers in the range of the array, {@code null}
+     * element is ignored
+     *
+     * @param values The array of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The minimum number, or {@code null} for invalid range or value
+     */
+    public static String min(String[] values, int from, int to) {
+        return values == null ? null : min(Arrays.asList(values), from, to);
+    }
+
+    /**
+     * Get the minimum of the numbers in the range of the list, {@code null}
+     * element is ignored
+     *
+     * @param values The list of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The minimum number, or {@code null} for invalid range or value
+     */
+    public static String min(List<String> values, int from, int to) {
+        Accumulator acc = accumulate(values, from, to, true);
+        return acc == null ? null : acc.getMin();
+    }
+
+    /**
+     * Get the maximum of the numbers in the range of the array, {@code null}
+     * element is ignored
+     *
+     * @param values The array of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The maximum number, or {@code null} for invalid range or value
+     */
+    public static String max(String[] values, int from, int to) {
+        return values == null ? null : max(Arrays.asList(values), from, to);
+    }
+
+    /**
+     * Get the maximum of the numbers in the range of the list, {@code null}
+     * element is ignored
+     *
+     * @param values The list of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The maximum number, or {@code null} for invalid range or value
+     */
+    public static String max(List<String> values, int from, int to) {
+        Accumulator acc = accumulate(values, from, to, true);
+        return acc == null ? null : acc.getMax();
+    }
+
+    /**
+     * Get the average of the numbers in the range of the array. When the
+     * result is indivisible, the scale will depends on the scale of all input
+     * numbers
+     *
+     * @param values The array of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The average number, or {@code null} for invalid range or value
+     */
+    public static String average(String[] values, int from, int to) {
+        return values == null ? null : average(Arrays.asList(values), from, to);
+    }
+
+    /**
+     * Get the average of the numbers in the range of the list. When the
+     * result is indivisible, the scale will depends on the scale of all input
+     * numbers
+     *
+     * @param values The list of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The average number, or {@code null} for invalid range or value
+     */
+    public static String average(List<String> values, int from, int to) {
+        Accumulator acc = accumulate(values, from, to, false);
+        return acc == null ? null : acc.result();
+    }
+
+    /**
+     * Get the average of the numbers in the range of the array with given
+     * scale
+     *
+     * @param scale scale of the average to be returned
+     * @param values The array of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The average number, or {@code null} for invalid range or value
+     */
+    public static String average(int scale, String[] values, int from, int to) {
+        return values == null ? null : average(scale, Arrays.asList(values), from, to);
+    }
+
+    /**
+     * Get the average of the numbers in the range of the list with given
+     * scale
+     *
+     * @param scale scale of the average to be returned
+     * @param values The list of valid number strings
+     * @param from The index of the first number, inclusive
+     * @param to The index of the last number, exclusive
+     *
+     * @return The average number, or {@code null} for invalid range or value
+     */
+    public static String average(int scale, List<String> values, int from, int to) {
+        Accumulator acc = accumulate(values, from, to, false);
+        return acc == null ? null : acc.result(scale);
+    }
+
+    private static boolean isValidRange(List<String> values, int from, int to) {
+        return values != null && from >= 0 && from < to && to <= values.size();
+    }
+
+    private static Accumulator accumulate(List<String> values, int from, int to, boolean skipNull) {
+        if (!isValidRange(values, from, to)) {
+            return null;
+        }
+        Accumulator acc = new Accumulator();
+        for (int i = from; i < to; i++) {
+            String value = values.get(i);
+            if (value == null && skipNull) {
+                continue;
+            }
+            if (!acc.add(value)) {
+                return null;
+            }
+        }
+        return acc;
+    }
+
     /**
      * Returns Euler's number <i>e</i> raised to the power of a {@code double}
      * value.
@@ -443,7 +940,7 @@ public class Functions {
     public static String exp(String exponent) {
         BigDecimal bd;
         try {
-            bd = new BigDecimal(exponent);
+            bd = toBigDecimal(exponent);
             return Math.exp(bd.doubleValue()) + "";
         } catch (Exception e) {
             return null;
@@ -464,7 +961,7 @@ public class Functions {
     public static String log(String val) {
         BigDecimal bd;
         try {
-            bd = new BigDecimal(val);
+            bd = toBigDecimal(val);
             return Math.log(bd.doubleValue()) + "";
         } catch (Exception e) {
             return null;
@@ -490,12 +987,12 @@ public class Functions {
             while (values[start] == null) {
                 start++;
             }
-            bd = new BigDecimal(values[start]);
+            bd = toBigDecimal(values[start]);
             for (int i = start + 1; i < values.length; i++) {
                 if (values[i] == null) {
                     continue;
                 }
-                bd2 = new BigDecimal(values[i]);
+                bd2 = toBigDecimal(values[i]);
                 if (bd.compareTo(bd2) > 0) {
                     bd = bd2;
                 }
@@ -525,12 +1022,12 @@ public class Functions {
             while (values[start] == null) {
                 start++;
             }
-            bd = new BigDecimal(values[start]);
+            bd = toBigDecimal(values[start]);
             for (int i = start + 1; i < values.length; i++) {
                 if (values[i] == null) {
                     continue;
                 }
-                bd2 = new BigDecimal(values[i]);
+                bd2 = toBigDecimal(values[i]);
                 if (bd.compareTo(bd2) < 0) {
                     bd = bd2;
                 }
@@ -553,8 +1050,8 @@ public class Functions {
      */
     public static String pow(String base, String exponent) {
         try {
-            BigDecimal bdBase = new BigDecimal(base);
-            BigDecimal bdExp = new BigDecimal(exponent);
+            BigDecimal bdBase = toBigDecimal(base);
+            BigDecimal bdExp = toBigDecimal(exponent);
             return Math.pow(bdBase.doubleValue(), bdExp.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -572,7 +1069,7 @@ public class Functions {
      */
     public static String sqrt(String value) {
         try {
-            BigDecimal bd = new BigDecimal(value);
+            BigDecimal bd = toBigDecimal(value);
             return Math.sqrt(bd.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -589,7 +1086,7 @@ public class Functions {
      */
     public static String cos(String value) {
         try {
-            BigDecimal bd = new BigDecimal(value);
+            BigDecimal bd = toBigDecimal(value);
             return Math.cos(bd.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -606,7 +1103,7 @@ public class Functions {
      */
     public static String sin(String value) {
         try {
-            BigDecimal bd = new BigDecimal(value);
+            BigDecimal bd = toBigDecimal(value);
             return Math.sin(bd.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -623,7 +1120,7 @@ public class Functions {
      */
     public static String tan(String value) {
         try {
-            BigDecimal bd = new BigDecimal(value);
+            BigDecimal bd = toBigDecimal(value);
             return Math.tan(bd.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -641,7 +1138,7 @@ public class Functions {
      */
     public static String acos(String value) {
         try {
-            BigDecimal bd = new BigDecimal(value);
+            BigDecimal bd = toBigDecimal(value);
             return Math.acos(bd.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -659,7 +1156,7 @@ public class Functions {
      */
     public static String asin(String value) {
         try {
-            BigDecimal bd = new BigDecimal(value);
+            BigDecimal bd = toBigDecimal(value);
             return Math.asin(bd.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -677,7 +1174,7 @@ public class Functions {
      */
     public static String atan(String value) {
         try {
-            BigDecimal bd = new BigDecimal(value);
+            BigDecimal bd = toBigDecimal(value);
             return Math.atan(bd.doubleValue()) + "";
         } catch (Exception ex) {
             return null;
@@ -699,7 +1196,7 @@ public class Functions {
     public static String round(String value, int scale) {
         BigDecimal bd;
         try {
-            bd = new BigDecimal(value);
+            bd = toBigDecimal(value);
             bd = bd.setScale(scale, RoundingMode.HALF_UP);
             return bd.toString();
         } catch (Exception e) {
@@ -731,32 +1228,47 @@ public class Functions {
      * @see BigDecimal
      */
     public static boolean compare(String v1, String v2, CompareMode mode) {
-        BigDecimal bd1;
-        BigDecimal bd2;
-
+        if (isDoubleMode()) {
+            return DoubleFunctions.compare(DoubleFunctions.parse(v1), DoubleFunctions.parse(v2), mode);
+        }
         try {
-            bd1 = new BigDecimal(v1);
-            bd2 = new BigDecimal(v2);
-            int ret = bd1.compareTo(bd2);
-            switch (mode) {
-                case LESS:
-                    return ret < 0;
-                case NOTLESS:
-                    return ret >= 0;
-                case GREATER:
-                    return ret > 0;
-                case NOTGREATER:
-                    return ret <= 0;
-                case EQUAL:
-                    return ret == 0;
-                default:
-                    return false;
-            }
+            return compareDecimal(toBigDecimal(v1), toBigDecimal(v2), mode);
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Compare the input number by given mode
+     *
+     * @param v1 The first number
+     * @param v2 The second number
+     * @param mode The compare mode
+     *
+     * @return the boolean compare result based on given mode; invalid mode or
+     * missing value will return false
+     */
+    public static boolean compareDecimal(BigDecimal v1, BigDecimal v2, CompareMode mode) {
+        if (v1 == null || v2 == null || mode == null) {
+            return false;
+        }
+        int ret = v1.compareTo(v2);
+        switch (mode) {
+            case LESS:
+                return ret < 0;
+            case NOTLESS:
+                return ret >= 0;
+            case GREATER:
+                return ret > 0;
+            case NOTGREATER:
+                return ret <= 0;
+            case EQUAL:
+                return ret == 0;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Gathering the messages from a {@code Throwable} instance and its back
      * trace
@@ -0,0 +1,131 @@
+package org.agmip.functions;
+
+import java.util.Arrays;
+
+/**
+ * Index of the daily records by the month and day of {@code w_date}, built
+ * once for a {@link DailySeries} (see {@link DailySeries#getDateIndex()}).
+ *
+ * The records are sorted by the last 4 digits of the date text (MMDD) with a
+ * counting sort, so the lookups match the text in the same way as the linear
+ * scans they replace, even for the irregular or duplicated dates, and take
+ * O(log n) for each search instead of O(n). The index is not changed after
+ * it is built, so it could be shared by the threads.
+ */
+final class DailyDateIndex {
+
+    private static final int KEYS = 10000;
+    private final DailySeries series;
+    private final int[] offsets = new int[KEYS + 1];
+    private final int[] order;
+    private final int[] leapDays;
+
+    DailyDateIndex(DailySeries series) {
+        this.series = series;
+        int size = series.size();
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = series.getMonthDay(i);
+            if (keys[i] >= 0) {
+                offsets[keys[i] + 1]++;
+            }
+        }
+        for (int k = 0; k < KEYS; k++) {
+            offsets[k + 1] += offsets[k];
+        }
+        order = new int[offsets[KEYS]];
+        int[] next = Arrays.copyOf(offsets, KEYS);
+        for (int i = 0; i < size; i++) {
+            if (keys[i] >= 0) {
+                order[next[keys[i]]++] = i;
+            }
+        }
+        leapDays = getLeapDays();
+    }
+
+    /**
+     * Find the first record from the start index whose date is the month
+     * and day. For February 29th, the record of February 28th is matched in
+     * the non-leap years.
+     *
+     * @param monthDay The month and day without separator, e.g. "0315"
+     * @param start The index to start from
+     * @return The index of the record, or the number of records if not found
+     */
+    int find(String monthDay, int start) {
+        int key = DailySeries.toMonthDay(monthDay, 0);
+        if (key < 0 || monthDay.length() != 4) {
+            // Not indexed, match the text by scan
+            for (int j = Math.max(start, 0); j < series.size(); j++) {
+                if (series.getDate(j).endsWith(monthDay)) {
+                    return j;
+                }
+            }
+            return series.size();
+        } else if (key == 229) {
+            return next(leapDays, 0, leapDays.length, start);
+        }
+        return next(order, offsets[key], offsets[key + 1], start);
+    }
+
+    /**
+     * Find the record of January 1st of the year, in the same way as the
+     * scan which skips the rest of a year once January 1st of another year is
+     * found
+     *
+     * @param date The date of January 1st, e.g. "19820101"
+     * @return The index of the record, or the number of records if not found
+     */
+    int findYearStart(String date) {
+        int i = 0;
+        while (true) {
+            int k = next(order, offsets[101], offsets[102], i);
+            if (k == series.size() || series.getDate(k).equals(date)) {
+                return k;
+            }
+            i = k + 365;
+        }
+    }
+
+    /**
+     * The records of February 29th in the leap years and February 28th in
+     * the other years, by the 2 digits of year
+     */
+    private int[] getLeapDays() {
+        int[] ret = new int[offsets[230] - offsets[228]];
+        int size = 0;
+        int a = offsets[228];
+        int b = offsets[229];
+        while (a < offsets[229] || b < offsets[230]) {
+            int i;
+            boolean isFeb29 = a == offsets[229] || (b < offsets[230] && order[b] < order[a]);
+            if (isFeb29) {
+                i = order[b++];
+            } else {
+                i = order[a++];
+            }
+            String date = series.getDate(i);
+            try {
+                int year = Integer.parseInt(date.substring(2, 4));
+                if ((year % 4 == 0) == isFeb29) {
+                    ret[size++] = i;
+                }
+            } catch (Exception e) {
+                // The year is not valid, never matched
+            }
+        }
+        return Arrays.copyOf(ret, size);
+    }
+
+    /**
+     * Get the first index in the sorted range of indices which is not less
+     * than the start
+     */
+    private int next(int[] indices, int from, int to, int start) {
+        int pos = Arrays.binarySearch(indices, from, to, Math.max(start, 0));
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return pos < to ? indices[pos] : series.size();
+    }
+}
@@ -0,0 +1,212 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.Map;
+import org.agmip.common.DateCodec;
+import static org.agmip.common.Functions.*;
+
+/**
+ * Indexed read access to the daily weather records, backed by either the
+ * list of daily maps or a {@link DailyWeatherColumns}, so the calculations
+ * could be shared by both forms of data.
+ */
+abstract class DailySeries {
+
+    private DailyDateIndex dateIndex;
+
+    /**
+     * Get the number of daily records
+     *
+     * @return The number of daily records
+     */
+    abstract int size();
+
+    /**
+     * Get the value of daily variable
+     *
+     * @param i The index of daily record
+     * @param var The variable name
+     * @return The value, or {@code null} if missing
+     */
+    abstract String get(int i, String var);
+
+    /**
+     * Get the epoch day of the daily record
+     *
+     * @param i The index of daily record
+     * @return The epoch day, or {@link DateCodec#INVALID}
+     */
+    abstract int getEpochDay(int i);
+
+    /**
+     * Get the date string of the daily record
+     *
+     * @param i The index of daily record
+     * @return The date string, or blank string if missing
+     */
+    String getDate(int i) {
+        String date = get(i, "w_date");
+        return date == null ? "" : date;
+    }
+
+    /**
+     * Get the last 4 digits of the date string
+     *
+     * @param i The index of daily record
+     * @return The {@code MMDD} integer, or -1 if the date string does not
+     * end with 4 digits
+     */
+    int getMonthDay(int i) {
+        String date = getDate(i);
+        return date.length() < 4 ? -1 : toMonthDay(date, date.length() - 4);
+    }
+
+    /**
+     * Parse the 4 digits of month and day
+     *
+     * @param text The text which contains the month and day, e.g. "0315"
+     * @param from The index of the first digit
+     * @return The {@code MMDD} integer, or -1 if not 4 digits
+     */
+    static int toMonthDay(String text, int from) {
+        if (from < 0 || text.length() < from + 4) {
+            return -1;
+        }
+        int ret = 0;
+        for (int i = from; i < from + 4; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            ret = ret * 10 + (c - '0');
+        }
+        return ret;
+    }
+
+    /**
+     * Get the trimmed value of daily variable
+     *
+     * @param i The index of daily record
+     * @param var The variable name
+     * @return The trimmed value, or blank string if missing
+     */
+    String getTrimmed(int i, String var) {
+        String value = get(i, var);
+        return value == null ? "" : value.trim();
+    }
+
+    /**
+     * Get the value of daily variable as {@code double}
+     *
+     * @param i The index of daily record
+     * @param var The variable name
+     * @param defValue The value used when the variable is missing
+     * @return The value
+     * @throws NumberFormatException if the value is not a number
+     */
+    double getDouble(int i, String var, double defValue) {
+        String value = get(i, var);
+        return value == null ? defValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Get the index of the daily records by date, which is built on the
+     * first call
+     *
+     * @return The date index
+     */
+    DailyDateIndex getDateIndex() {
+        if (dateIndex == null) {
+            dateIndex = new DailyDateIndex(this);
+        }
+        return dateIndex;
+    }
+
+    static DailySeries of(ArrayList<? extends Map> dailyArr) {
+        return new MapSeries(dailyArr);
+    }
+
+    static DailySeries of(DailyWeatherColumns columns) {
+        return new ColumnSeries(columns);
+    }
+
+    private static class MapSeries extends DailySeries {
+
+        private final ArrayList<? extends Map> dailyArr;
+
+        MapSeries(ArrayList<? extends Map> dailyArr) {
+            this.dailyArr = dailyArr;
+        }
+
+        @Override
+        int size() {
+            return dailyArr.size();
+        }
+
+        @Override
+        String get(int i, String var) {
+            return (String) dailyArr.get(i).get(var);
+        }
+
+        @Override
+        int getEpochDay(int i) {
+            String date = getDate(i);
+            int epochDay = DateCodec.parse(date);
+            if (epochDay == DateCodec.INVALID) {
+                epochDay = DateCodec.fromDate(convertFromAgmipDateString(date));
+            }
+            return epochDay;
+        }
+    }
+
+    private static class ColumnSeries extends DailySeries {
+
+        private final DailyWeatherColumns columns;
+
+        ColumnSeries(DailyWeatherColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        int size() {
+            return columns.size();
+        }
+
+        @Override
+        String get(int i, String var) {
+            if (var.equals("w_date")) {
+                String date = columns.getDate(i);
+                return date.equals("") ? null : date;
+            }
+            return columns.getString(var, i);
+        }
+
+        @Override
+        String getDate(int i) {
+            return columns.getDate(i);
+        }
+
+        @Override
+        int getEpochDay(int i) {
+            return columns.getEpochDay(i);
+        }
+
+        @Override
+        int getMonthDay(int i) {
+            if (columns.isRegularDate(i)) {
+                return DateCodec.getMonthDay(columns.getEpochDay(i));
+            }
+            return super.getMonthDay(i);
+        }
+
+        @Override
+        double getDouble(int i, String var, double defValue) {
+            DailyWeatherColumns.Column column = columns.getColumn(var);
+            if (column == null || !column.isPresent(i)) {
+                return defValue;
+            }
+            double value = column.getDouble(i);
+            return Double.isNaN(value) ? Double.parseDouble(column.getString(i)) : value;
+        }
+    }
+}
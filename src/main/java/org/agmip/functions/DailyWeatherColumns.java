@@ -0,0 +1,406 @@
+package org.agmip.functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.agmip.common.DateCodec;
+import static org.agmip.common.Functions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Columnar view of the daily weather data of one station.
+ *
+ * The daily records are read once, each variable is stored as a primitive
+ * {@code double[]} column with a presence bit set, and the dates are stored
+ * as an {@code int[]} column of epoch days (see {@link DateCodec}). The
+ * original text of a value is kept only when it could not be restored from
+ * the number (e.g. {@code "1e3"}, {@code "05"} or a non-numeric value), so
+ * {@link #getString(String, int)} returns the same text as the trimmed value
+ * in the daily record. The view is not updated when the data set is changed.
+ */
+public class DailyWeatherColumns {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DailyWeatherColumns.class);
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+    private static final int MAX_DIGITS = 15;
+    private final int size;
+    private final int[] epochDays;
+    private final BitSet irregularDates = new BitSet();
+    private final HashMap<Integer, String> dateTexts = new HashMap<Integer, String>();
+    private final Map<String, String> meta;
+    private final HashMap<String, Column> columns = new HashMap<String, Column>();
+
+    /**
+     * One daily variable of the station
+     */
+    public static final class Column {
+
+        final double[] values;
+        private final byte[] scales;
+        private final BitSet present;
+        private final HashMap<Integer, String> texts = new HashMap<Integer, String>();
+
+        private Column(int size) {
+            values = new double[size];
+            scales = new byte[size];
+            present = new BitSet(size);
+            for (int i = 0; i < size; i++) {
+                values[i] = Double.NaN;
+            }
+        }
+
+        private void set(int i, String raw) {
+            String text = raw.trim();
+            int len = text.length();
+            int pos = 0;
+            boolean negative = false;
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            boolean valid = len > 0;
+            present.set(i);
+            if (valid && text.charAt(0) == '-') {
+                negative = true;
+                pos = 1;
+            }
+            for (; pos < len && valid; pos++) {
+                char c = text.charAt(pos);
+                if (c >= '0' && c <= '9') {
+                    // Leading zeros could not be restored from the number
+                    if (digits == 1 && mantissa == 0 && scale < 0) {
+                        valid = false;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (++digits > MAX_DIGITS) {
+                        valid = false;
+                    }
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                } else if (c == '.' && scale < 0 && digits > 0) {
+                    scale = 0;
+                } else {
+                    valid = false;
+                }
+            }
+            if (valid && (digits == 0 || scale == 0 || (negative && mantissa == 0))) {
+                valid = false;
+            }
+            if (valid) {
+                scale = Math.max(scale, 0);
+                values[i] = (negative ? -mantissa : mantissa) / POW10[scale];
+                scales[i] = (byte) scale;
+            } else {
+                texts.put(i, text);
+            }
+        }
+
+        /**
+         * Get the number of records
+         *
+         * @return The size of the column
+         */
+        public int size() {
+            return values.length;
+        }
+
+        /**
+         * Check if the variable is given in the record
+         *
+         * @param i The index of daily record
+         * @return True if the value is given, even it is not a number
+         */
+        public boolean isPresent(int i) {
+            return present.get(i);
+        }
+
+        /**
+         * Get the value as {@code double}
+         *
+         * @param i The index of daily record
+         * @return The value, or {@code NaN} if the value is missing or not a
+         * plain number
+         */
+        public double getDouble(int i) {
+            return values[i];
+        }
+
+        /**
+         * Get the backing array of values, the missing values are
+         * {@code NaN}. The array should not be modified.
+         *
+         * @return The values
+         */
+        public double[] getValues() {
+            return values;
+        }
+
+        /**
+         * Get the trimmed text of the value
+         *
+         * @param i The index of daily record
+         * @return The text, or {@code null} if the value is missing
+         */
+        public String getString(int i) {
+            if (!present.get(i)) {
+                return null;
+            } else if (Double.isNaN(values[i])) {
+                return texts.get(i);
+            } else {
+                return toDecimal(i).toPlainString();
+            }
+        }
+
+        /**
+         * Get the value as {@code BigDecimal} with the same scale as the text
+         *
+         * @param i The index of daily record
+         * @return The value, or {@code null} if the value is missing or
+         * invalid
+         */
+        public BigDecimal getDecimal(int i) {
+            if (!present.get(i)) {
+                return null;
+            } else if (Double.isNaN(values[i])) {
+                try {
+                    return toBigDecimal(texts.get(i));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else {
+                return toDecimal(i);
+            }
+        }
+
+        /**
+         * Get the scale of the plain number, only valid when
+         * {@link #getDouble(int)} is not {@code NaN}
+         */
+        int getScale(int i) {
+            return scales[i];
+        }
+
+        /**
+         * Get the unscaled value of the plain number, only valid when
+         * {@link #getDouble(int)} is not {@code NaN}
+         */
+        long getUnscaled(int i) {
+            return Math.round(values[i] * POW10[scales[i]]);
+        }
+
+        private BigDecimal toDecimal(int i) {
+            return BigDecimal.valueOf(getUnscaled(i), scales[i]);
+        }
+    }
+
+    private DailyWeatherColumns(Map wthData, ArrayList<Map> dailyArr) {
+        size = dailyArr.size();
+        epochDays = new int[size];
+        HashMap<String, String> metaData = new HashMap<String, String>();
+        for (Object key : wthData.keySet()) {
+            Object value = wthData.get(key);
+            if (value instanceof String) {
+                metaData.put(key.toString(), (String) value);
+            }
+        }
+        meta = Collections.unmodifiableMap(metaData);
+
+        for (int i = 0; i < size; i++) {
+            Map<Object, Object> daily = dailyArr.get(i);
+            epochDays[i] = DateCodec.INVALID;
+            for (Map.Entry<Object, Object> entry : daily.entrySet()) {
+                String var = entry.getKey().toString();
+                Object value = entry.getValue();
+                if (!(value instanceof String)) {
+                    continue;
+                }
+                if (var.equals("w_date")) {
+                    setDate(i, (String) value);
+                } else {
+                    Column column = columns.get(var);
+                    if (column == null) {
+                        column = new Column(size);
+                        columns.put(var, column);
+                    }
+                    column.set(i, (String) value);
+                }
+            }
+        }
+    }
+
+    private void setDate(int i, String raw) {
+        int epochDay = DateCodec.parse(raw);
+        if (epochDay == DateCodec.INVALID) {
+            epochDay = DateCodec.fromDate(convertFromAgmipDateString(raw));
+            if (epochDay == DateCodec.INVALID) {
+                LOG.warn("Invalid daily weather date [{}] at record {}", raw, i);
+            }
+        }
+        epochDays[i] = epochDay;
+        if (epochDay == DateCodec.INVALID || !DateCodec.format(epochDay).equals(raw)) {
+            irregularDates.set(i);
+            dateTexts.put(i, raw);
+        }
+    }
+
+    /**
+     * Build the columnar view from the daily weather data of data set.
+     *
+     * @param data The data set which contains weather data, or the weather
+     * data itself
+     *
+     * @return The columnar view, will be empty if no daily data is available
+     */
+    public static DailyWeatherColumns fromData(HashMap data) {
+        if (data == null) {
+            return new DailyWeatherColumns(new HashMap(), new ArrayList<Map>());
+        }
+        return new DailyWeatherColumns(WeatherHelper.getWthData(data), WeatherHelper.getDailyData(data));
+    }
+
+    /**
+     * Get the number of daily records
+     *
+     * @return The number of daily records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the epoch day of the daily record
+     *
+     * @param i The index of daily record
+     * @return The epoch day, or {@link DateCodec#INVALID} if the date is
+     * missing or invalid
+     */
+    public int getEpochDay(int i) {
+        return epochDays[i];
+    }
+
+    /**
+     * Check if the date of the daily record is valid and given in the
+     * standard form, so {@link #getDate(int)} is the formatted epoch day
+     */
+    boolean isRegularDate(int i) {
+        return !irregularDates.get(i) && epochDays[i] != DateCodec.INVALID;
+    }
+
+    /**
+     * Get the date string of the daily record
+     *
+     * @param i The index of daily record
+     * @return The date text in the record, or blank string if missing
+     */
+    public String getDate(int i) {
+        if (irregularDates.get(i)) {
+            return dateTexts.get(i);
+        } else if (epochDays[i] == DateCodec.INVALID) {
+            return "";
+        } else {
+            return DateCodec.format(epochDays[i]);
+        }
+    }
+
+    /**
+     * Get the station level value, like {@code wst_lat} or {@code tav}
+     *
+     * @param key The variable name
+     * @return The value, or {@code null} if missing
+     */
+    public String getMeta(String key) {
+        return meta.get(key);
+    }
+
+    /**
+     * Get all the station level values as an unmodifiable map
+     *
+     * @return The station level values
+     */
+    public Map<String, String> getMetaData() {
+        return meta;
+    }
+
+    /**
+     * Get the names of daily variables which are given in any record
+     *
+     * @return The variable names
+     */
+    public Set<String> getVariables() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * Check if the daily variable is given in any record
+     *
+     * @param var The variable name
+     * @return True if the column is available
+     */
+    public boolean hasColumn(String var) {
+        return columns.containsKey(var);
+    }
+
+    /**
+     * Get the column of daily variable
+     *
+     * @param var The variable name
+     * @return The column, or {@code null} if the variable is not given in any
+     * record
+     */
+    public Column getColumn(String var) {
+        return columns.get(var);
+    }
+
+    /**
+     * Check if the daily variable is given in the record
+     *
+     * @param var The variable name
+     * @param i The index of daily record
+     * @return True if the value is given
+     */
+    public boolean isPresent(String var, int i) {
+        Column column = columns.get(var);
+        return column != null && column.isPresent(i);
+    }
+
+    /**
+     * Get the daily value as {@code double}
+     *
+     * @param var The variable name
+     * @param i The index of daily record
+     * @return The value, or {@code NaN} if missing or not a plain number
+     */
+    public double getDouble(String var, int i) {
+        Column column = columns.get(var);
+        return column == null ? Double.NaN : column.getDouble(i);
+    }
+
+    /**
+     * Get the trimmed text of daily value
+     *
+     * @param var The variable name
+     * @param i The index of daily record
+     * @return The text, or {@code null} if missing
+     */
+    public String getString(String var, int i) {
+        Column column = columns.get(var);
+        return column == null ? null : column.getString(i);
+    }
+
+    /**
+     * Get the daily value as {@code BigDecimal}
+     *
+     * @param var The variable name
+     * @param i The index of daily record
+     * @return The value, or {@code null} if missing or invalid
+     */
+    public BigDecimal getDecimal(String var, int i) {
+        Column column = columns.get(var);
+        return column == null ? null : column.getDecimal(i);
+    }
+}
@@ -0,0 +1,169 @@
+package org.agmip.functions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summary of the issues found by {@link DailyWeatherValidator} in the daily
+ * weather data of one station, and the cleaned weather data set.
+ */
+public class DailyWeatherReport {
+
+    static final int MISSING = 0;
+    static final int INVALID = 1;
+    static final int OUT_OF_RANGE = 2;
+    static final int FILLED = 3;
+    static final int UNFILLED = 4;
+    private static final String[] ISSUES = {"missing", "invalid", "out of range", "filled", "unfilled"};
+    private final String wstId;
+    private final HashMap<String, Object> weather;
+    int records;
+    int invalidDates;
+    int duplicateDates;
+    int unorderedDates;
+    int missingDays;
+    int reversedTemperatures;
+    final TreeMap<String, int[]> variables = new TreeMap<String, int[]>();
+
+    DailyWeatherReport(String wstId, HashMap<String, Object> weather) {
+        this.wstId = wstId;
+        this.weather = weather;
+    }
+
+    void count(String var, int issue) {
+        int[] counts = variables.get(var);
+        if (counts == null) {
+            counts = new int[ISSUES.length];
+            variables.put(var, counts);
+        }
+        counts[issue]++;
+    }
+
+    /**
+     * Get the cleaned weather data set, which contains the same station level
+     * values as the input and one daily record for each day between the
+     * first and last valid date
+     *
+     * @return The weather data set
+     */
+    public HashMap<String, Object> getWeather() {
+        return weather;
+    }
+
+    /**
+     * Get the number of daily records in the input
+     *
+     * @return The number of records
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Get the number of records dropped for the missing or invalid date
+     *
+     * @return The number of records
+     */
+    public int getInvalidDates() {
+        return invalidDates;
+    }
+
+    /**
+     * Get the number of records dropped for the date which is given by an
+     * earlier record
+     *
+     * @return The number of records
+     */
+    public int getDuplicateDates() {
+        return duplicateDates;
+    }
+
+    /**
+     * Get the number of records which are earlier than the previous record
+     *
+     * @return The number of records
+     */
+    public int getUnorderedDates() {
+        return unorderedDates;
+    }
+
+    /**
+     * Get the number of days without record between the first and last date
+     *
+     * @return The number of days
+     */
+    public int getMissingDays() {
+        return missingDays;
+    }
+
+    /**
+     * Get the number of records whose TMAX is less than TMIN, both values
+     * are removed
+     *
+     * @return The number of records
+     */
+    public int getReversedTemperatures() {
+        return reversedTemperatures;
+    }
+
+    /**
+     * Get the number of values of the daily variable with each issue
+     *
+     * @return The counts by variable, keyed by "missing", "invalid",
+     * "out of range", "filled" and "unfilled"; a variable without issue is
+     * not included
+     */
+    public Map<String, Map<String, Integer>> getVariableIssues() {
+        TreeMap<String, Map<String, Integer>> ret = new TreeMap<String, Map<String, Integer>>();
+        for (Map.Entry<String, int[]> entry : variables.entrySet()) {
+            TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+            for (int i = 0; i < ISSUES.length; i++) {
+                if (entry.getValue()[i] > 0) {
+                    counts.put(ISSUES[i], entry.getValue()[i]);
+                }
+            }
+            ret.put(entry.getKey(), Collections.unmodifiableMap(counts));
+        }
+        return Collections.unmodifiableMap(ret);
+    }
+
+    /**
+     * Check if any issue is found
+     *
+     * @return True if the data is already clean
+     */
+    public boolean isClean() {
+        return invalidDates == 0 && duplicateDates == 0 && unorderedDates == 0
+                && missingDays == 0 && reversedTemperatures == 0 && variables.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(wstId).append(": ").append(records).append(" records");
+        append(sb, invalidDates, "invalid dates");
+        append(sb, duplicateDates, "duplicate dates");
+        append(sb, unorderedDates, "unordered dates");
+        append(sb, missingDays, "missing days");
+        append(sb, reversedTemperatures, "TMAX < TMIN");
+        for (Map.Entry<String, int[]> entry : variables.entrySet()) {
+            sb.append("; ").append(entry.getKey());
+            String sep = " ";
+            for (int i = 0; i < ISSUES.length; i++) {
+                if (entry.getValue()[i] > 0) {
+                    sb.append(sep).append(entry.getValue()[i]).append(' ').append(ISSUES[i]);
+                    sep = ", ";
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, int count, String issue) {
+        if (count > 0) {
+            sb.append(", ").append(count).append(' ').append(issue);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.agmip.functions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Pull-based source of the daily weather records of one station, so the
+ * records could be processed one by one without loading the whole
+ * {@code dailyWeather} array into memory.
+ *
+ * The records are given in the same form as
+ * {@code WeatherHelper.getDailyData}, i.e. the variables of the first record
+ * are used as the template, the missing values are filled by the first
+ * record and the blank values are removed.
+ */
+public interface DailyWeatherSource extends Closeable {
+
+    /**
+     * Get the station level values, like {@code wst_elev} or {@code wst_lat}
+     *
+     * @return The station level values
+     */
+    Map<String, String> getStationData();
+
+    /**
+     * Check if there is more daily record
+     *
+     * @return True if {@link #next()} will return a record
+     * @throws IOException if the data could not be read
+     */
+    boolean hasNext() throws IOException;
+
+    /**
+     * Get the next daily record. The record should not be kept by the caller
+     * if the memory usage matters.
+     *
+     * @return The daily record, the key is the variable name
+     * @throws IOException if the data could not be read
+     * @throws java.util.NoSuchElementException if there is no more record
+     */
+    Map<String, String> next() throws IOException;
+}
@@ -0,0 +1,263 @@
+package org.agmip.functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.agmip.common.DateCodec;
+import org.agmip.common.DoubleFunctions;
+import static org.agmip.common.Functions.*;
+import static org.agmip.util.MapUtil.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One pass validation and gap filling of the daily weather data of one
+ * station, to be run once before the derivations.
+ *
+ * The records with missing, invalid or duplicate date are dropped, the
+ * records are sorted by date and a record is inserted for each missing day.
+ * The daily values which are not a number or out of the valid range of the
+ * variable, and both TMAX and TMIN when TMAX is less than TMIN, are removed.
+ * The missing values are then filled by linear interpolation when the gap is
+ * not longer than the maximum gap, except for the variables which are not
+ * fillable, like RAIN. The issues are counted in the
+ * {@link DailyWeatherReport}, and logged as one line per station.
+ */
+public class DailyWeatherValidator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DailyWeatherValidator.class);
+    private final HashMap<String, double[]> ranges = new HashMap<String, double[]>();
+    private final HashSet<String> notFillable = new HashSet<String>();
+    private int maxGap = 7;
+
+    /**
+     * Create the validator with the default ranges of the ACE daily weather
+     * variables, the maximum gap of 7 days, and RAIN not fillable
+     */
+    public DailyWeatherValidator() {
+        setRange("tmax", -90, 60);
+        setRange("tmin", -90, 60);
+        setRange("tdew", -90, 60);
+        setRange("tdry", -90, 60);
+        setRange("twet", -90, 60);
+        setRange("srad", 0, 50);
+        setRange("rain", 0, 1000);
+        setRange("wind", 0, 2000);
+        setRange("sunh", 0, 24);
+        setRange("rhmxd", 0, 100);
+        setRange("rhmnd", 0, 100);
+        setRange("rhumd", 0, 100);
+        setRange("vprsd", 0, 10);
+        setFillable("rain", false);
+    }
+
+    /**
+     * Set the valid range of the daily variable
+     *
+     * @param var The variable name
+     * @param min The minimum value, inclusive
+     * @param max The maximum value, inclusive
+     */
+    public void setRange(String var, double min, double max) {
+        ranges.put(var, new double[]{min, max});
+    }
+
+    /**
+     * Set if the missing values of the daily variable could be filled by
+     * interpolation
+     *
+     * @param var The variable name
+     * @param fillable True if the variable could be filled
+     */
+    public void setFillable(String var, boolean fillable) {
+        if (fillable) {
+            notFillable.remove(var);
+        } else {
+            notFillable.add(var);
+        }
+    }
+
+    /**
+     * Set the maximum number of consecutive missing values to be filled
+     *
+     * @param days The number of days, 0 for no filling
+     */
+    public void setMaxGap(int days) {
+        maxGap = days;
+    }
+
+    /**
+     * Validate and fill the daily weather data
+     *
+     * @param data The data set which contains weather data, or the weather
+     * data itself
+     * @return The report, with the cleaned weather data set
+     */
+    public DailyWeatherReport validate(HashMap data) {
+        HashMap wthData = WeatherHelper.getWthData(data);
+        ArrayList<HashMap<String, String>> dailyArr = WeatherHelper.getDailyData(data);
+        HashMap<String, Object> weather = new HashMap<String, Object>();
+        for (Object key : wthData.keySet()) {
+            if (!"dailyWeather".equals(key)) {
+                weather.put(key.toString(), wthData.get(key));
+            }
+        }
+        ArrayList<HashMap<String, String>> cleanArr = new ArrayList<HashMap<String, String>>();
+        weather.put("dailyWeather", cleanArr);
+        DailyWeatherReport report = new DailyWeatherReport(getValueOr(wthData, "wst_id", "").trim(), weather);
+        report.records = dailyArr.size();
+
+        // Dates
+        TreeMap<Integer, HashMap<String, String>> byDate = new TreeMap<Integer, HashMap<String, String>>();
+        TreeSet<String> vars = new TreeSet<String>();
+        int last = DateCodec.INVALID;
+        for (HashMap<String, String> daily : dailyArr) {
+            int epochDay = parseDate(daily.get("w_date"));
+            if (epochDay == DateCodec.INVALID) {
+                report.invalidDates++;
+                continue;
+            } else if (byDate.containsKey(epochDay)) {
+                report.duplicateDates++;
+                continue;
+            } else if (last != DateCodec.INVALID && epochDay < last) {
+                report.unorderedDates++;
+            }
+            last = epochDay;
+            byDate.put(epochDay, daily);
+            vars.addAll(daily.keySet());
+        }
+        vars.remove("w_date");
+        if (byDate.isEmpty()) {
+            log(report);
+            return report;
+        }
+        int first = byDate.firstKey();
+        int size = byDate.lastKey() - first + 1;
+        report.missingDays = size - byDate.size();
+
+        // Values and range checks
+        HashMap<String, String[]> texts = new HashMap<String, String[]>();
+        HashMap<String, double[]> values = new HashMap<String, double[]>();
+        for (String var : vars) {
+            String[] text = new String[size];
+            double[] value = new double[size];
+            double[] range = ranges.get(var);
+            for (int i = 0; i < size; i++) {
+                value[i] = Double.NaN;
+            }
+            for (Map.Entry<Integer, HashMap<String, String>> entry : byDate.entrySet()) {
+                int i = entry.getKey() - first;
+                String raw = entry.getValue().get(var);
+                String t = raw == null ? "" : raw.trim();
+                double v = DoubleFunctions.parse(t);
+                if (t.equals("")) {
+                    report.count(var, DailyWeatherReport.MISSING);
+                } else if (Double.isNaN(v)) {
+                    report.count(var, DailyWeatherReport.INVALID);
+                } else if (range != null && (v < range[0] || v > range[1])) {
+                    report.count(var, DailyWeatherReport.OUT_OF_RANGE);
+                } else {
+                    text[i] = t;
+                    value[i] = v;
+                }
+            }
+            texts.put(var, text);
+            values.put(var, value);
+        }
+
+        // TMAX should not be less than TMIN
+        if (vars.contains("tmax") && vars.contains("tmin")) {
+            double[] tmax = values.get("tmax");
+            double[] tmin = values.get("tmin");
+            for (int i = 0; i < size; i++) {
+                if (tmax[i] < tmin[i]) {
+                    report.reversedTemperatures++;
+                    tmax[i] = Double.NaN;
+                    tmin[i] = Double.NaN;
+                    texts.get("tmax")[i] = null;
+                    texts.get("tmin")[i] = null;
+                }
+            }
+        }
+
+        // Fill the gaps
+        for (String var : vars) {
+            fill(report, var, texts.get(var), values.get(var), !notFillable.contains(var));
+        }
+
+        // Build the dense records
+        for (int i = 0; i < size; i++) {
+            HashMap<String, String> daily = new HashMap<String, String>();
+            daily.put("w_date", DateCodec.format(first + i));
+            for (String var : vars) {
+                String t = texts.get(var)[i];
+                // Blank value is not filled from the first record by getDailyData
+                daily.put(var, t == null ? "" : t);
+            }
+            cleanArr.add(daily);
+        }
+        log(report);
+        return report;
+    }
+
+    /**
+     * Fill the gaps of the variable with linear interpolation
+     */
+    private void fill(DailyWeatherReport report, String var, String[] text, double[] value, boolean fillable) {
+        int size = text.length;
+        int i = 0;
+        while (i < size) {
+            if (text[i] != null) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < size && text[end] == null) {
+                end++;
+            }
+            int gap = end - i;
+            if (fillable && i > 0 && end < size && gap <= maxGap) {
+                int scale = Math.max(getScale(text[i - 1]), getScale(text[end]));
+                double step = (value[end] - value[i - 1]) / (gap + 1);
+                for (int j = i; j < end; j++) {
+                    value[j] = value[i - 1] + step * (j - i + 1);
+                    text[j] = DoubleFunctions.round(value[j], scale);
+                    report.count(var, DailyWeatherReport.FILLED);
+                }
+            } else {
+                for (int j = i; j < end; j++) {
+                    report.count(var, DailyWeatherReport.UNFILLED);
+                }
+            }
+            i = end;
+        }
+    }
+
+    private static int getScale(String text) {
+        return Math.max(new BigDecimal(text).scale(), 0);
+    }
+
+    /**
+     * Parse the date in the same way as {@link DailyWeatherColumns}
+     */
+    private static int parseDate(String raw) {
+        if (raw == null) {
+            return DateCodec.INVALID;
+        }
+        int epochDay = DateCodec.parse(raw.trim());
+        if (epochDay == DateCodec.INVALID) {
+            epochDay = DateCodec.fromDate(convertFromAgmipDateString(raw.trim()));
+        }
+        return epochDay;
+    }
+
+    private static void log(DailyWeatherReport report) {
+        if (!report.isClean()) {
+            LOG.warn("Daily weather issues of {}", report);
+        }
+    }
+}
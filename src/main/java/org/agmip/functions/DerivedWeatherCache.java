@@ -0,0 +1,210 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.agmip.common.Functions;
+
+/**
+ * LRU cache of the derived weather values (TAV/TAMP and ETo) by station, so
+ * the experiments sharing the same weather station do not calculate them
+ * again. It is enabled by {@link WeatherHelper#setCache(DerivedWeatherCache)}.
+ *
+ * The entry is keyed by {@code wst_id}, the precision mode and a fingerprint
+ * of the data: the station level values, the number of daily records, the
+ * first and last date and a checksum of the variables used by the
+ * calculations. The results are copied when they are put into or taken from
+ * the cache. The instance is thread-safe.
+ */
+public class DerivedWeatherCache {
+
+    private static final String[] KEY_VARS = {"w_date", "tmax", "tmin", "srad", "sunh", "wind", "tdew", "vprsd", "rhmxd", "rhmnd", "rhumd", "tdry", "twet"};
+    private final LruMap entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * The derived values of one station
+     */
+    private static class Entry {
+
+        private HashMap<String, String> tavAndAmp;
+        private HashMap<String, ArrayList<String>> eto;
+    }
+
+    /**
+     * Create the cache
+     *
+     * @param capacity The maximum number of stations to keep
+     */
+    public DerivedWeatherCache(int capacity) {
+        entries = new LruMap(capacity);
+    }
+
+    /**
+     * Map in access order which removes the least recently used station
+     * beyond the capacity
+     */
+    private static class LruMap extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Get the cache key of the station
+     *
+     * @param wthData The weather station data set
+     * @param dailyArr The daily weather records
+     * @return The key
+     */
+    static String getKey(Map wthData, List<? extends Map> dailyArr) {
+        HashMap<Object, Object> values = new HashMap<Object, Object>();
+        for (Object key : wthData.keySet()) {
+            Object value = wthData.get(key);
+            if (value instanceof String) {
+                values.put(key, value);
+            }
+        }
+        long checksum = 0;
+        for (Map daily : dailyArr) {
+            for (String var : KEY_VARS) {
+                Object value = daily.get(var);
+                checksum = checksum * 31 + (value == null ? 0 : value.hashCode());
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(values.get("wst_id")).append('|')
+                .append(Functions.getPrecisionMode()).append('|')
+                .append(Integer.toHexString(values.hashCode())).append('|')
+                .append(dailyArr.size());
+        if (!dailyArr.isEmpty()) {
+            sb.append('|').append(dailyArr.get(0).get("w_date"))
+                    .append('|').append(dailyArr.get(dailyArr.size() - 1).get("w_date"));
+        }
+        sb.append('|').append(Long.toHexString(checksum));
+        return sb.toString();
+    }
+
+    private Entry getEntry(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Get the cached TAV and TAMP
+     *
+     * @param key The cache key
+     * @return A copy of the results, or {@code null} if not cached
+     */
+    synchronized HashMap<String, String> getTavAndAmp(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.tavAndAmp == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new HashMap<String, String>(entry.tavAndAmp);
+    }
+
+    /**
+     * Put the TAV and TAMP into the cache
+     *
+     * @param key The cache key
+     * @param tavAndAmp The results
+     */
+    synchronized void putTavAndAmp(String key, HashMap<String, String> tavAndAmp) {
+        getEntry(key).tavAndAmp = new HashMap<String, String>(tavAndAmp);
+    }
+
+    /**
+     * Get the cached ETo
+     *
+     * @param key The cache key
+     * @return A copy of the results, or {@code null} if not cached
+     */
+    synchronized HashMap<String, ArrayList<String>> getEto(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.eto == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(entry.eto);
+    }
+
+    /**
+     * Put the ETo into the cache
+     *
+     * @param key The cache key
+     * @param eto The results
+     */
+    synchronized void putEto(String key, HashMap<String, ArrayList<String>> eto) {
+        getEntry(key).eto = copy(eto);
+    }
+
+    private static HashMap<String, ArrayList<String>> copy(HashMap<String, ArrayList<String>> eto) {
+        HashMap<String, ArrayList<String>> ret = new HashMap<String, ArrayList<String>>();
+        for (Map.Entry<String, ArrayList<String>> entry : eto.entrySet()) {
+            ret.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+        }
+        return ret;
+    }
+
+    /**
+     * Get the number of lookups found in the cache
+     *
+     * @return The number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups not found in the cache
+     *
+     * @return The number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of cached stations
+     *
+     * @return The number of stations
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove all the cached values and reset the statistics
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DerivedWeatherCache[size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+}
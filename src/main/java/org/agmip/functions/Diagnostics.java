@@ -0,0 +1,179 @@
+package org.agmip.functions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+
+/**
+ * Counters of one call of a calculation over the daily data, like the number
+ * of records scanned, the fallbacks taken and the invalid values skipped,
+ * which are logged as one summary line at the end of the call instead of one
+ * debug message per record.
+ *
+ * The collector is created by {@link #start(Logger, String)}, and is a shared
+ * no-op instance when the debug level of the logger is not enabled, so the
+ * counting costs nothing in that case. An enabled instance could be reused
+ * after {@link #reset()}, and is not thread-safe.
+ */
+public class Diagnostics {
+
+    private static final Diagnostics DISABLED = new Diagnostics(null, "", false);
+    private final Logger log;
+    private final String call;
+    private final boolean enabled;
+    private final LinkedHashMap<String, long[]> counters = new LinkedHashMap<String, long[]>();
+    private long scanned;
+    private long fallbacks;
+    private long invalid;
+
+    /**
+     * Create an enabled collector which is logged to the given logger
+     *
+     * @param log The logger for the summary line
+     * @param call The name of the call, used as the prefix of the summary
+     */
+    public Diagnostics(Logger log, String call) {
+        this(log, call, true);
+    }
+
+    private Diagnostics(Logger log, String call, boolean enabled) {
+        this.log = log;
+        this.call = call;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the collector for the call
+     *
+     * @param log The logger of the calculation
+     * @param call The name of the call
+     * @return An enabled collector if the debug level is enabled, otherwise
+     * the no-op one
+     */
+    public static Diagnostics start(Logger log, String call) {
+        return log.isDebugEnabled() ? new Diagnostics(log, call) : DISABLED;
+    }
+
+    /**
+     * Check if the counters are recorded
+     *
+     * @return True if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count one record scanned
+     */
+    public void scanned() {
+        if (enabled) {
+            scanned++;
+        }
+    }
+
+    /**
+     * Count one fallback taken, e.g. a default value is used when the
+     * result could not be found
+     */
+    public void fallback() {
+        if (enabled) {
+            fallbacks++;
+        }
+    }
+
+    /**
+     * Count one invalid value skipped
+     */
+    public void invalid() {
+        if (enabled) {
+            invalid++;
+        }
+    }
+
+    /**
+     * Count one occurrence of the named event, e.g. a result found
+     *
+     * @param name The name of the counter
+     */
+    public void count(String name) {
+        if (enabled) {
+            long[] counter = counters.get(name);
+            if (counter == null) {
+                counter = new long[1];
+                counters.put(name, counter);
+            }
+            counter[0]++;
+        }
+    }
+
+    /**
+     * Get the number of records scanned
+     *
+     * @return The count
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Get the number of fallbacks taken
+     *
+     * @return The count
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Get the number of invalid values skipped
+     *
+     * @return The count
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * Get the number of occurrences of the named event
+     *
+     * @param name The name of the counter
+     * @return The count
+     */
+    public long getCount(String name) {
+        long[] counter = counters.get(name);
+        return counter == null ? 0 : counter[0];
+    }
+
+    /**
+     * Reset all the counters, so the collector could be reused for another
+     * call
+     */
+    public void reset() {
+        scanned = 0;
+        fallbacks = 0;
+        invalid = 0;
+        counters.clear();
+    }
+
+    /**
+     * Emit the summary line at debug level
+     */
+    public void log() {
+        if (enabled) {
+            log.debug("{}", this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(call).append(": ").append(scanned).append(" records scanned, ")
+                .append(fallbacks).append(" fallbacks, ")
+                .append(invalid).append(" invalid values");
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            sb.append(", ").append(entry.getValue()[0]).append(' ').append(entry.getKey());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,212 @@
+package org.agmip.functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Map;
+import org.agmip.common.DateCodec;
+import org.agmip.common.DoubleFunctions;
+import org.agmip.functions.DailyWeatherColumns.Column;
+
+/**
+ * Primitive kernel of the cheaper reference evapotranspiration methods,
+ * Hargreaves-Samani and Priestley-Taylor, over the columnar daily data.
+ *
+ * Ra and N are read from the {@link SolarGeometry} tables, the station level
+ * terms are shared with the Penman-Monteith calculation, and the daily steps
+ * are evaluated with {@code double}. The steps of Priestley-Taylor before the
+ * net radiation (Rn) are the same as {@link EtoKernel}, including the choice
+ * of the methods for ea and Rs.
+ */
+final class EmpiricalEtoKernel {
+
+    private static final double ALPHA = 1.26;
+    private final EtoMethod method;
+    private final DailyWeatherColumns columns;
+    private final SolarGeometry solar;
+    private final double gamma;
+    private final double rPsy;
+    private final boolean hasRPsy;
+    private final double amth;
+    private final double bmth;
+    private final double krs;
+    private final double rsoFactor;
+    private final Column tmax;
+    private final Column tmin;
+    private final Column vprsd;
+    private final Column tdew;
+    private final Column rhmxd;
+    private final Column rhmnd;
+    private final Column rhumd;
+    private final Column tdry;
+    private final Column twet;
+    private final Column srad;
+    private final Column sunh;
+
+    /**
+     * Create the kernel
+     *
+     * @param method The method, either {@code HARGREAVES_SAMANI} or
+     * {@code PRIESTLEY_TAYLOR}
+     * @param station The station level terms, only required by
+     * {@code PRIESTLEY_TAYLOR}
+     * @param columns The columnar daily weather data of the station
+     */
+    EmpiricalEtoKernel(EtoMethod method, WeatherHelper.EtoStation station, DailyWeatherColumns columns) {
+        this.method = method;
+        this.columns = columns;
+        Map wthData = columns.getMetaData();
+        if (station != null) {
+            solar = station.solar;
+            gamma = EtoKernel.toDouble(station.gamma);
+            hasRPsy = station.rPsy != null;
+            rPsy = EtoKernel.toDouble(station.rPsy);
+            amth = EtoKernel.toDouble(station.amth);
+            bmth = EtoKernel.toDouble(station.bmth);
+            rsoFactor = 0.75 + 2e-5 * EtoKernel.toDouble(station.wst_elev);
+        } else {
+            solar = SolarGeometry.of(WeatherHelper.EtoStation.getLatitude(wthData));
+            gamma = Double.NaN;
+            hasRPsy = false;
+            rPsy = Double.NaN;
+            amth = Double.NaN;
+            bmth = Double.NaN;
+            rsoFactor = Double.NaN;
+        }
+        krs = EtoKernel.toDouble(WeatherHelper.getKrsValue(wthData));
+
+        tmax = columns.getColumn("tmax");
+        tmin = columns.getColumn("tmin");
+        vprsd = columns.getColumn("vprsd");
+        tdew = columns.getColumn("tdew");
+        rhmxd = columns.getColumn("rhmxd");
+        rhmnd = columns.getColumn("rhmnd");
+        rhumd = columns.getColumn("rhumd");
+        tdry = columns.getColumn("tdry");
+        twet = columns.getColumn("twet");
+        srad = columns.getColumn("srad");
+        sunh = columns.getColumn("sunh");
+    }
+
+    /**
+     * Calculate the ET for all the daily records
+     *
+     * @return The ET rounded to 2 decimals for each daily record
+     */
+    ArrayList<String> calculate() {
+        ArrayList<String> etoArr = new ArrayList<String>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            double eto;
+            if (method == EtoMethod.HARGREAVES_SAMANI) {
+                eto = hargreavesSamani(i);
+            } else {
+                eto = priestleyTaylor(i);
+            }
+            etoArr.add(DoubleFunctions.round(eto, 2));
+        }
+        return etoArr;
+    }
+
+    /**
+     * ET = 0.0023 * 0.408 * Ra * (Tmean + 17.8) * sqrt(Tmax - Tmin)
+     */
+    private double hargreavesSamani(int i) {
+        int J = getDayOfYear(i);
+        if (J == 0) {
+            return Double.NaN;
+        }
+        double tMax = value(tmax, i);
+        double tMin = value(tmin, i);
+        double ra = solar.getRaValue(J);
+        return 0.0023 * 0.408 * ra * ((tMax + tMin) / 2 + 17.8) * Math.sqrt(tMax - tMin);
+    }
+
+    /**
+     * ET = 1.26 * Δ / (Δ + γ) * 0.408 * Rn, the soil heat flux (G) is ignored
+     * for daily steps
+     */
+    private double priestleyTaylor(int i) {
+        int J = getDayOfYear(i);
+        if (J == 0) {
+            return Double.NaN;
+        }
+        double tMax = value(tmax, i);
+        double tMin = value(tmin, i);
+        double tMean = (tMax + tMin) / 2;
+
+        // Saturation vapour pressure and slope of the curve (Δ)
+        double e_tMax = saturation(tMax);
+        double e_tMin = saturation(tMin);
+        double slope = 4098 * saturation(tMean) / Math.pow(tMean + 237.3, 2);
+
+        // Actual vapour pressure (ea)
+        double ea;
+        Column rhMin = rhmnd != null && rhmnd.isPresent(i) ? rhmnd : rhumd;
+        if (isPresent(vprsd, i)) {
+            ea = value(vprsd, i);
+        } else if (isPresent(tdew, i)) {
+            ea = saturation(value(tdew, i));
+        } else if (isPresent(rhmxd, i) && isPresent(rhMin, i)) {
+            ea = (e_tMin * value(rhmxd, i) * 0.01 + e_tMax * value(rhMin, i) * 0.01) / 2;
+        } else if (isPresent(tdry, i) && isPresent(twet, i) && hasRPsy) {
+            double tWet = value(twet, i);
+            ea = saturation(tWet) - rPsy * (value(tdry, i) - tWet);
+        } else {
+            ea = e_tMin;
+        }
+
+        // Solar radiation (Rs)
+        double ra = solar.getRaValue(J);
+        double rs;
+        if (isPresent(srad, i)) {
+            rs = value(srad, i);
+        } else if (isPresent(sunh, i)) {
+            rs = (amth + bmth * value(sunh, i) / solar.getDaylightHoursValue(J)) * ra;
+        } else {
+            rs = krs * Math.sqrt(tMax - tMin) * ra;
+        }
+
+        // Net radiation (Rn)
+        double rso = rsoFactor * ra;
+        double rnl = 4.903e-9
+                * ((Math.pow(tMax + 273.16, 4) + Math.pow(tMin + 273.16, 4)) / 2)
+                * (0.34 - 0.14 * Math.sqrt(ea))
+                * (1.35 * rs / rso - 0.35);
+        double rn = 0.77 * rs - rnl;
+
+        return ALPHA * slope / (slope + gamma) * 0.408 * rn;
+    }
+
+    private static double saturation(double t) {
+        return 0.6108 * Math.exp(17.27 * t / (t + 237.3));
+    }
+
+    /**
+     * Get the day of year of the daily record, or 0 if the date is invalid
+     */
+    private int getDayOfYear(int i) {
+        int w_date = columns.getEpochDay(i);
+        return w_date == DateCodec.INVALID ? 0 : DateCodec.getDayOfYear(w_date);
+    }
+
+    private static boolean isPresent(Column column, int i) {
+        return column != null && column.isPresent(i);
+    }
+
+    /**
+     * Get the daily value, the number which is not plain is parsed from the
+     * text
+     *
+     * @return The value, or {@code NaN} if missing or invalid
+     */
+    private static double value(Column column, int i) {
+        if (!isPresent(column, i)) {
+            return Double.NaN;
+        }
+        double ret = column.values[i];
+        if (Double.isNaN(ret)) {
+            BigDecimal decimal = column.getDecimal(i);
+            ret = decimal == null ? Double.NaN : decimal.doubleValue();
+        }
+        return ret;
+    }
+}
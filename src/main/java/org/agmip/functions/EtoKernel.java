@@ -0,0 +1,394 @@
+package org.agmip.functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import org.agmip.common.DateCodec;
+import static org.agmip.common.Functions.*;
+import org.agmip.common.Functions.CompareMode;
+import org.agmip.functions.DailyWeatherColumns.Column;
+import static org.agmip.util.MapUtil.*;
+
+/**
+ * Primitive kernel of the FAO-56 Penman-Monteith ETo calculation over the
+ * columnar daily data.
+ *
+ * The station level terms are calculated once, Ra and N are read from the
+ * {@link SolarGeometry} tables, and the other daily steps are evaluated with
+ * {@code double} in the same order as
+ * {@link WeatherHelper#getEto(java.util.HashMap)}. The divisions whose scale
+ * is limited by the input text (the exponent of the saturation vapour
+ * pressure and the wind speed) are repeated with integer arithmetic, so the
+ * results are the same after rounding to 2 decimals. A record is calculated
+ * by the {@code BigDecimal} path instead when one of its values is not a
+ * plain number, or when the result is too close to the rounding boundary.
+ */
+final class EtoKernel {
+
+    private static final double BOUNDARY = 1e-6;
+    private static final long[] LONG_POW10 = new long[19];
+    private static final double[] POW10 = new double[23];
+    private static final int MAX_SCALE = 6;
+    private static final long MAX_UNSCALED = 1000000000L;
+
+    static {
+        LONG_POW10[0] = 1;
+        for (int i = 1; i < LONG_POW10.length; i++) {
+            LONG_POW10[i] = LONG_POW10[i - 1] * 10;
+        }
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = Double.parseDouble("1e" + i);
+        }
+    }
+
+    private final WeatherHelper.EtoStation station;
+    private final DailyWeatherColumns columns;
+    private final DailySeries series;
+    private final double gamma;
+    private final double rPsy;
+    private final boolean hasRPsy;
+    private final double amth;
+    private final double bmth;
+    private final double krs;
+    private final double rsoFactor;
+    private final boolean isWndht2;
+    private final double wndhtLog;
+    private final Column tmax;
+    private final Column tmin;
+    private final Column vprsd;
+    private final Column tdew;
+    private final Column rhmxd;
+    private final Column rhmnd;
+    private final Column rhumd;
+    private final Column tdry;
+    private final Column twet;
+    private final Column srad;
+    private final Column sunh;
+    private final Column wind;
+
+    EtoKernel(WeatherHelper.EtoStation station, DailyWeatherColumns columns) {
+        this.station = station;
+        this.columns = columns;
+        this.series = DailySeries.of(columns);
+
+        // Station level terms, calculated in the same way as the BigDecimal path
+        gamma = toDouble(station.gamma);
+        hasRPsy = station.rPsy != null;
+        rPsy = toDouble(station.rPsy);
+        amth = toDouble(station.amth);
+        bmth = toDouble(station.bmth);
+        krs = toDouble(WeatherHelper.getKrsValue(station.wthData));
+        rsoFactor = toDouble(sum("0.75", product("2e-5", station.wst_elev)));
+        String wndht = getValueOr(station.wthData, "wndht", "").trim();
+        isWndht2 = compare(wndht, "2", CompareMode.EQUAL);
+        wndhtLog = toDouble(log(substract(multiply("67.8", wndht), "5.42")));
+
+        tmax = columns.getColumn("tmax");
+        tmin = columns.getColumn("tmin");
+        vprsd = columns.getColumn("vprsd");
+        tdew = columns.getColumn("tdew");
+        rhmxd = columns.getColumn("rhmxd");
+        rhmnd = columns.getColumn("rhmnd");
+        rhumd = columns.getColumn("rhumd");
+        tdry = columns.getColumn("tdry");
+        twet = columns.getColumn("twet");
+        srad = columns.getColumn("srad");
+        sunh = columns.getColumn("sunh");
+        wind = columns.getColumn("wind");
+    }
+
+    /**
+     * Calculate the ETo for all the daily records
+     *
+     * @return The ETo rounded to 2 decimals for each daily record
+     */
+    ArrayList<String> calculate() {
+        return calculate(0, columns.size());
+    }
+
+    /**
+     * Calculate the ETo for the range of daily records, could be called from
+     * multiple threads
+     *
+     * @param from The index of the first record, inclusive
+     * @param to The index of the last record, exclusive
+     * @return The ETo rounded to 2 decimals for each daily record in range
+     */
+    ArrayList<String> calculate(int from, int to) {
+        ArrayList<String> etoArr = new ArrayList<String>(to - from);
+        for (int i = from; i < to; i++) {
+            etoArr.add(calculate(i));
+        }
+        return etoArr;
+    }
+
+    private String calculate(int i) {
+        // Get daily TMAX and TMIN
+        int tMinState = state(tmin, i);
+        int tMaxState = state(tmax, i);
+        if (tMinState < 0 || tMaxState < 0) {
+            return exact(i);
+        } else if (tMinState == 0 || tMaxState == 0) {
+            return null;
+        }
+        double tMin = tmin.values[i];
+        double tMax = tmax.values[i];
+        long mMin = tmin.getUnscaled(i);
+        long mMax = tmax.getUnscaled(i);
+        int sMin = tmin.getScale(i);
+        int sMax = tmax.getScale(i);
+        if (!isSmall(mMin, sMin) || !isSmall(mMax, sMax)) {
+            return exact(i);
+        }
+
+        // Step 3. Mean air temperature (Tmean), an exact decimal
+        int sMean = Math.max(sMin, sMax);
+        long mMean = mMin * LONG_POW10[sMean - sMin] + mMax * LONG_POW10[sMean - sMax];
+        if (mMean % 2 == 0) {
+            mMean /= 2;
+        } else {
+            mMean *= 5;
+            sMean++;
+        }
+        double tMean = mMean / POW10[sMean];
+
+        // Step 4. Saturation vapour pressure (es)
+        double xMax = vapourExponent(mMax, sMax);
+        double xMin = vapourExponent(mMin, sMin);
+        double xMean = vapourExponent(mMean, sMean);
+        // exp(0) is a short decimal which will limit the scale of the slope
+        if (Double.isNaN(xMax) || Double.isNaN(xMin) || Double.isNaN(xMean) || xMean == 0) {
+            return exact(i);
+        }
+        double e_tMax = 0.6108 * Math.exp(xMax);
+        double e_tMin = 0.6108 * Math.exp(xMin);
+        double es = (e_tMax + e_tMin) / 2;
+
+        // Step 5. Slope of the saturation vapour pressure curve
+        double slope = 4098 * 0.6108 * Math.exp(xMean) / Math.pow(tMean + 237.3, 2);
+
+        // Step 6. Actual vapour pressure (ea)
+        double ea;
+        int st;
+        Column rhMin = rhmnd != null && rhmnd.isPresent(i) ? rhmnd : rhumd;
+        if ((st = state(vprsd, i)) != 0) {
+            if (st < 0) {
+                return exact(i);
+            }
+            ea = vprsd.values[i];
+        } else if ((st = state(tdew, i)) != 0) {
+            if (st < 0) {
+                return exact(i);
+            }
+            double x = vapourExponent(tdew, i);
+            if (Double.isNaN(x)) {
+                return exact(i);
+            }
+            ea = 0.6108 * Math.exp(x);
+        } else if (state(rhmxd, i) != 0 && state(rhMin, i) != 0) {
+            if (state(rhmxd, i) < 0 || state(rhMin, i) < 0) {
+                return exact(i);
+            }
+            ea = (e_tMin * rhmxd.values[i] * 0.01 + e_tMax * rhMin.values[i] * 0.01) / 2;
+        } else if (state(tdry, i) != 0 && state(twet, i) != 0 && hasRPsy) {
+            if (state(tdry, i) < 0 || state(twet, i) < 0) {
+                return exact(i);
+            }
+            double x = vapourExponent(twet, i);
+            if (Double.isNaN(x)) {
+                return exact(i);
+            }
+            ea = 0.6108 * Math.exp(x) - rPsy * (tdry.values[i] - twet.values[i]);
+        } else {
+            ea = e_tMin;
+        }
+
+        // Step 7. Vapour pressure difference (es - ea)
+        double vpDiff = es - ea;
+
+        // Step 8. Extra terrestrial radiation (Ra) and daylight hours (N)
+        int w_date = columns.getEpochDay(i);
+        if (w_date == DateCodec.INVALID) {
+            return null;
+        }
+        int J = DateCodec.getDayOfYear(w_date);
+        double ra = station.solar.getRaValue(J);
+        double N = station.solar.getDaylightHoursValue(J);
+
+        // Step 9. Solar radiation (Rs)
+        double rs;
+        if ((st = state(srad, i)) != 0) {
+            if (st < 0) {
+                return exact(i);
+            }
+            rs = srad.values[i];
+        } else if ((st = state(sunh, i)) != 0) {
+            if (st < 0) {
+                return exact(i);
+            }
+            rs = (amth + bmth * sunh.values[i] / N) * ra;
+        } else {
+            rs = krs * Math.sqrt(tMax - tMin) * ra;
+        }
+
+        // Step 10. Clear-Sky solar radiation (Rso)
+        double rso = rsoFactor * ra;
+
+        // Step 11. Net solar radiation (Rns)
+        double rns = 0.77 * rs;
+
+        // Step 12. Net long wave radiation (Rnl)
+        double rnl = 4.903e-9
+                * ((Math.pow(tMax + 273.16, 4) + Math.pow(tMin + 273.16, 4)) / 2)
+                * (0.34 - 0.14 * Math.sqrt(ea))
+                * (1.35 * rs / rso - 0.35);
+
+        // Step 13. Net radiation (Rn)
+        double rn = rns - rnl;
+
+        // Step 14. Wind speed at 2 meter above ground level (u2)
+        double u2;
+        if ((st = state(wind, i)) != 0) {
+            if (st < 0 || !isSmall(wind.getUnscaled(i), wind.getScale(i))) {
+                return exact(i);
+            }
+            double uz = divide(wind.getUnscaled(i) * 1000, wind.getScale(i), 86400, 0, 4);
+            if (isWndht2) {
+                u2 = uz;
+            } else if (Double.isNaN(wndhtLog)) {
+                // The adjustment for the measurement height is not available
+                return null;
+            } else {
+                u2 = uz * 4.87 / wndhtLog;
+            }
+        } else {
+            u2 = 2;
+        }
+
+        // Step 15. Reference evapotranspiration (ETo)
+        double eto = (0.408 * slope * rn + gamma * 900 * u2 * vpDiff / (tMean + 273))
+                / (slope + gamma * (1 + 0.34 * u2));
+        return round(eto, i);
+    }
+
+    /**
+     * Round the result to 2 decimals with {@code HALF_UP}, or use the
+     * {@code BigDecimal} path if it is too close to the boundary
+     */
+    private String round(double eto, int i) {
+        if (Double.isNaN(eto) || Double.isInfinite(eto)) {
+            return exact(i);
+        }
+        double abs = Math.abs(eto * 100);
+        if (Math.abs(abs - Math.floor(abs) - 0.5) < BOUNDARY) {
+            return exact(i);
+        }
+        long unscaled = (long) Math.floor(abs + 0.5);
+        return BigDecimal.valueOf(eto < 0 ? -unscaled : unscaled, 2).toString();
+    }
+
+    private String exact(int i) {
+        return WeatherHelper.getDailyEto(station, series, i);
+    }
+
+    /**
+     * Get the state of the daily value
+     *
+     * @return 1 for a plain number, 0 for missing value, -1 for the value
+     * which is not a plain number
+     */
+    private static int state(Column column, int i) {
+        if (column == null || !column.isPresent(i)) {
+            return 0;
+        }
+        return Double.isNaN(column.values[i]) ? -1 : 1;
+    }
+
+    private static boolean isSmall(long unscaled, int scale) {
+        return scale <= MAX_SCALE && Math.abs(unscaled) < MAX_UNSCALED;
+    }
+
+    private static double vapourExponent(Column column, int i) {
+        long unscaled = column.getUnscaled(i);
+        int scale = column.getScale(i);
+        return isSmall(unscaled, scale) ? vapourExponent(unscaled, scale) : Double.NaN;
+    }
+
+    /**
+     * The exponent {@code 17.27 * T / (T + 237.3)} with the same scale as
+     * {@code divide(multiply("17.27", T), sum(T, "237.3"))}
+     */
+    private static double vapourExponent(long unscaled, int scale) {
+        int divisorScale = Math.max(scale, 1);
+        long divisor = unscaled * LONG_POW10[divisorScale - scale] + 2373 * LONG_POW10[divisorScale - 1];
+        return divide(1727 * unscaled, scale + 2, divisor, divisorScale);
+    }
+
+    /**
+     * Same as {@link org.agmip.common.Functions#divide(String, String)} for
+     * the decimals {@code dividend * 10^-dividendScale} and
+     * {@code divisor * 10^-divisorScale}
+     *
+     * @return The quotient, or {@code NaN} for dividing by zero or overflow
+     */
+    private static double divide(long dividend, int dividendScale, long divisor, int divisorScale) {
+        if (divisor == 0) {
+            return Double.NaN;
+        }
+        long reduced = Math.abs(divisor);
+        while (reduced % 2 == 0) {
+            reduced /= 2;
+        }
+        while (reduced % 5 == 0) {
+            reduced /= 5;
+        }
+        if (dividend % reduced == 0) {
+            // The quotient is a terminating decimal and is not rounded
+            double quotient = (double) dividend / divisor;
+            int scale = dividendScale - divisorScale;
+            return scale >= 0 ? quotient / POW10[scale] : quotient * POW10[-scale];
+        }
+        return divide(dividend, dividendScale, divisor, divisorScale, Math.max(dividendScale, divisorScale) + 1);
+    }
+
+    /**
+     * Same as {@link org.agmip.common.Functions#divide(String, String, int)}
+     * for the decimals {@code dividend * 10^-dividendScale} and
+     * {@code divisor * 10^-divisorScale}
+     *
+     * @return The quotient, or {@code NaN} for dividing by zero or overflow
+     */
+    private static double divide(long dividend, int dividendScale, long divisor, int divisorScale, int scale) {
+        int shift = scale - dividendScale + divisorScale;
+        if (divisor == 0 || scale >= POW10.length || Math.abs(shift) >= LONG_POW10.length) {
+            return Double.NaN;
+        }
+        if (shift >= 0) {
+            if (Math.abs(dividend) > Long.MAX_VALUE / LONG_POW10[shift]) {
+                return Double.NaN;
+            }
+            dividend *= LONG_POW10[shift];
+        } else {
+            if (Math.abs(divisor) > Long.MAX_VALUE / 2 / LONG_POW10[-shift]) {
+                return Double.NaN;
+            }
+            divisor *= LONG_POW10[-shift];
+        }
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient / POW10[scale];
+    }
+
+    static double toDouble(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            return toBigDecimal(value).doubleValue();
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.agmip.functions;
+
+/**
+ * The methods of the daily reference evapotranspiration calculation, see
+ * {@link WeatherHelper#getEto(DailyWeatherColumns, EtoMethod)}.
+ */
+public enum EtoMethod {
+
+    /**
+     * FAO-56 Penman-Monteith, requires the elevation and uses all the
+     * available humidity, radiation and wind data
+     */
+    PENMAN_MONTEITH,
+    /**
+     * Hargreaves-Samani, only requires the latitude and the daily TMAX and
+     * TMIN
+     */
+    HARGREAVES_SAMANI,
+    /**
+     * Priestley-Taylor with alpha 1.26, requires the elevation and uses the
+     * same humidity and radiation data as Penman-Monteith, but not the wind
+     */
+    PRIESTLEY_TAYLOR
+}
@@ -1,12 +1,22 @@
 package org.agmip.functions;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 import org.agmip.ace.AcePathfinder;
 import org.agmip.ace.util.AcePathfinderUtil;
+import org.agmip.common.DoubleFunctions;
 import org.agmip.common.Event;
 import org.agmip.common.Functions;
 import static org.agmip.common.Functions.*;
@@ -26,6 +36,7 @@ import org.slf4j.LoggerFactory;
 public class ExperimentHelper {
 
     private static final Logger LOG = LoggerFactory.getLogger(ExperimentHelper.class);
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("-?\\d+(.\\d*)?");
 
     /**
      * This function will calculate the planting date which is the first date
@@ -42,40 +53,62 @@ public class ExperimentHelper {
      * weather data.
      */
     public static HashMap<String, ArrayList<String>> getAutoPlantingDate(HashMap data, String eDate, String lDate, String rain, String days) {
+        return getAutoPlantingDate(data, new RainfallIndex(DailySeries.of(WeatherHelper.getDailyData(data))), eDate, lDate, rain, days);
+    }
 
-        Map wthData;
-        ArrayList<Map> dailyData;
-        ArrayList<HashMap<String, String>> eventData;
-        Event event;
-        Calendar eDateCal = Calendar.getInstance();
-        Calendar lDateCal = Calendar.getInstance();
+    /**
+     * This function will calculate the planting date which is the first date
+     * within the planting window that has an accumulated rainfall amount
+     * (P) in the previous n days.
+     * The daily weather data is read from the columnar view.
+     *
+     * @param data The HashMap of experiment
+     * @param columns The columnar daily weather data of the station
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @param rain Threshold rainfall amount (mm)
+     * @param days Number of days of accumulation
+     *
+     * @return An {@code ArrayList} of {@code pdate} for each year in the
+     * weather data.
+     */
+    public static HashMap<String, ArrayList<String>> getAutoPlantingDate(HashMap data, DailyWeatherColumns columns, String eDate, String lDate, String rain, String days) {
+        return getAutoPlantingDate(data, new RainfallIndex(DailySeries.of(columns)), eDate, lDate, rain, days);
+    }
+
+    /**
+     * This function will calculate the planting date which is the first date
+     * within the planting window that has an accumulated rainfall amount
+     * (P) in the previous n days.
+     * The daily rainfall is read from the index of the station, which could
+     * be shared by the experiments using the same station.
+     *
+     * @param data The HashMap of experiment
+     * @param rainfall The rainfall index of the station
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @param rain Threshold rainfall amount (mm)
+     * @param days Number of days of accumulation
+     *
+     * @return An {@code ArrayList} of {@code pdate} for each year in the
+     * weather data.
+     */
+    public static HashMap<String, ArrayList<String>> getAutoPlantingDate(HashMap data, RainfallIndex rainfall, String eDate, String lDate, String rain, String days) {
+
+        DailySeries dailyData = rainfall.getSeries();
         int intDays;
         int duration;
         double accRainAmtTotal;
         double accRainAmt;
-        int expDur;
-        int startYear = 0;
         Window[] windows;
         ArrayList<String> pdates = new ArrayList<String>();
         HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
 
         // Check input dates
-        if (!isValidDate(eDate, eDateCal, "-")) {
-            LOG.error("INVALID EARLIST DATE:[" + eDate + "]");
-            return new HashMap<String, ArrayList<String>>();
-        }
-        if (!isValidDate(lDate, lDateCal, "-")) {
-            LOG.error("INVALID LATEST DATE:[" + lDate + "]");
+        duration = getWindowDuration(eDate, lDate);
+        if (duration < 0) {
             return new HashMap<String, ArrayList<String>>();
         }
-        if (eDateCal.after(lDateCal)) {
-            lDateCal.set(Calendar.YEAR, lDateCal.get(Calendar.YEAR) + 1);
-        }
-        try {
-            duration = Integer.parseInt(convertMsToDay(lDateCal.getTimeInMillis() - eDateCal.getTimeInMillis()));
-        } catch (Exception e) {
-            duration = 0;
-        }
         // Check Number of days of accumulation
         try {
             intDays = Integer.parseInt(days);
@@ -100,12 +133,188 @@ public class ExperimentHelper {
             return new HashMap<String, ArrayList<String>>();
         }
 
+        windows = getPlantingWindows(data, dailyData, eDate, lDate, duration);
+        if (windows == null) {
+            return new HashMap<String, ArrayList<String>>();
+        }
+
+        // Loop each window to try to find appropriate planting date
+        Diagnostics diag = Diagnostics.start(LOG, "getAutoPlantingDate");
+        for (int i = 0; i < windows.length; i++) {
+
+            // Check first n days
+            int last = Math.min(windows[i].start + intDays, windows[i].end);
+            accRainAmt = 0;
+            for (int j = windows[i].start; j < last; j++) {
+                diag.scanned();
+
+                if (!rainfall.isValid(j)) {
+                    diag.invalid();
+                    continue;
+                }
+                accRainAmt += rainfall.get(j);
+                if (accRainAmt >= accRainAmtTotal) {
+                    diag.count("found in first days");
+                    //event.updateEvent("date", dailyData.getDate(j));
+                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", dailyData.getDate(j));
+                    pdates.add(dailyData.getDate(j));
+                    break;
+                }
+            }
+
+            if (accRainAmt >= accRainAmtTotal) {
+                continue;
+            }
+
+//            // If the window size is smaller than n
+//            if (last > windows[i].end) {
+//                LOG.info("NO APPROPRIATE DATE WAS FOUND FOR NO." + (i + 1) + " PLANTING EVENT");
+//                // TODO remove one planting event
+//                // event.removeEvent();
+//            }
+
+            // Check following days
+            int outIndex = last;
+            for (int j = last; j <= windows[i].end; j++) {
+                diag.scanned();
+
+                // The amount which leaves the window is kept subtracted
+                // when the new day is invalid
+                if (!rainfall.isValid(j - intDays)) {
+                    diag.invalid();
+                    continue;
+                }
+                accRainAmt -= rainfall.get(j - intDays);
+                if (!rainfall.isValid(j)) {
+                    diag.invalid();
+                    continue;
+                }
+                accRainAmt += rainfall.get(j);
+                if (accRainAmt >= accRainAmtTotal) {
+                    diag.count("found in following days");
+                    //event.updateEvent("date", dailyData.getDate(j));
+                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", dailyData.getDate(j));
+                    pdates.add(dailyData.getDate(j));
+                    break;
+                }
+                outIndex++;
+            }
+
+            if (accRainAmt < accRainAmtTotal) {
+                LOG.warn("Could not find an appropriate day to plant, using {}", windows[i].lastDay);
+                diag.fallback();
+                pdates.add(windows[i].lastDay);
+            }
+        }
+        diag.log();
+        results.put("pdate", pdates);
+        return results;
+    }
+
+    /**
+     * This function will calculate the planting date which is the first date
+     * within the planting window that meets all the planting criteria, e.g.
+     * the accumulated rainfall in the previous n days and no frost in the
+     * following days. The planting windows are found in the same way as
+     * {@link #getAutoPlantingDate(HashMap, String, String, String, String)},
+     * and the latest date is used when no date meets the criteria.
+     *
+     * @param data The HashMap of experiment
+     * @param columns The columnar daily weather data of the station
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @param criteria The planting criteria
+     *
+     * @return An {@code ArrayList} of {@code pdate} for each year in the
+     * weather data.
+     */
+    public static HashMap<String, ArrayList<String>> getAutoPlantingDate(HashMap data, DailyWeatherColumns columns, String eDate, String lDate, PlantingCriteria criteria) {
+        HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
+        if (criteria == null || criteria.isEmpty()) {
+            LOG.error("NO PLANTING CRITERIA");
+            return results;
+        }
+        int duration = getWindowDuration(eDate, lDate);
+        if (duration < 0) {
+            return results;
+        }
+        DailySeries dailyData = DailySeries.of(columns);
+        Window[] windows = getPlantingWindows(data, dailyData, eDate, lDate, duration);
+        if (windows == null) {
+            return results;
+        }
+
+        Diagnostics diag = Diagnostics.start(LOG, "getAutoPlantingDate");
+        ArrayList<String> pdates = new ArrayList<String>();
+        for (Window window : windows) {
+            int found = criteria.find(columns, window.start, window.end);
+            if (found < 0) {
+                LOG.warn("Could not find an appropriate day to plant with {}, using {}", criteria, window.lastDay);
+                diag.fallback();
+                pdates.add(window.lastDay);
+            } else {
+                diag.count("found");
+                pdates.add(dailyData.getDate(found));
+            }
+        }
+        diag.log();
+        results.put("pdate", pdates);
+        return results;
+    }
+
+    /**
+     * Get the number of days from the earliest to the latest planting date,
+     * the latest date is in the next year when it is earlier
+     *
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @return The number of days, or -1 if either date is not valid
+     */
+    private static int getWindowDuration(String eDate, String lDate) {
+        Calendar eDateCal = Calendar.getInstance();
+        Calendar lDateCal = Calendar.getInstance();
+        if (!isValidDate(eDate, eDateCal, "-")) {
+            LOG.error("INVALID EARLIST DATE:[" + eDate + "]");
+            return -1;
+        }
+        if (!isValidDate(lDate, lDateCal, "-")) {
+            LOG.error("INVALID LATEST DATE:[" + lDate + "]");
+            return -1;
+        }
+        if (eDateCal.after(lDateCal)) {
+            lDateCal.set(Calendar.YEAR, lDateCal.get(Calendar.YEAR) + 1);
+        }
+        try {
+            return Integer.parseInt(convertMsToDay(lDateCal.getTimeInMillis() - eDateCal.getTimeInMillis()));
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Find the planting window of each year in the experiment duration, from
+     * the planting event, {@code exp_dur} and {@code sc_year} of the
+     * experiment
+     *
+     * @param data The HashMap of experiment
+     * @param dailyData The daily weather records
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @param duration The number of days from the earliest to the latest date
+     * @return The windows, or {@code null} if not valid
+     */
+    private static Window[] getPlantingWindows(HashMap data, DailySeries dailyData, String eDate, String lDate, int duration) {
+        ArrayList<HashMap<String, String>> eventData;
+        Event event;
+        int expDur;
+        int startYear = 0;
+        Window[] windows;
+
         // Validation for input parameters
         // Weather data check and try to get daily data
-        dailyData = WeatherHelper.getDailyData(data);
-        if (dailyData.isEmpty()) {
+        if (dailyData.size() == 0) {
             LOG.error("EMPTY DAILY WEATHER DATA.");
-            return new HashMap<String, ArrayList<String>>();
+            return null;
         }
 
         // Check experiment data
@@ -177,7 +386,7 @@ public class ExperimentHelper {
             } // If multiple year duration, then report error and end function
             else {
                 LOG.error("THE START YEAR IS OUT OF DATA RANGE (SC_YEAR:[" + startYear + "]) {}", startYearIndex);
-                return new HashMap<String, ArrayList<String>>();
+                return null;
             }
         }
 
@@ -187,6 +396,13 @@ public class ExperimentHelper {
         for (int i = 0; i < windows.length; i++) {
             end = getDailyRecIndex(dailyData, lDate, start, duration);
             windows[i] = new Window(start, end);
+            if (startYear > 0) {
+                windows[i].lastDay = (startYear + i) + lDate;
+            } else if (end >= dailyData.size()) {
+                windows[i].lastDay = dailyData.getDate(dailyData.size() - 1);
+            } else {
+                windows[i].lastDay = dailyData.getDate(end);
+            }
             if (i + 1 < windows.length) {
                 start = getDailyRecIndex(dailyData, eDate, end, 365 - duration);
             }
@@ -194,77 +410,9 @@ public class ExperimentHelper {
 
         if (windows[0].start == dailyData.size()) {
             LOG.warn("NO VALID DAILY DATA FOR SEARCH WINDOW");
-//            return new HashMap<String, ArrayList<String>>();
-        }
-
-        // Loop each window to try to find appropriate planting date
-        for (int i = 0; i < windows.length; i++) {
-
-            // Check first n days
-            int last = Math.min(windows[i].start + intDays, windows[i].end);
-            accRainAmt = 0;
-            for (int j = windows[i].start; j < last; j++) {
-
-                try {
-                    accRainAmt += Double.parseDouble(getValueOr(dailyData.get(j), "rain", "0"));
-                } catch (Exception e) {
-                    continue;
-                }
-                if (accRainAmt >= accRainAmtTotal) {
-                    LOG.debug("1: " + getValueOr(dailyData.get(j), "w_date", "") + " : " + accRainAmt + ", " + (accRainAmt >= accRainAmtTotal));
-                    //event.updateEvent("date", getValueOr(dailyData.get(j), "w_date", ""));
-                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", getValueOr(dailyData.get(j), "w_date", ""));
-                    pdates.add(getValueOr(dailyData.get(j), "w_date", ""));
-                    break;
-                }
-            }
-
-            if (accRainAmt >= accRainAmtTotal) {
-                continue;
-            }
-
-//            // If the window size is smaller than n
-//            if (last > windows[i].end) {
-//                LOG.info("NO APPROPRIATE DATE WAS FOUND FOR NO." + (i + 1) + " PLANTING EVENT");
-//                // TODO remove one planting event
-//                // event.removeEvent();
-//            }
-
-            // Check following days
-            int outIndex = last;
-            for (int j = last; j <= windows[i].end; j++) {
-
-                try {
-                    accRainAmt -= Double.parseDouble(getValueOr(dailyData.get(j - intDays), "rain", "0"));
-                    accRainAmt += Double.parseDouble(getValueOr(dailyData.get(j), "rain", "0"));
-                } catch (Exception e) {
-                    continue;
-                }
-                if (accRainAmt >= accRainAmtTotal) {
-                    LOG.debug("2:" + getValueOr(dailyData.get(j), "w_date", "") + " : " + accRainAmt + ", " + (accRainAmt >= accRainAmtTotal));
-                    //event.updateEvent("date", getValueOr(dailyData.get(j), "w_date", ""));
-                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", getValueOr(dailyData.get(j), "w_date", ""));
-                    pdates.add(getValueOr(dailyData.get(j), "w_date", ""));
-                    break;
-                }
-                outIndex++;
-            }
-
-            if (accRainAmt < accRainAmtTotal) {
-                String lastDay;
-                if (startYear > 0) {
-                    lastDay = (startYear + i) + lDate;
-                } else if (windows[i].end >= dailyData.size()) {
-                    lastDay = getValueOr(dailyData.get(dailyData.size() - 1), "w_date", "");
-                } else {
-                    lastDay = getValueOr(dailyData.get(windows[i].end), "w_date", "");
-                }
-                LOG.warn("Could not find an appropriate day to plant, using {}", lastDay);
-                pdates.add(lastDay);
-            }
+//            return null;
         }
-        results.put("pdate", pdates);
-        return results;
+        return windows;
     }
 
     /**
@@ -283,8 +431,51 @@ public class ExperimentHelper {
      * weather data.
      */
     public static HashMap<String, ArrayList<String>> getAutoFillPlantingDate(HashMap data, String eDate, String lDate, String rain, String days) {
+        return getAutoFillPlantingDate(data, new RainfallIndex(DailySeries.of(WeatherHelper.getDailyData(data))), eDate, lDate, rain, days);
+    }
 
-        ArrayList<Map> dailyData;
+    /**
+     * This function will calculate the planting date which is the first date
+     * within the planting window that has an accumulated rainfall amount
+     * (P) in the previous n days. The calculation will be done then planting
+     * date is missing in the valid planting event.
+     * The daily weather data is read from the columnar view.
+     *
+     * @param data The HashMap of experiment
+     * @param columns The columnar daily weather data of the station
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @param rain Threshold rainfall amount (mm)
+     * @param days Number of days of accumulation
+     *
+     * @return An {@code ArrayList} of {@code pdate} for each year in the
+     * weather data.
+     */
+    public static HashMap<String, ArrayList<String>> getAutoFillPlantingDate(HashMap data, DailyWeatherColumns columns, String eDate, String lDate, String rain, String days) {
+        return getAutoFillPlantingDate(data, new RainfallIndex(DailySeries.of(columns)), eDate, lDate, rain, days);
+    }
+
+    /**
+     * This function will calculate the planting date which is the first date
+     * within the planting window that has an accumulated rainfall amount
+     * (P) in the previous n days. The calculation will be done then planting
+     * date is missing in the valid planting event.
+     * The daily rainfall is read from the index of the station, which could
+     * be shared by the experiments using the same station.
+     *
+     * @param data The HashMap of experiment
+     * @param rainfall The rainfall index of the station
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @param rain Threshold rainfall amount (mm)
+     * @param days Number of days of accumulation
+     *
+     * @return An {@code ArrayList} of {@code pdate} for each year in the
+     * weather data.
+     */
+    public static HashMap<String, ArrayList<String>> getAutoFillPlantingDate(HashMap data, RainfallIndex rainfall, String eDate, String lDate, String rain, String days) {
+
+        DailySeries dailyData = rainfall.getSeries();
         ArrayList<HashMap<String, String>> eventData;
         Event event;
         Calendar eDateCal = Calendar.getInstance();
@@ -338,8 +529,7 @@ public class ExperimentHelper {
 
         // Validation for input parameters
         // Weather data check and try to get daily data
-        dailyData = WeatherHelper.getDailyData(data);
-        if (dailyData.isEmpty()) {
+        if (dailyData.size() == 0) {
             LOG.error("EMPTY DAILY WEATHER DATA.");
             return new HashMap<String, ArrayList<String>>();
         }
@@ -386,21 +576,23 @@ public class ExperimentHelper {
         }
 
         // Loop each window to try to find appropriate planting date
+        Diagnostics diag = Diagnostics.start(LOG, "getAutoFillPlantingDate");
         for (Window window : windows) {
             // Check first n days
             int last = Math.min(window.start + intDays, window.end);
             accRainAmt = 0;
             for (int j = window.start; j < last; j++) {
-                try {
-                    accRainAmt += Double.parseDouble(getValueOr(dailyData.get(j), "rain", "0"));
-                } catch (Exception e) {
+                diag.scanned();
+                if (!rainfall.isValid(j)) {
+                    diag.invalid();
                     continue;
                 }
+                accRainAmt += rainfall.get(j);
                 if (accRainAmt >= accRainAmtTotal) {
-                    LOG.debug("1: " + getValueOr(dailyData.get(j), "w_date", "") + " : " + accRainAmt + ", " + (accRainAmt >= accRainAmtTotal));
-                    //event.updateEvent("date", getValueOr(dailyData.get(j), "w_date", ""));
-                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", getValueOr(dailyData.get(j), "w_date", ""));
-                    pdates.add(getValueOr(dailyData.get(j), "w_date", ""));
+                    diag.count("found in first days");
+                    //event.updateEvent("date", dailyData.getDate(j));
+                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", dailyData.getDate(j));
+                    pdates.add(dailyData.getDate(j));
                     break;
                 }
             }
@@ -409,35 +601,141 @@ public class ExperimentHelper {
             }
             // Check following days
             for (int j = last; j <= window.end; j++) {
-                try {
-                    accRainAmt -= Double.parseDouble(getValueOr(dailyData.get(j - intDays), "rain", "0"));
-                    accRainAmt += Double.parseDouble(getValueOr(dailyData.get(j), "rain", "0"));
-                } catch (Exception e) {
+                diag.scanned();
+                // The amount which leaves the window is kept subtracted
+                // when the new day is invalid
+                if (!rainfall.isValid(j - intDays)) {
+                    diag.invalid();
                     continue;
                 }
+                accRainAmt -= rainfall.get(j - intDays);
+                if (!rainfall.isValid(j)) {
+                    diag.invalid();
+                    continue;
+                }
+                accRainAmt += rainfall.get(j);
                 if (accRainAmt >= accRainAmtTotal) {
-                    LOG.debug("2:" + getValueOr(dailyData.get(j), "w_date", "") + " : " + accRainAmt + ", " + (accRainAmt >= accRainAmtTotal));
-                    //event.updateEvent("date", getValueOr(dailyData.get(j), "w_date", ""));
-                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", getValueOr(dailyData.get(j), "w_date", ""));
-                    pdates.add(getValueOr(dailyData.get(j), "w_date", ""));
+                    diag.count("found in following days");
+                    //event.updateEvent("date", dailyData.getDate(j));
+                    //AcePathfinderUtil.insertValue((HashMap)data, "pdate", dailyData.getDate(j));
+                    pdates.add(dailyData.getDate(j));
                     break;
                 }
             }
             if (accRainAmt < accRainAmtTotal) {
                 String lastDay;
                 if (window.end >= dailyData.size()) {
-                    lastDay = getValueOr(dailyData.get(dailyData.size() - 1), "w_date", "");
+                    lastDay = dailyData.getDate(dailyData.size() - 1);
                 } else {
-                    lastDay = getValueOr(dailyData.get(window.end), "w_date", "");
+                    lastDay = dailyData.getDate(window.end);
                 }
                 LOG.error("Could not find an appropriate day to plant, using {}", lastDay);
+                diag.fallback();
                 pdates.add(lastDay);
             }
         }
+        diag.log();
         results.put("pdate", pdates);
         return results;
     }
 
+    /**
+     * Calculate the planting dates for a batch of experiments which share the
+     * weather station, same as
+     * {@link #getAutoPlantingDate(HashMap, RainfallIndex, String, String, String, String)}
+     * for each request. The rainfall and date indexes of the station are
+     * built once and shared by all the requests.
+     *
+     * @param rainfall The rainfall index of the station
+     * @param requests The experiments and the rules of planting window
+     *
+     * @return The results in the input order, an empty map for the request
+     * which is not valid
+     */
+    public static ArrayList<HashMap<String, ArrayList<String>>> getAutoPlantingDates(RainfallIndex rainfall, List<PlantingRequest> requests) {
+        ArrayList<HashMap<String, ArrayList<String>>> results = new ArrayList<HashMap<String, ArrayList<String>>>();
+        for (PlantingRequest request : requests) {
+            results.add(getAutoPlantingDate(rainfall, request));
+        }
+        return results;
+    }
+
+    /**
+     * Calculate the planting dates for a batch of experiments which share the
+     * weather station in parallel with a fixed thread pool, which is shut
+     * down when finished.
+     *
+     * @param rainfall The rainfall index of the station
+     * @param requests The experiments and the rules of planting window
+     * @param threads The number of threads, or 0 for the number of available
+     * processors
+     *
+     * @return The results in the input order, see
+     * {@link #getAutoPlantingDates(RainfallIndex, List, ExecutorService)}
+     */
+    public static ArrayList<HashMap<String, ArrayList<String>>> getAutoPlantingDates(RainfallIndex rainfall, List<PlantingRequest> requests, int threads) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            return getAutoPlantingDates(rainfall, requests, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Calculate the planting dates for a batch of experiments which share the
+     * weather station in parallel. Each request is calculated as one task of
+     * the executor, and a request which fails is logged without affecting the
+     * others. The index should be created by {@link RainfallIndex#of(HashMap)}
+     * or {@link RainfallIndex#of(DailyWeatherColumns)}, so it is not changed
+     * by the tasks. The executor is not shut down.
+     *
+     * @param rainfall The rainfall index of the station
+     * @param requests The experiments and the rules of planting window
+     * @param executor The executor to run the calculations
+     *
+     * @return The results in the input order, an empty map for the request
+     * which is not valid or failed; the rest are left out when interrupted
+     */
+    public static ArrayList<HashMap<String, ArrayList<String>>> getAutoPlantingDates(final RainfallIndex rainfall, List<PlantingRequest> requests, ExecutorService executor) {
+        ArrayList<HashMap<String, ArrayList<String>>> results = new ArrayList<HashMap<String, ArrayList<String>>>();
+        ArrayList<Future<HashMap<String, ArrayList<String>>>> futures = new ArrayList<Future<HashMap<String, ArrayList<String>>>>();
+        for (final PlantingRequest request : requests) {
+            futures.add(executor.submit(new Callable<HashMap<String, ArrayList<String>>>() {
+                @Override
+                public HashMap<String, ArrayList<String>> call() {
+                    return getAutoPlantingDate(rainfall, request);
+                }
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                LOG.error("Failed to calculate planting date [" + requests.get(i) + "]", e.getCause());
+                results.add(new HashMap<String, ArrayList<String>>());
+            } catch (CancellationException e) {
+                LOG.error("Calculation of planting date [{}] is cancelled", requests.get(i));
+                results.add(new HashMap<String, ArrayList<String>>());
+            } catch (InterruptedException e) {
+                LOG.warn("Interrupted, the rest of {} planting requests are skipped", futures.size() - i);
+                for (Future future : futures) {
+                    future.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return results;
+    }
+
+    private static HashMap<String, ArrayList<String>> getAutoPlantingDate(RainfallIndex rainfall, PlantingRequest request) {
+        return getAutoPlantingDate(request.getData(), rainfall, request.getEDate(), request.getLDate(), request.getRain(), request.getDays());
+    }
+
     /**
      * Store a start index and end index of daily data array for a window
      */
@@ -445,6 +743,7 @@ public class ExperimentHelper {
 
         public int start;
         public int end;
+        public String lastDay;
 
         public Window(int start, int end) {
             this.start = start;
@@ -523,47 +822,26 @@ public class ExperimentHelper {
      * @return The index for the expected date, if no matching data, will return
      * the size of array
      */
-    private static int getDailyRecIndex(ArrayList<Map> dailyData, String findDate, int start, int expectedDiff) {
-        String date;
-        if (start + expectedDiff < dailyData.size()) {
-            date = getValueOr(dailyData.get(start + expectedDiff), "w_date", "");
-            if (isSameDate(date, findDate, "-")) {
-                return start + expectedDiff;
-            } else {
-                expectedDiff++;
-                date = getValueOr(dailyData.get(start + expectedDiff), "w_date", "");
-                if (isSameDate(date, findDate, "-")) {
-                    return start + expectedDiff;
-                }
-            }
-        }
-
-        for (int j = start; j < dailyData.size(); j++) {
-            date = getValueOr(dailyData.get(j), "w_date", "");
-            if (isSameDate(date, findDate, "-")) {
-                return j;
+    private static int getDailyRecIndex(DailySeries dailyData, String findDate, int start, int expectedDiff) {
+        int expected = start + expectedDiff;
+        if (expected < dailyData.size()) {
+            if (isSameDate(dailyData.getDate(expected), findDate, "-")) {
+                return expected;
+            } else if (expected + 1 < dailyData.size() && isSameDate(dailyData.getDate(expected + 1), findDate, "-")) {
+                return expected + 1;
             }
         }
-        return dailyData.size();
+        return dailyData.getDateIndex().find(findDate.replace("-", ""), start);
     }
 
-    private static int getStartYearIndex(ArrayList<Map> dailyData, int startYear) {
+    private static int getStartYearIndex(DailySeries dailyData, int startYear) {
         // If no starting year is provided, the multiple years will begin on the first available weather year.
         int startYearIndex;
         if (startYear == -99) {
             LOG.warn("SC_YEAR is not valid in the data set, will using first year of weather data as start year");
             startYearIndex = 0;
         } else {
-            startYearIndex = dailyData.size();
-            for (int i = 0; i < dailyData.size(); i++) {
-                String w_date = getValueOr(dailyData.get(i), "w_date", "");
-                if (w_date.equals(startYear + "0101")) {
-                    startYearIndex = i;
-                    break;
-                } else if (w_date.endsWith("0101")) {
-                    i += 364;
-                }
-            }
+            startYearIndex = dailyData.getDateIndex().findYearStart(startYear + "0101");
         }
         return startYearIndex;
     }
@@ -1265,56 +1543,147 @@ public class ExperimentHelper {
     }
     
     public static ArrayList<HashMap<String, String>> getAutoIrrigationEvent(HashMap data, String irrNum, String baseTemp, String[] gddArr, String[] irvalArr) {
+        return getAutoIrrigationEvent(data, DailySeries.of(WeatherHelper.getDailyData(data)), irrNum, new GddAccumulator(DoubleFunctions.parse(baseTemp)), gddArr, irvalArr);
+    }
+
+    /**
+     * Generate the irrigation events by the accumulated GDD after planting,
+     * same as {@link #getAutoIrrigationEvent(HashMap, String, String, String[], String[])}
+     * but the daily weather data is read from the columnar view.
+     *
+     * @param data The HashMap of experiment
+     * @param columns The columnar daily weather data of the station
+     * @param irrNum The number of irrigation events
+     * @param baseTemp The base temperature for GDD
+     * @param gddArr The target GDD for each irrigation event
+     * @param irvalArr The irrigation amount for each irrigation event
+     *
+     * @return The list of generated irrigation events
+     */
+    public static ArrayList<HashMap<String, String>> getAutoIrrigationEvent(HashMap data, DailyWeatherColumns columns, String irrNum, String baseTemp, String[] gddArr, String[] irvalArr) {
+        return getAutoIrrigationEvent(data, DailySeries.of(columns), irrNum, new GddAccumulator(DoubleFunctions.parse(baseTemp)), gddArr, irvalArr);
+    }
+
+    /**
+     * Generate the irrigation events by the accumulated GDD after planting,
+     * same as {@link #getAutoIrrigationEvent(HashMap, String, String, String[], String[])}
+     * but the daily GDD is calculated by the given method and the daily
+     * weather data is read from the columnar view.
+     *
+     * @param data The HashMap of experiment
+     * @param columns The columnar daily weather data of the station
+     * @param irrNum The number of irrigation events
+     * @param method The method of daily GDD
+     * @param baseTemp The base temperature for GDD
+     * @param cutoffTemp The cutoff temperature for GDD, or blank for no cutoff
+     * @param gddArr The target GDD for each irrigation event
+     * @param irvalArr The irrigation amount for each irrigation event
+     *
+     * @return The list of generated irrigation events
+     */
+    public static ArrayList<HashMap<String, String>> getAutoIrrigationEvent(HashMap data, DailyWeatherColumns columns, String irrNum, GddMethod method, String baseTemp, String cutoffTemp, String[] gddArr, String[] irvalArr) {
+        if (method == null) {
+            LOG.error("The GDD method is not given");
+            return new ArrayList<HashMap<String, String>>();
+        }
+        GddAccumulator gdd = new GddAccumulator(method, DoubleFunctions.parse(baseTemp), DoubleFunctions.parse(cutoffTemp));
+        return getAutoIrrigationEvent(data, DailySeries.of(columns), irrNum, gdd, gddArr, irvalArr);
+    }
+
+    /**
+     * Generate the irrigation events by the accumulated GDD after planting,
+     * same as {@link #getAutoIrrigationEvent(HashMap, String, String, String[], String[])}
+     * but the daily weather records are read from the source one by one. The
+     * source is not closed.
+     *
+     * @param data The HashMap of experiment
+     * @param source The daily weather source of the station
+     * @param irrNum The number of irrigation events
+     * @param baseTemp The base temperature for GDD
+     * @param gddArr The target GDD for each irrigation event
+     * @param irvalArr The irrigation amount for each irrigation event
+     *
+     * @return The list of generated irrigation events
+     * @throws IOException if the daily records could not be read
+     */
+    public static ArrayList<HashMap<String, String>> getAutoIrrigationEvent(HashMap data, DailyWeatherSource source, String irrNum, String baseTemp, String[] gddArr, String[] irvalArr) throws IOException {
         ArrayList<HashMap<String, String>> irrEvts = new ArrayList();
-        ArrayList<HashMap<String, String>> dailyArr = WeatherHelper.getDailyData(data);
-        if (dailyArr.isEmpty()) {
+        if (!source.hasNext()) {
             LOG.error("The weather data for {} is missing", getValueOr(data, "exname", "unknown experiment"));
             return irrEvts;
         }
-        
-        int iIrrNum;
-        try {
-            iIrrNum = numericStringToBigInteger(irrNum).intValue();
-        } catch (Exception e) {
-            LOG.error("The number for irrigation event is invalid");
+        String pdate = getIrrigationPlantingDate(data, irrNum, gddArr, irvalArr);
+        if (pdate == null) {
             return irrEvts;
         }
-        if (gddArr.length != iIrrNum || irvalArr.length != iIrrNum) {
-            LOG.error("There is not enough pairs of GDD and irrigation amount for {} irrigation", iIrrNum);
-            return irrEvts;
-        }
-        for (String gdd : gddArr) {
-            if (gdd == null || gdd.equals("") || !gdd.matches("-?\\d+(.\\d*)?")) {
-                LOG.error("Invalid input GDD value {} has been deceted", gdd);
-                return irrEvts;
+
+        // The planting date is expected at the index by the first date, or
+        // given as the pdate of the daily record
+        long pdateMis = convertFromAgmipDateString(pdate).getTime();
+        int startIdx = -1;
+        GddCounter byDate = null;
+        GddCounter byPdate = null;
+        String lastDate = "";
+        Diagnostics diag = Diagnostics.start(LOG, "getAutoIrrigationEvent");
+        for (int i = 0; source.hasNext(); i++) {
+            Map<String, String> daily = source.next();
+            String date = getValueOr(daily, "w_date", "");
+            if (i == 0) {
+                startIdx = (int) Math.round((pdateMis - convertFromAgmipDateString(date).getTime()) / 86400000.0);
             }
-        }
-        for (String irval : irvalArr) {
-            if (irval == null || irval.equals("") || !irval.matches("-?\\d+(.\\d*)?")) {
-                LOG.error("Invalid input irrigation amount value {} has been deceted", irval);
-                return irrEvts;
+            if (i == startIdx && pdate.equals(date)) {
+                byDate = new GddCounter(new GddAccumulator(DoubleFunctions.parse(baseTemp)), gddArr, irvalArr, diag);
+                byPdate = null;
+            } else if (byDate == null && byPdate == null && pdate.equals(daily.get("pdate"))) {
+                byPdate = new GddCounter(new GddAccumulator(DoubleFunctions.parse(baseTemp)), gddArr, irvalArr, diag);
+            }
+            if (byDate != null) {
+                if (byDate.add(date, daily.get("tmax"), daily.get("tmin"), null)) {
+                    diag.log();
+                    return byDate.irrEvts;
+                }
+            } else if (byPdate != null) {
+                byPdate.add(date, daily.get("tmax"), daily.get("tmin"), null);
             }
+            lastDate = date;
         }
-        
-        Event event = new Event(getBucket(data, "management").getDataList(), "planting");
-        String pdate = getValueOr(event.getCurrentEvent(), "date", "");
-        if (pdate.equals("")) {
-            LOG.error("Planting event is not valid in the data set for calculating irrigation date");
+        diag.log();
+
+        if (byDate != null) {
+            return byDate.irrEvts;
+        } else if (pdateMis > convertFromAgmipDateString(lastDate).getTime()) {
+            LOG.error("Not enough weather daily data for calculating irrigation date based plnating date of {}", pdate);
+            return irrEvts;
+        } else if (byPdate == null) {
+            LOG.error("Could not find planting date ({}) in the weather daily date", pdate);
+            return irrEvts;
+        }
+        return byPdate.irrEvts;
+    }
+
+    private static ArrayList<HashMap<String, String>> getAutoIrrigationEvent(HashMap data, DailySeries dailyArr, String irrNum, GddAccumulator gdd, String[] gddArr, String[] irvalArr) {
+        ArrayList<HashMap<String, String>> irrEvts = new ArrayList();
+        if (dailyArr.size() == 0) {
+            LOG.error("The weather data for {} is missing", getValueOr(data, "exname", "unknown experiment"));
+            return irrEvts;
+        }
+        String pdate = getIrrigationPlantingDate(data, irrNum, gddArr, irvalArr);
+        if (pdate == null) {
             return irrEvts;
         }
         
         long pdateMis = convertFromAgmipDateString(pdate).getTime();
-        String fstDay = getValueOr(dailyArr.get(0), "w_date", "");
+        String fstDay = dailyArr.getDate(0);
         long fstDayMis = convertFromAgmipDateString(fstDay).getTime();
         int  startIdx = (int) Math.round((pdateMis - fstDayMis) / 86400000.0);
-        if (startIdx >= dailyArr.size() || !pdate.equals(getValueOr(dailyArr.get(startIdx), "w_date", ""))) {
-            if (pdateMis > convertFromAgmipDateString(getValueOr(dailyArr.get(dailyArr.size() - 1), "w_date", "")).getTime()) {
+        if (startIdx >= dailyArr.size() || !pdate.equals(dailyArr.getDate(startIdx))) {
+            if (pdateMis > convertFromAgmipDateString(dailyArr.getDate(dailyArr.size() - 1)).getTime()) {
                 LOG.error("Not enough weather daily data for calculating irrigation date based plnating date of {}", pdate);
                 return irrEvts;
             } else {
                 boolean isExist = false;
                 for (int i = 0; i < dailyArr.size(); i++) {
-                    if (pdate.equals(getValueOr(dailyArr.get(i), "pdate", ""))) {
+                    if (pdate.equals(dailyArr.get(i, "pdate"))) {
                         startIdx = i;
                         isExist = true;
                         break;
@@ -1327,38 +1696,112 @@ public class ExperimentHelper {
             }
         }
         
-        String calGdd = "0";
-        for (int i = startIdx, j = 0; i < dailyArr.size(); i++) {
-            HashMap<String, String> daily = dailyArr.get(i);
-            String date = getValueOr(daily, "w_date", "");
-            String tavg = average(getValueOr(daily, "tmax", ""), getValueOr(daily, "tmin", ""));
-            if (tavg == null) {
-                LOG.warn("Invalid TMAX/TMIN detected on {}", date);
-                continue;
+        Diagnostics diag = Diagnostics.start(LOG, "getAutoIrrigationEvent");
+        GddCounter counter = new GddCounter(gdd, gddArr, irvalArr, diag);
+        for (int i = startIdx; i < dailyArr.size(); i++) {
+            String nextTmin = i + 1 < dailyArr.size() ? dailyArr.get(i + 1, "tmin") : null;
+            if (counter.add(dailyArr.getDate(i), dailyArr.get(i, "tmax"), dailyArr.get(i, "tmin"), nextTmin)) {
+                break;
             }
-            String gdd = substract(tavg, baseTemp);
-            if (gdd != null && compare(gdd, "0", CompareMode.GREATER)) {
-                calGdd = sum(calGdd, gdd);
+        }
+        diag.log();
+        
+        return counter.irrEvts;
+    }
+
+    /**
+     * Check the inputs for the auto irrigation events
+     *
+     * @return The planting date, or {@code null} if the inputs are invalid
+     */
+    private static String getIrrigationPlantingDate(HashMap data, String irrNum, String[] gddArr, String[] irvalArr) {
+        int iIrrNum;
+        try {
+            iIrrNum = numericStringToBigInteger(irrNum).intValue();
+        } catch (Exception e) {
+            LOG.error("The number for irrigation event is invalid");
+            return null;
+        }
+        if (gddArr.length != iIrrNum || irvalArr.length != iIrrNum) {
+            LOG.error("There is not enough pairs of GDD and irrigation amount for {} irrigation", iIrrNum);
+            return null;
+        }
+        for (String gdd : gddArr) {
+            if (gdd == null || gdd.equals("") || !NUMBER_PATTERN.matcher(gdd).matches()) {
+                LOG.error("Invalid input GDD value {} has been deceted", gdd);
+                return null;
+            }
+        }
+        for (String irval : irvalArr) {
+            if (irval == null || irval.equals("") || !NUMBER_PATTERN.matcher(irval).matches()) {
+                LOG.error("Invalid input irrigation amount value {} has been deceted", irval);
+                return null;
+            }
+        }
+        
+        Event event = new Event(getBucket(data, "management").getDataList(), "planting");
+        String pdate = getValueOr(event.getCurrentEvent(), "date", "");
+        if (pdate.equals("")) {
+            LOG.error("Planting event is not valid in the data set for calculating irrigation date");
+            return null;
+        }
+        return pdate;
+    }
+
+    /**
+     * Accumulate the GDD day by day from the planting date, and generate the
+     * irrigation event when the target GDD is reached
+     */
+    private static class GddCounter {
+
+        private final GddAccumulator gdd;
+        private final double[] targets;
+        private final String[] irvalArr;
+        private final Diagnostics diag;
+        private final ArrayList<HashMap<String, String>> irrEvts = new ArrayList();
+        private int j = 0;
+
+        GddCounter(GddAccumulator gdd, String[] gddArr, String[] irvalArr, Diagnostics diag) {
+            this.gdd = gdd;
+            this.targets = DoubleFunctions.parse(gddArr);
+            this.irvalArr = irvalArr;
+            this.diag = diag;
+            gdd.reset();
+        }
+
+        /**
+         * Add the daily temperature
+         *
+         * @param nextTmin The TMIN of the next day, only used by the double
+         * sine method, or {@code null} if not available
+         * @return True if all the irrigation events have been generated
+         */
+        boolean add(String date, String tmax, String tmin, String nextTmin) {
+            if (j >= targets.length) {
+                return true;
+            }
+            diag.scanned();
+            double max = DoubleFunctions.parse(tmax);
+            double min = DoubleFunctions.parse(tmin);
+            if (Double.isNaN(max) || Double.isNaN(min)) {
+                LOG.warn("Invalid TMAX/TMIN detected on {}", date);
+                diag.invalid();
+                return false;
             }
-            if (compare(calGdd, gddArr[j], CompareMode.NOTLESS)) {
-                LOG.debug(date + " TAVG: {}\t IcrGDD: {}\t GDD: " + calGdd + "\t Target :" + gddArr[j] + " [Picked up]", tavg, substract(tavg, baseTemp));
+            gdd.add(gdd.getDaily(max, min, DoubleFunctions.parse(nextTmin)));
+            if (gdd.getSum() >= targets[j]) {
+                diag.count("irrigation events");
                 HashMap irrEvt = new HashMap();
                 irrEvt.put("event", "irrigation");
                 irrEvt.put("date", date);
                 irrEvt.put("irval", irvalArr[j]);
                 irrEvt.put("irop", "IR001");
                 irrEvts.add(irrEvt);
-                calGdd = "0";
+                gdd.reset();
                 j++;
-                if (j >= gddArr.length) {
-                    break;
-                }
-            } else {
-                LOG.debug(date + " TAVG: {}\t IcrGDD: {}\t GDD: " + calGdd + "\t Target :" + gddArr[j], tavg, substract(tavg, baseTemp));
             }
+            return j >= targets.length;
         }
-        
-        return irrEvts;
     }
     
     public static void setCTWNAdjustments(HashMap data, String co2, String tmax, String tmin, String rain, String fenTot, String climId) {
@@ -0,0 +1,187 @@
+package org.agmip.functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import org.agmip.common.DoubleFunctions;
+import org.agmip.functions.DailyWeatherColumns.Column;
+
+/**
+ * Accumulator of the daily growing degree days (GDD) with {@code double}, for
+ * the events triggered by the thermal time, like the irrigation or the
+ * phenological stages.
+ *
+ * The daily GDD and the sum are rounded to 10 decimals, so the daily
+ * temperatures, which are decimal numbers with a few digits, are added
+ * without the binary error and the targets are reached on the same day as
+ * the decimal arithmetic of {@link org.agmip.common.Functions}. The sum
+ * should be less than 900000 degree days.
+ *
+ * The accumulator is not thread-safe.
+ */
+public class GddAccumulator {
+
+    private static final int SCALE = 10;
+    private final GddMethod method;
+    private final double base;
+    private final double cutoff;
+    private double sum;
+
+    /**
+     * Create the accumulator of the {@code AVERAGE} method
+     *
+     * @param base The base temperature (°C)
+     */
+    public GddAccumulator(double base) {
+        this(GddMethod.AVERAGE, base, Double.NaN);
+    }
+
+    /**
+     * Create the accumulator
+     *
+     * @param method The method of daily GDD
+     * @param base The base temperature (°C)
+     * @param cutoff The cutoff temperature (°C), or {@code NaN} for no
+     * cutoff
+     */
+    public GddAccumulator(GddMethod method, double base, double cutoff) {
+        this.method = method;
+        this.base = base;
+        this.cutoff = Double.isNaN(cutoff) ? Double.POSITIVE_INFINITY : cutoff;
+    }
+
+    /**
+     * Get the GDD of the day
+     *
+     * @param tmax The maximum temperature of the day (°C)
+     * @param tmin The minimum temperature of the day (°C)
+     * @param nextTmin The minimum temperature of the next day (°C), only used
+     * by {@code DOUBLE_SINE}; {@code NaN} to use the one of the day
+     * @return The GDD, or {@code NaN} if any temperature is not valid
+     */
+    public double getDaily(double tmax, double tmin, double nextTmin) {
+        double ret;
+        switch (method) {
+            case BASE_CUTOFF:
+                ret = (limit(tmax) + limit(tmin)) / 2 - base;
+                break;
+            case SINGLE_SINE:
+                ret = sine(tmin, tmax);
+                break;
+            case DOUBLE_SINE:
+                ret = (sine(tmin, tmax) + sine(Double.isNaN(nextTmin) ? tmin : nextTmin, tmax)) / 2;
+                break;
+            default:
+                ret = (tmax + tmin) / 2 - base;
+        }
+        if (Double.isNaN(ret)) {
+            return ret;
+        }
+        return Math.max(DoubleFunctions.roundHalfUp(ret, SCALE), 0);
+    }
+
+    private double limit(double t) {
+        return Math.min(Math.max(t, base), cutoff);
+    }
+
+    /**
+     * The area above the base temperature and under the sine curve through
+     * the minimum and maximum temperatures, limited by the cutoff
+     */
+    private double sine(double tmin, double tmax) {
+        if (Double.isNaN(tmin) || Double.isNaN(tmax) || Double.isNaN(base)) {
+            return Double.NaN;
+        } else if (tmin >= cutoff) {
+            return cutoff - base;
+        } else if (tmax <= base) {
+            return 0;
+        } else if (tmax <= tmin) {
+            return Math.min(tmax, cutoff) - base;
+        }
+        double mean = (tmax + tmin) / 2;
+        double amp = (tmax - tmin) / 2;
+        double theta1 = tmin < base ? Math.asin((base - mean) / amp) : -Math.PI / 2;
+        double theta2 = tmax > cutoff ? Math.asin((cutoff - mean) / amp) : Math.PI / 2;
+        double ret = (mean - base) * (theta2 - theta1) + amp * (Math.cos(theta1) - Math.cos(theta2));
+        if (tmax > cutoff) {
+            ret += (cutoff - base) * (Math.PI / 2 - theta2);
+        }
+        return ret / Math.PI;
+    }
+
+    /**
+     * Add the GDD of the day to the sum
+     *
+     * @param gdd The GDD of the day, {@code NaN} is ignored
+     */
+    public void add(double gdd) {
+        if (!Double.isNaN(gdd)) {
+            sum = DoubleFunctions.roundHalfUp(sum + gdd, SCALE);
+        }
+    }
+
+    /**
+     * Get the accumulated GDD
+     *
+     * @return The sum
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Clear the accumulated GDD
+     */
+    public void reset() {
+        sum = 0;
+    }
+
+    /**
+     * Find the dates when the accumulated GDD reaches each target, each
+     * target is counted from the day after the previous one is reached. The
+     * days with invalid TMAX or TMIN are skipped.
+     *
+     * @param columns The columnar daily weather data
+     * @param start The index of the first day, e.g. the planting date
+     * @param targets The GDD of each target
+     * @return The dates of the targets which are reached
+     */
+    public ArrayList<String> getTargetDates(DailyWeatherColumns columns, int start, double... targets) {
+        ArrayList<String> dates = new ArrayList<String>();
+        Column tmax = columns.getColumn("tmax");
+        Column tmin = columns.getColumn("tmin");
+        reset();
+        int j = 0;
+        for (int i = Math.max(start, 0); i < columns.size() && j < targets.length; i++) {
+            double max = value(tmax, i);
+            double min = value(tmin, i);
+            if (Double.isNaN(max) || Double.isNaN(min)) {
+                continue;
+            }
+            add(getDaily(max, min, value(tmin, i + 1)));
+            if (sum >= targets[j]) {
+                dates.add(columns.getDate(i));
+                reset();
+                j++;
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Get the daily value, the number which is not plain is parsed from the
+     * text
+     *
+     * @return The value, or {@code NaN} if missing or invalid
+     */
+    private static double value(Column column, int i) {
+        if (column == null || i >= column.size() || !column.isPresent(i)) {
+            return Double.NaN;
+        }
+        double ret = column.getDouble(i);
+        if (Double.isNaN(ret)) {
+            BigDecimal decimal = column.getDecimal(i);
+            ret = decimal == null ? Double.NaN : decimal.doubleValue();
+        }
+        return ret;
+    }
+}
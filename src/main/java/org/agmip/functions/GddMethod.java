@@ -0,0 +1,30 @@
+package org.agmip.functions;
+
+/**
+ * The methods of the daily growing degree days (GDD) calculation, see
+ * {@link GddAccumulator}.
+ */
+public enum GddMethod {
+
+    /**
+     * The average of TMAX and TMIN minus the base temperature, 0 when
+     * negative, the cutoff temperature is not used
+     */
+    AVERAGE,
+    /**
+     * Same as {@code AVERAGE}, but TMAX and TMIN are limited to the range
+     * between the base and cutoff temperatures first
+     */
+    BASE_CUTOFF,
+    /**
+     * Single sine curve through TMIN and TMAX of the day, with horizontal
+     * cutoff at the base and cutoff temperatures
+     */
+    SINGLE_SINE,
+    /**
+     * Double sine curve, the first half day through TMIN and TMAX of the day
+     * and the second half day through TMAX and TMIN of the next day, with
+     * horizontal cutoff
+     */
+    DOUBLE_SINE
+}
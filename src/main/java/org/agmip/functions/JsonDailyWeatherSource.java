@@ -0,0 +1,242 @@
+package org.agmip.functions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * {@link DailyWeatherSource} which reads the daily weather records from the
+ * JSON file with a streaming parser, so only one record is held in memory at
+ * a time.
+ *
+ * The weather station could be the root object of the file, the
+ * {@code weather} object of an experiment, or one of the {@code weathers}
+ * array of an ACE data package. The file is read twice, first for the station
+ * level values and then for the daily records, since the station level values
+ * could be placed after the daily records.
+ */
+public class JsonDailyWeatherSource implements DailyWeatherSource {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int ROOT = 0;
+    private static final int WEATHER = 1;
+    private static final int WEATHERS = 2;
+    private final Map<String, String> stationData;
+    private JsonParser parser;
+    private HashMap<String, String> template;
+    private HashMap<String, String> nextRecord;
+
+    /**
+     * Create the source for the weather station in the file
+     *
+     * @param file The JSON file
+     * @throws IOException if the file could not be read or parsed
+     */
+    public JsonDailyWeatherSource(File file) throws IOException {
+        this(file, 0);
+    }
+
+    /**
+     * Create the source for the N-th weather station of the {@code weathers}
+     * array in the file
+     *
+     * @param file The JSON file
+     * @param index The index in the {@code weathers} array, ignored if the
+     * file does not contain the array
+     * @throws IOException if the file could not be read or parsed
+     */
+    public JsonDailyWeatherSource(File file, int index) throws IOException {
+        HashMap<String, String> rootValues = new HashMap<String, String>();
+        HashMap<String, String> weatherValues = null;
+        HashMap<String, String> weathersValues = null;
+        boolean hasDaily = false;
+
+        // Read the station level values
+        JsonParser p = FACTORY.createJsonParser(file);
+        try {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("The root of " + file + " is not a JSON object");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken token = p.nextToken();
+                if (name.equals("weathers") && token == JsonToken.START_ARRAY) {
+                    int i = 0;
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        if (i++ == index && token == JsonToken.START_OBJECT) {
+                            weathersValues = readValues(p);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else if (name.equals("weather") && token == JsonToken.START_OBJECT) {
+                    weatherValues = readValues(p);
+                } else if (token.isScalarValue()) {
+                    if (token != JsonToken.VALUE_NULL) {
+                        rootValues.put(name, p.getText());
+                    }
+                } else {
+                    hasDaily |= name.equals("dailyWeather") && token == JsonToken.START_ARRAY;
+                    p.skipChildren();
+                }
+            }
+        } finally {
+            p.close();
+        }
+
+        // Move to the daily records
+        int layout;
+        if (weathersValues != null) {
+            layout = WEATHERS;
+            stationData = Collections.unmodifiableMap(weathersValues);
+        } else if (weatherValues != null) {
+            layout = WEATHER;
+            stationData = Collections.unmodifiableMap(weatherValues);
+        } else {
+            layout = ROOT;
+            stationData = Collections.unmodifiableMap(rootValues);
+        }
+        if (layout == ROOT && !hasDaily) {
+            return;
+        }
+        parser = FACTORY.createJsonParser(file);
+        try {
+            parser.nextToken();
+            boolean found;
+            if (layout == WEATHERS) {
+                found = findField(parser, "weathers") && findElement(parser, index) && findField(parser, "dailyWeather");
+            } else if (layout == WEATHER) {
+                found = findField(parser, "weather") && findField(parser, "dailyWeather");
+            } else {
+                found = findField(parser, "dailyWeather");
+            }
+            if (!found || parser.getCurrentToken() != JsonToken.START_ARRAY) {
+                close();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the scalar values of the object, the nested objects and arrays are
+     * skipped
+     */
+    private static HashMap<String, String> readValues(JsonParser p) throws IOException {
+        HashMap<String, String> values = new HashMap<String, String>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            if (!token.isScalarValue()) {
+                p.skipChildren();
+            } else if (token != JsonToken.VALUE_NULL) {
+                values.put(name, p.getText());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Move from the start of the object to the value of the field
+     */
+    private static boolean findField(JsonParser p, String field) throws IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            if (name.equals(field)) {
+                return true;
+            }
+            p.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Move from the start of the array to the element
+     */
+    private static boolean findElement(JsonParser p, int index) throws IOException {
+        if (p.getCurrentToken() != JsonToken.START_ARRAY) {
+            return false;
+        }
+        for (int i = 0; p.nextToken() != JsonToken.END_ARRAY; i++) {
+            if (i == index) {
+                return true;
+            }
+            p.skipChildren();
+        }
+        return false;
+    }
+
+    @Override
+    public Map<String, String> getStationData() {
+        return stationData;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (nextRecord != null) {
+            return true;
+        } else if (parser == null) {
+            return false;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                nextRecord = toDataListRecord(readValues(parser));
+                return true;
+            }
+            parser.skipChildren();
+        }
+        close();
+        return false;
+    }
+
+    /**
+     * Fill the record in the same way as {@code BucketEntry.getDataList()}
+     */
+    private HashMap<String, String> toDataListRecord(HashMap<String, String> raw) {
+        if (template == null) {
+            template = raw;
+            return raw;
+        }
+        HashMap<String, String> ret = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : template.entrySet()) {
+            String value = raw.get(entry.getKey());
+            if (value == null) {
+                ret.put(entry.getKey(), entry.getValue());
+            } else if (!value.equals("")) {
+                ret.put(entry.getKey(), value);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        HashMap<String, String> ret = nextRecord;
+        nextRecord = null;
+        return ret;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            JsonParser p = parser;
+            parser = null;
+            p.close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link DailyWeatherSource} over the daily weather data which is already
+ * loaded in the data set.
+ */
+public class MapDailyWeatherSource implements DailyWeatherSource {
+
+    private final Map<String, String> stationData;
+    private final ArrayList<HashMap<String, String>> dailyArr;
+    private int next = 0;
+
+    /**
+     * Create the source over the weather data of the data set
+     *
+     * @param data The data set which contains weather data, or the weather
+     * data itself
+     */
+    public MapDailyWeatherSource(HashMap data) {
+        HashMap<String, String> values = new HashMap<String, String>();
+        Map wthData = WeatherHelper.getWthData(data);
+        for (Object key : wthData.keySet()) {
+            Object value = wthData.get(key);
+            if (value instanceof String) {
+                values.put(key.toString(), (String) value);
+            }
+        }
+        stationData = Collections.unmodifiableMap(values);
+        dailyArr = WeatherHelper.getDailyData(data);
+    }
+
+    @Override
+    public Map<String, String> getStationData() {
+        return stationData;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next < dailyArr.size();
+    }
+
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return dailyArr.get(next++);
+    }
+
+    @Override
+    public void close() {
+        next = dailyArr.size();
+    }
+}
@@ -1,6 +1,7 @@
 package org.agmip.functions;
 
 import java.util.HashMap;
+import org.agmip.common.DoubleFunctions;
 import static org.agmip.common.Functions.*;
 import org.agmip.common.Functions.CompareMode;
 import static org.agmip.util.MapUtil.*;
@@ -13,12 +14,20 @@ import org.slf4j.LoggerFactory;
  * function call by reflection. All calcXXX method is used for implementing the
  * equation from corresponding paper.
  *
+ * The getXXX methods evaluate the equations with {@code double} and only
+ * convert the inputs and the rounded result from and to text. A layer is
+ * calculated by the calcXXX methods instead when one of its inputs is not a
+ * plain number in range, or when the result is too close to the rounding
+ * boundary, so the results are the same as the exact decimal equations.
+ *
  * @author Meng Zhang
  */
 public class PTSaxton2006 { //implements PTCalculatorDOMEIF {
 
     private static final Logger LOG = LoggerFactory.getLogger(PTSaxton2006.class);
     private static final String CONST_LN1500_LN33 = substract(log("1500"), log("33"));
+    private static final double LN1500_LN33 = Math.log(1500) - Math.log(33);
+    private static final double BOUNDARY = 1e-6;
 
     /**
      * For calculating SLLL
@@ -30,6 +39,10 @@ public class PTSaxton2006 { //implements PTCalculatorDOMEIF {
      */
     public static String getSLLL(String[] soilParas) {
         if (soilParas != null && soilParas.length >= 3) {
+            double ret = moisture1500Kpa(pct(soilParas[0]), pct(soilParas[1]), pct(soilParas[2])) / 100;
+            if (!DoubleFunctions.isNearHalfWay(ret, 3, BOUNDARY)) {
+                return DoubleFunctions.round(ret, 3);
+            }
             return divide(calcMoisture1500Kpa(soilParas[0], soilParas[1], soilParas[2]), "100", 3);
         } else {
             return null;
@@ -46,6 +59,10 @@ public class PTSaxton2006 { //implements PTCalculatorDOMEIF {
      */
     public static String getSLDUL(String[] soilParas) {
         if (soilParas != null && soilParas.length >= 3) {
+            double ret = moisture33Kpa(pct(soilParas[0]), pct(soilParas[1]), pct(soilParas[2])) / 100;
+            if (!DoubleFunctions.isNearHalfWay(ret, 3, BOUNDARY)) {
+                return DoubleFunctions.round(ret, 3);
+            }
             return divide(calcMoisture33Kpa(soilParas[0], soilParas[1], soilParas[2]), "100", 3);
         } else {
             return null;
@@ -62,6 +79,10 @@ public class PTSaxton2006 { //implements PTCalculatorDOMEIF {
      */
     public static String getSLSAT(String[] soilParas) {
         if (soilParas != null && soilParas.length >= 3) {
+            double ret = saturatedMoisture(pct(soilParas[0]), pct(soilParas[1]), pct(soilParas[2])) / 100;
+            if (!DoubleFunctions.isNearHalfWay(ret, 3, BOUNDARY)) {
+                return DoubleFunctions.round(ret, 3);
+            }
             return divide(calcSaturatedMoisture(soilParas[0], soilParas[1], soilParas[2]), "100", 3);
         } else {
             return null;
@@ -79,9 +100,20 @@ public class PTSaxton2006 { //implements PTCalculatorDOMEIF {
      */
     public static String getSKSAT(String[] soilParas) {
         if (soilParas != null && soilParas.length >= 3) {
+            double sand = pct(soilParas[0]);
+            double clay = pct(soilParas[1]);
+            double om = pct(soilParas[2]);
             if (soilParas.length >= 4) {
+                double ret = satBulk(sand, clay, om, DoubleFunctions.parse(soilParas[3]) / 100) / 10;
+                if (!DoubleFunctions.isNearHalfWay(ret, 3, BOUNDARY)) {
+                    return DoubleFunctions.round(ret, 3);
+                }
                 return divide(calcSatBulk(soilParas[0], soilParas[1], soilParas[2], divide(soilParas[3], "100")), "10", 3);
             } else {
+                double ret = satMatric(sand, clay, om) / 10;
+                if (!DoubleFunctions.isNearHalfWay(ret, 3, BOUNDARY)) {
+                    return DoubleFunctions.round(ret, 3);
+                }
                 return divide(calcSatMatric(soilParas[0], soilParas[1], soilParas[2]), "10", 3);
             }
         } else {
@@ -100,9 +132,20 @@ public class PTSaxton2006 { //implements PTCalculatorDOMEIF {
      */
     public static String getSLBDM(String[] soilParas) {
         if (soilParas != null && soilParas.length >= 3) {
+            double sand = pct(soilParas[0]);
+            double clay = pct(soilParas[1]);
+            double om = pct(soilParas[2]);
             if (soilParas.length >= 4) {
+                double ret = gravePlusDensity(sand, clay, om, DoubleFunctions.parse(soilParas[3]) / 100);
+                if (!DoubleFunctions.isNearHalfWay(ret, 2, BOUNDARY)) {
+                    return DoubleFunctions.round(ret, 2);
+                }
                 return round(calcGravePlusDensity(soilParas[0], soilParas[1], soilParas[2], divide(soilParas[3], "100")), 2);
             } else {
+                double ret = normalDensity(sand, clay, om);
+                if (!DoubleFunctions.isNearHalfWay(ret, 2, BOUNDARY)) {
+                    return DoubleFunctions.round(ret, 2);
+                }
                 return round(calcNormalDensity(soilParas[0], soilParas[1], soilParas[2]), 2);
             }
         } else {
@@ -385,4 +428,86 @@ public class PTSaxton2006 { //implements PTCalculatorDOMEIF {
 
         return ret;
     }
+
+    /**
+     * Convert the percentage text to {@code double} for the primitive
+     * equations
+     *
+     * @return The value, or {@code NaN} if it is not a plain number in
+     * [-100, 100]
+     */
+    private static double pct(String pctVal) {
+        double ret = DoubleFunctions.parse(pctVal);
+        return ret > 100 || ret < -100 ? Double.NaN : ret;
+    }
+
+    /**
+     * Primitive twin of {@link #calcMoisture1500Kpa(String, String, String)}
+     */
+    private static double moisture1500Kpa(double slsnd, double slcly, double omPct) {
+        return -0.02736 * slsnd + 0.55518 * slcly + 0.684 * omPct
+                + 0.0057 * slsnd * omPct - 0.01482 * slcly * omPct + 0.0007752 * slsnd * slcly + 1.534;
+    }
+
+    /**
+     * Primitive twin of {@link #calcMoisture33Kpa(String, String, String)}
+     */
+    private static double moisture33Kpa(double slsnd, double slcly, double omPct) {
+        double mt33Fst = -0.251 * slsnd + 0.195 * slcly + 1.1 * omPct
+                + 0.006 * slsnd * omPct - 0.027 * slcly * omPct + 0.00452 * slsnd * slcly + 29.9;
+        return DoubleFunctions.pow(mt33Fst, 2) * 0.01283 + mt33Fst * 0.626 - 1.5;
+    }
+
+    /**
+     * Primitive twin of {@link #calcMoistureSAT33Kpa(String, String, String)}
+     */
+    private static double moistureSAT33Kpa(double slsnd, double slcly, double omPct) {
+        return 0.45481 * slsnd + 0.055624 * slcly + 3.5992 * omPct
+                - 0.029448 * slsnd * omPct - 0.044172 * slcly * omPct - 0.00955424 * slsnd * slcly + 2.0608;
+    }
+
+    /**
+     * Primitive twin of {@link #calcSaturatedMoisture(String, String, String)}
+     */
+    private static double saturatedMoisture(double slsnd, double slcly, double omPct) {
+        return moisture33Kpa(slsnd, slcly, omPct) + moistureSAT33Kpa(slsnd, slcly, omPct) - 0.097 * slsnd + 4.3;
+    }
+
+    /**
+     * Primitive twin of {@link #calcNormalDensity(String, String, String)}
+     */
+    private static double normalDensity(double slsnd, double slcly, double omPct) {
+        return (100 - saturatedMoisture(slsnd, slcly, omPct)) * 0.0265;
+    }
+
+    /**
+     * Primitive twin of {@link #calcSatMatric(String, String, String)}
+     */
+    private static double satMatric(double slsnd, double slcly, double omPct) {
+        double satMt = saturatedMoisture(slsnd, slcly, omPct) / 100;
+        double mt33 = moisture33Kpa(slsnd, slcly, omPct) / 100;
+        double mt1500 = moisture1500Kpa(slsnd, slcly, omPct) / 100;
+        double lamda = DoubleFunctions.divide(DoubleFunctions.log(mt33) - DoubleFunctions.log(mt1500), LN1500_LN33);
+        return 1930 * DoubleFunctions.pow(satMt - mt33, 3 - lamda);
+    }
+
+    /**
+     * Primitive twin of
+     * {@link #calcGravePlusDensity(String, String, String, String)}
+     */
+    private static double gravePlusDensity(double slsnd, double slcly, double omPct, double slcf) {
+        double slbdm = normalDensity(slsnd, slcly, omPct);
+        double alpha = slbdm / 2.65;
+        double slcfv = DoubleFunctions.divide(alpha * slcf, 1 - slcf + slcf * alpha);
+        return slbdm * (1 - slcfv) + slcfv * 2.65;
+    }
+
+    /**
+     * Primitive twin of {@link #calcSatBulk(String, String, String, String)}
+     */
+    private static double satBulk(double slsnd, double slcly, double omPct, double slcf) {
+        double alpha = normalDensity(slsnd, slcly, omPct) / 2.65;
+        double ratio = DoubleFunctions.divide(1 - slcf, 1 - slcf + 1.5 * slcf * alpha);
+        return satMatric(slsnd, slcly, omPct) * ratio;
+    }
 }
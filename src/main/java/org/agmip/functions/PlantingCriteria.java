@@ -0,0 +1,253 @@
+package org.agmip.functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import org.agmip.functions.DailyWeatherColumns.Column;
+
+/**
+ * Composite rule of the planting date, the first day in the planting window
+ * which meets all the criteria, e.g. the rainfall over the last n days, the
+ * minimum temperature over the last days and no frost in the following days.
+ *
+ * Each criterion is a {@link SlidingWindow} over one daily variable, which is
+ * updated once for each day, so the search is linear in the number of days
+ * whatever the length of the windows. Same as the rainfall search of
+ * {@link ExperimentHelper}, the rainfall is only accumulated from the start of
+ * the planting window and the missing rainfall is counted as 0. The other
+ * criteria also read the n - 1 days before the planting window, and are not
+ * met as long as a value in their n days is missing or invalid, or the days
+ * are before the first record.
+ *
+ * The criteria are not thread-safe, each thread should use its own instance.
+ */
+public class PlantingCriteria {
+
+    private static final int SUM_AT_LEAST = 0;
+    private static final int AVERAGE_AT_LEAST = 1;
+    private static final int MIN_ABOVE = 2;
+    private static final int MAX_BELOW = 3;
+    private final ArrayList<Criterion> criteria = new ArrayList<Criterion>();
+    private int lead;
+
+    /**
+     * Require the total rainfall over the last n days to reach the amount,
+     * the rainfall before the planting window is not counted
+     *
+     * @param days Number of days of accumulation
+     * @param amount Threshold rainfall amount (mm)
+     * @return This criteria
+     */
+    public PlantingCriteria rainAtLeast(int days, double amount) {
+        return add(new Criterion("rain", SUM_AT_LEAST, days, amount, 0));
+    }
+
+    /**
+     * Require the average of the daily variable over the last n days to
+     * reach the value
+     *
+     * @param var The variable name, e.g. "tmin"
+     * @param days Number of days
+     * @param value The threshold value
+     * @return This criteria
+     */
+    public PlantingCriteria averageAtLeast(String var, int days, double value) {
+        return add(new Criterion(var, AVERAGE_AT_LEAST, days, value, 0));
+    }
+
+    /**
+     * Require the daily variable to be above the value in each of the last n
+     * days
+     *
+     * @param var The variable name, e.g. "tmin"
+     * @param days Number of days, 1 for the day itself
+     * @param value The threshold value, exclusive
+     * @return This criteria
+     */
+    public PlantingCriteria minAbove(String var, int days, double value) {
+        return add(new Criterion(var, MIN_ABOVE, days, value, 0));
+    }
+
+    /**
+     * Require the daily variable to be below the value in each of the last n
+     * days
+     *
+     * @param var The variable name, e.g. "tmax"
+     * @param days Number of days, 1 for the day itself
+     * @param value The threshold value, exclusive
+     * @return This criteria
+     */
+    public PlantingCriteria maxBelow(String var, int days, double value) {
+        return add(new Criterion(var, MAX_BELOW, days, value, 0));
+    }
+
+    /**
+     * Require no frost (TMIN at or below 0 °C) on the day and the following
+     * n - 1 days, the days after the planting window are also checked
+     *
+     * @param days Number of days, 1 for the day itself
+     * @return This criteria
+     */
+    public PlantingCriteria noFrost(int days) {
+        return add(new Criterion("tmin", MIN_ABOVE, days, 0, days - 1));
+    }
+
+    private PlantingCriteria add(Criterion criterion) {
+        criteria.add(criterion);
+        lead = Math.max(lead, criterion.lead);
+        return this;
+    }
+
+    /**
+     * Check if no criterion is given
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty() {
+        return criteria.isEmpty();
+    }
+
+    /**
+     * Find the first day in the window which meets all the criteria
+     *
+     * @param columns The columnar daily weather data
+     * @param start The index of the first day of the window
+     * @param end The index of the last day of the window, inclusive
+     * @return The index of the day, or -1 if not found
+     */
+    int find(DailyWeatherColumns columns, int start, int end) {
+        int size = criteria.size();
+        // Whether each criterion is met at the last (lead + 1) days
+        boolean[][] met = new boolean[size][lead + 1];
+        int first = start;
+        for (Criterion criterion : criteria) {
+            criterion.reset(columns);
+            first = Math.min(first, start - criterion.history);
+        }
+        for (int t = Math.max(first, 0); t <= end + lead && t < columns.size(); t++) {
+            for (int k = 0; k < size; k++) {
+                Criterion criterion = criteria.get(k);
+                if (t >= start - criterion.history) {
+                    met[k][t % (lead + 1)] = criterion.add(t);
+                }
+            }
+            int day = t - lead;
+            if (day < start || day > end) {
+                continue;
+            }
+            boolean found = true;
+            for (int k = 0; k < size && found; k++) {
+                found = met[k][(day + criteria.get(k).lead) % (lead + 1)];
+            }
+            if (found) {
+                return day;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Criterion criterion : criteria) {
+            if (sb.length() > 0) {
+                sb.append(" AND ");
+            }
+            sb.append(criterion);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * One criterion over the daily variable, which is checked at the day
+     * {@code lead} days after the day to be planted
+     */
+    private static class Criterion {
+
+        private static final String[] NAMES = {"sum", "average", "min", "max"};
+        private final String var;
+        private final int type;
+        private final int days;
+        private final double value;
+        private final int lead;
+        /**
+         * The number of days before the planting window to be read, so the
+         * window is full at the first day to be checked
+         */
+        private final int history;
+        private final SlidingWindow window;
+        private Column column;
+
+        Criterion(String var, int type, int days, double value, int lead) {
+            if (days <= 0) {
+                throw new IllegalArgumentException("non-positive number of days " + days + " for " + var);
+            }
+            this.var = var;
+            this.type = type;
+            this.days = days;
+            this.value = value;
+            this.lead = lead;
+            this.history = type == SUM_AT_LEAST ? 0 : Math.max(days - 1 - lead, 0);
+            this.window = new SlidingWindow(days);
+        }
+
+        void reset(DailyWeatherColumns columns) {
+            column = columns.getColumn(var);
+            window.reset();
+        }
+
+        /**
+         * Add the day to the window
+         *
+         * @return True if the criterion is met at the day
+         */
+        boolean add(int i) {
+            double v = getValue(i);
+            if (type == SUM_AT_LEAST && Double.isNaN(v)) {
+                v = 0;
+            }
+            window.add(v);
+            switch (type) {
+                case SUM_AT_LEAST:
+                    return window.getSum() >= value;
+                case AVERAGE_AT_LEAST:
+                    return isFull() && window.getSum() / days >= value;
+                case MIN_ABOVE:
+                    return isFull() && window.getMin() > value;
+                default:
+                    return isFull() && window.getMax() < value;
+            }
+        }
+
+        /**
+         * Check if all the n days in the window have a valid value
+         */
+        private boolean isFull() {
+            return window.size() == days && window.getMissing() == 0;
+        }
+
+        /**
+         * Get the daily value, the number which is not plain is parsed from
+         * the text
+         *
+         * @return The value, or {@code NaN} if missing or invalid
+         */
+        private double getValue(int i) {
+            if (column == null || !column.isPresent(i)) {
+                return Double.NaN;
+            }
+            double ret = column.getDouble(i);
+            if (Double.isNaN(ret)) {
+                BigDecimal decimal = column.getDecimal(i);
+                ret = decimal == null ? Double.NaN : decimal.doubleValue();
+            }
+            return ret;
+        }
+
+        @Override
+        public String toString() {
+            String ret = NAMES[type] + "(" + var + ", " + days + " days)"
+                    + (type == MIN_ABOVE ? " > " : type == MAX_BELOW ? " < " : " >= ") + value;
+            return lead > 0 ? ret + " in following days" : ret;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.agmip.functions;
+
+import java.util.HashMap;
+
+/**
+ * One request of the batch planting date calculation, the experiment and the
+ * rule of the planting window, see
+ * {@link ExperimentHelper#getAutoPlantingDate(HashMap, String, String, String, String)}.
+ */
+public class PlantingRequest {
+
+    private final HashMap data;
+    private final String eDate;
+    private final String lDate;
+    private final String rain;
+    private final String days;
+
+    /**
+     * Create the request
+     *
+     * @param data The HashMap of experiment, the weather data is not
+     * required
+     * @param eDate Earliest planting date (mm-dd or mmdd)
+     * @param lDate Latest planting date (mm-dd or mmdd)
+     * @param rain Threshold rainfall amount (mm)
+     * @param days Number of days of accumulation
+     */
+    public PlantingRequest(HashMap data, String eDate, String lDate, String rain, String days) {
+        this.data = data;
+        this.eDate = eDate;
+        this.lDate = lDate;
+        this.rain = rain;
+        this.days = days;
+    }
+
+    /**
+     * Get the HashMap of experiment
+     *
+     * @return The experiment data
+     */
+    public HashMap getData() {
+        return data;
+    }
+
+    /**
+     * Get the earliest planting date
+     *
+     * @return The date (mm-dd or mmdd)
+     */
+    public String getEDate() {
+        return eDate;
+    }
+
+    /**
+     * Get the latest planting date
+     *
+     * @return The date (mm-dd or mmdd)
+     */
+    public String getLDate() {
+        return lDate;
+    }
+
+    /**
+     * Get the threshold rainfall amount
+     *
+     * @return The amount (mm)
+     */
+    public String getRain() {
+        return rain;
+    }
+
+    /**
+     * Get the number of days of accumulation
+     *
+     * @return The number of days
+     */
+    public String getDays() {
+        return days;
+    }
+
+    @Override
+    public String toString() {
+        return eDate + "~" + lDate + ", " + rain + "mm in " + days + " days";
+    }
+}
@@ -0,0 +1,161 @@
+package org.agmip.functions;
+
+import java.util.HashMap;
+
+/**
+ * Daily rainfall of one station, parsed once and shared by the planting
+ * window searches of all the experiments which use the station.
+ *
+ * The RAIN values are parsed on the first read in the same way as the
+ * searches read them from the daily records, i.e. a missing value is 0 and
+ * a value which is not a number is skipped. The cumulative rainfall over
+ * the records is built on the first window query, so the rainfall amount of
+ * any window takes O(1).
+ *
+ * The index created by {@link #of(HashMap)} or
+ * {@link #of(DailyWeatherColumns)} is fully built and could be shared by the
+ * threads; the one built internally for a single call is filled lazily and is
+ * not thread-safe.
+ */
+public final class RainfallIndex {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte VALID = 1;
+    private static final byte INVALID = 2;
+    private final DailySeries series;
+    private final double[] values;
+    private final byte[] states;
+    private double[] sums;
+
+    RainfallIndex(DailySeries series) {
+        this.series = series;
+        values = new double[series.size()];
+        states = new byte[series.size()];
+    }
+
+    /**
+     * Build the index for the daily weather data
+     *
+     * @param data The data set which contains weather data, or the weather
+     * data itself
+     * @return The index
+     */
+    public static RainfallIndex of(HashMap data) {
+        return new RainfallIndex(DailySeries.of(WeatherHelper.getDailyData(data))).build();
+    }
+
+    /**
+     * Build the index for the columnar daily weather data
+     *
+     * @param columns The columnar daily weather data of the station
+     * @return The index
+     */
+    public static RainfallIndex of(DailyWeatherColumns columns) {
+        return new RainfallIndex(DailySeries.of(columns)).build();
+    }
+
+    private RainfallIndex build() {
+        getSums();
+        series.getDateIndex();
+        return this;
+    }
+
+    /**
+     * Get the daily records of the index
+     *
+     * @return The daily series
+     */
+    DailySeries getSeries() {
+        return series;
+    }
+
+    /**
+     * Get the number of daily records
+     *
+     * @return The number of daily records
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Check if the rainfall of the daily record could be read
+     *
+     * @param i The index of daily record
+     * @return False if the value is not a number or the index is out of
+     * range
+     */
+    boolean isValid(int i) {
+        if (i < 0 || i >= values.length) {
+            return false;
+        }
+        if (states[i] == UNKNOWN) {
+            try {
+                values[i] = series.getDouble(i, "rain", 0);
+                states[i] = VALID;
+            } catch (Exception e) {
+                states[i] = INVALID;
+            }
+        }
+        return states[i] == VALID;
+    }
+
+    /**
+     * Get the rainfall of the daily record, should be checked by
+     * {@link #isValid(int)} first
+     *
+     * @param i The index of daily record
+     * @return The rainfall amount, 0 if missing
+     */
+    double get(int i) {
+        return values[i];
+    }
+
+    /**
+     * Get the total rainfall of the daily records in the range, the invalid
+     * values are counted as 0
+     *
+     * @param from The index of the first record, inclusive
+     * @param to The index of the last record, exclusive
+     * @return The rainfall amount (mm)
+     */
+    public double getSum(int from, int to) {
+        double[] s = getSums();
+        from = Math.max(from, 0);
+        to = Math.min(to, values.length);
+        return from >= to ? 0 : s[to] - s[from];
+    }
+
+    /**
+     * Find the first daily record in the range whose accumulated rainfall in
+     * the previous n days, counted from the start of the range, reaches the
+     * threshold
+     *
+     * @param from The index of the first record, inclusive
+     * @param to The index of the last record, exclusive
+     * @param days Number of days of accumulation
+     * @param amount Threshold rainfall amount (mm)
+     * @return The index of the record, or -1 if not found
+     */
+    public int findFirst(int from, int to, int days, double amount) {
+        from = Math.max(from, 0);
+        to = Math.min(to, values.length);
+        for (int j = from; j < to; j++) {
+            if (getSum(Math.max(from, j - days + 1), j + 1) >= amount) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    private double[] getSums() {
+        if (sums == null) {
+            double[] s = new double[values.length + 1];
+            for (int i = 0; i < values.length; i++) {
+                s[i + 1] = isValid(i) ? s[i] + values[i] : s[i];
+            }
+            sums = s;
+        }
+        return sums;
+    }
+}
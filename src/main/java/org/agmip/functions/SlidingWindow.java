@@ -0,0 +1,138 @@
+package org.agmip.functions;
+
+/**
+ * Aggregates of the last n daily values, updated in O(1) for each new day.
+ *
+ * The sum is updated by removing the value which leaves the window before
+ * adding the new one, which is the same order as the rolling rainfall of
+ * {@link ExperimentHelper#getAutoPlantingDate(java.util.HashMap, String, String, String, String)},
+ * and the minimum and maximum are kept by monotonic queues of the positions.
+ * A missing value ({@code NaN}) is counted and left out of the aggregates.
+ */
+final class SlidingWindow {
+
+    private final int days;
+    private final double[] values;
+    private final int[] minQueue;
+    private final int[] maxQueue;
+    private int minHead;
+    private int minSize;
+    private int maxHead;
+    private int maxSize;
+    private int count;
+    private int missing;
+    private double sum;
+
+    /**
+     * Create the window
+     *
+     * @param days The number of days, positive
+     */
+    SlidingWindow(int days) {
+        this.days = days;
+        values = new double[days];
+        minQueue = new int[days];
+        maxQueue = new int[days];
+    }
+
+    /**
+     * Remove all the values
+     */
+    void reset() {
+        minHead = 0;
+        minSize = 0;
+        maxHead = 0;
+        maxSize = 0;
+        count = 0;
+        missing = 0;
+        sum = 0;
+    }
+
+    /**
+     * Add the value of the next day, the value of the first day in the window
+     * is removed when the window is full
+     *
+     * @param value The value, or {@code NaN} if missing
+     */
+    void add(double value) {
+        int pos = count % days;
+        if (count >= days) {
+            double old = values[pos];
+            if (Double.isNaN(old)) {
+                missing--;
+            } else {
+                sum -= old;
+            }
+            int first = count - days;
+            if (minSize > 0 && minQueue[minHead] == first) {
+                minHead = (minHead + 1) % days;
+                minSize--;
+            }
+            if (maxSize > 0 && maxQueue[maxHead] == first) {
+                maxHead = (maxHead + 1) % days;
+                maxSize--;
+            }
+        }
+        values[pos] = value;
+        if (Double.isNaN(value)) {
+            missing++;
+        } else {
+            sum += value;
+            while (minSize > 0 && values[minQueue[(minHead + minSize - 1) % days] % days] >= value) {
+                minSize--;
+            }
+            minQueue[(minHead + minSize++) % days] = count;
+            while (maxSize > 0 && values[maxQueue[(maxHead + maxSize - 1) % days] % days] <= value) {
+                maxSize--;
+            }
+            maxQueue[(maxHead + maxSize++) % days] = count;
+        }
+        count++;
+    }
+
+    /**
+     * Get the number of days in the window, less than n before the window is
+     * full
+     *
+     * @return The number of days
+     */
+    int size() {
+        return Math.min(count, days);
+    }
+
+    /**
+     * Get the number of missing values in the window
+     *
+     * @return The number of values
+     */
+    int getMissing() {
+        return missing;
+    }
+
+    /**
+     * Get the sum of the values in the window
+     *
+     * @return The sum, 0 if empty
+     */
+    double getSum() {
+        return sum;
+    }
+
+    /**
+     * Get the minimum value in the window
+     *
+     * @return The minimum, or {@code NaN} if no value
+     */
+    double getMin() {
+        return minSize == 0 ? Double.NaN : values[minQueue[minHead] % days];
+    }
+
+    /**
+     * Get the maximum value in the window
+     *
+     * @return The maximum, or {@code NaN} if no value
+     */
+    double getMax() {
+        return maxSize == 0 ? Double.NaN : values[maxQueue[maxHead] % days];
+    }
+}
@@ -4,6 +4,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import org.agmip.common.DoubleFunctions;
 import org.agmip.common.Functions;
 import static org.agmip.common.Functions.*;
 import org.agmip.common.Functions.CompareMode;
@@ -21,6 +22,7 @@ import org.slf4j.LoggerFactory;
 public class SoilHelper {
 
     private static final Logger LOG = LoggerFactory.getLogger(SoilHelper.class);
+    private static final double BOUNDARY = 1e-6;
 
     /**
      * Calculate root growth factor (0-1) for each soil layer
@@ -62,12 +64,26 @@ public class SoilHelper {
             }
         }
 
-        // First layer
-        result.add(round(getGrowthFactor(divide(sllbs[0], "2"), pp, k, m), 3));
-
-        // Other layers
-        for (int i = 1; i < sllbs.length; i++) {
-            result.add(round(getGrowthFactor(average(sllbs[i], sllbs[i - 1]), pp, k, m), 3));
+        // The factors are calculated with double, and the layer is calculated
+        // again with the exact decimal when the result is not plain or too
+        // close to the rounding boundary
+        double mVal = DoubleFunctions.parse(m);
+        double ppVal = DoubleFunctions.parse(pp);
+        double kVal = DoubleFunctions.divide(Math.log(0.02), DoubleFunctions.parse(rd) - ppVal);
+        double last = 0;
+        for (int i = 0; i < sllbs.length; i++) {
+            double sllb = DoubleFunctions.parse(sllbs[i]);
+            double factor = growthFactor((sllb + last) / 2, ppVal, kVal, mVal);
+            if (!DoubleFunctions.isNearHalfWay(factor, 3, BOUNDARY)) {
+                result.add(DoubleFunctions.round(factor, 3));
+            } else if (i == 0) {
+                // First layer
+                result.add(round(getGrowthFactor(divide(sllbs[0], "2"), pp, k, m), 3));
+            } else {
+                // Other layers
+                result.add(round(getGrowthFactor(average(sllbs[i], sllbs[i - 1]), pp, k, m), 3));
+            }
+            last = sllb;
         }
 
         results.put(var, result);
@@ -154,6 +170,19 @@ public class SoilHelper {
         }
     }
 
+    /**
+     * Primitive twin of {@link #getGrowthFactor(String, String, String, String)}
+     *
+     * @return The growth factor, or {@code NaN} if any value is invalid
+     */
+    private static double growthFactor(double mid, double pp, double k, double m) {
+        if (DoubleFunctions.compare(mid, pp, CompareMode.NOTGREATER)) {
+            return m;
+        } else {
+            return m * DoubleFunctions.exp(k * (mid - pp));
+        }
+    }
+
     /**
      * Get soil layer data array from data holder.
      *
@@ -0,0 +1,118 @@
+package org.agmip.functions;
+
+import java.util.concurrent.ConcurrentHashMap;
+import org.agmip.common.Functions;
+import static org.agmip.common.Functions.*;
+
+/**
+ * Day of year tables of the extra terrestrial radiation (Ra) and the
+ * daylight hours (N) for one latitude, the step 8 of the FAO-56 ETo
+ * calculation.
+ *
+ * The tables are built once for each latitude and precision mode and are
+ * shared by all the stations and calls. The text values are calculated in the
+ * same way as the per-day calculation of
+ * {@link WeatherHelper#getEto(java.util.HashMap)}, and the {@code double}
+ * values in the same way as {@link EtoKernel}, so the lookup does not change
+ * the results.
+ */
+final class SolarGeometry {
+
+    static final int DAYS = 366;
+    private static final int CACHE_SIZE = 1024;
+    private static final ConcurrentHashMap<String, SolarGeometry> CACHE = new ConcurrentHashMap<String, SolarGeometry>();
+    private final String[] ra = new String[DAYS];
+    private final String[] n = new String[DAYS];
+    private final double[] raValues = new double[DAYS];
+    private final double[] nValues = new double[DAYS];
+
+    private SolarGeometry(String phi) {
+        String pi365 = divide(Math.PI + "", "365");
+        String sinPhi = sin(phi);
+        String cosPhi = cos(phi);
+        String tanPhi = tan(phi);
+        for (int i = 0; i < DAYS; i++) {
+            String J = (i + 1) + "";
+            String dr = sum("1", multiply("0.033", cos(product("2", pi365, J))));
+            String delta = multiply("0.409", sin(substract(product("2", pi365, J), "1.39")));
+            String omegas = acos(product("-1", tanPhi, tan(delta)));
+            ra[i] = divide(product("1440", "0.0820", dr, sum(product(omegas, sinPhi, sin(delta)), product(cosPhi, cos(delta), sin(omegas)))), Math.PI + "");
+            n[i] = divide(multiply("24", omegas), Math.PI + "");
+        }
+
+        double pi365Value = EtoKernel.toDouble(pi365);
+        double sinPhiValue = EtoKernel.toDouble(sinPhi);
+        double cosPhiValue = EtoKernel.toDouble(cosPhi);
+        double tanPhiValue = EtoKernel.toDouble(tanPhi);
+        for (int i = 0; i < DAYS; i++) {
+            double b = 2 * pi365Value * (i + 1);
+            double dr = 1 + 0.033 * Math.cos(b);
+            double delta = 0.409 * Math.sin(b - 1.39);
+            double omegas = Math.acos(-1 * tanPhiValue * Math.tan(delta));
+            raValues[i] = 1440 * 0.0820 * dr * (omegas * sinPhiValue * Math.sin(delta) + cosPhiValue * Math.cos(delta) * Math.sin(omegas)) / Math.PI;
+            nValues[i] = 24 * omegas / Math.PI;
+        }
+    }
+
+    /**
+     * Get the tables for the latitude
+     *
+     * @param phi The latitude in radian, as calculated from {@code wst_lat}
+     * @return The tables for the latitude and current precision mode
+     */
+    static SolarGeometry of(String phi) {
+        String key = Functions.getPrecisionMode() + ":" + phi;
+        SolarGeometry ret = CACHE.get(key);
+        if (ret == null) {
+            ret = new SolarGeometry(phi);
+            if (CACHE.size() >= CACHE_SIZE) {
+                CACHE.clear();
+            }
+            SolarGeometry cached = CACHE.putIfAbsent(key, ret);
+            if (cached != null) {
+                ret = cached;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get the extra terrestrial radiation (Ra) [MJ m-2 day-1]
+     *
+     * @param dayOfYear The day of year, 1 for January 1st
+     * @return The text value, or {@code null} if not available
+     */
+    String getRa(int dayOfYear) {
+        return ra[dayOfYear - 1];
+    }
+
+    /**
+     * Get the daylight hours (N) [hour]
+     *
+     * @param dayOfYear The day of year, 1 for January 1st
+     * @return The text value, or {@code null} if not available
+     */
+    String getDaylightHours(int dayOfYear) {
+        return n[dayOfYear - 1];
+    }
+
+    /**
+     * Get the extra terrestrial radiation (Ra) as {@code double}
+     *
+     * @param dayOfYear The day of year, 1 for January 1st
+     * @return The value, or {@code NaN} if not available
+     */
+    double getRaValue(int dayOfYear) {
+        return raValues[dayOfYear - 1];
+    }
+
+    /**
+     * Get the daylight hours (N) as {@code double}
+     *
+     * @param dayOfYear The day of year, 1 for January 1st
+     * @return The value, or {@code NaN} if not available
+     */
+    double getDaylightHoursValue(int dayOfYear) {
+        return nValues[dayOfYear - 1];
+    }
+}
@@ -0,0 +1,290 @@
+package org.agmip.functions;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import org.agmip.common.DateCodec;
+import org.agmip.common.DoubleFunctions;
+import static org.agmip.common.Functions.*;
+import org.agmip.common.Functions.PrecisionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming calculation of TAV (annual average ambient temperature) and TAMP
+ * (annual amplitude of mean monthly temperature).
+ *
+ * The daily records are added one by one, e.g. while the weather file is
+ * being parsed, and only the sum and count of daily mean temperature for each
+ * month of each year are kept. In {@code EXACT} mode the sums are kept as
+ * unscaled {@code long} values, so the results are the same as
+ * {@link WeatherHelper#getTavAndAmp(java.util.HashMap)}; in {@code DOUBLE}
+ * mode they are kept as {@code double}. The precision mode is read when the
+ * accumulator is created. The instance is not thread-safe.
+ */
+public class TavAmpAccumulator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TavAmpAccumulator.class);
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final long[] POW10 = new long[19];
+    private static final int MAX_SCALE = 9;
+    private static final long MAX_UNSCALED = 1000000000000L;
+    private final boolean exact = getPrecisionMode() != PrecisionMode.DOUBLE;
+    private final HashMap<Integer, Year> years = new HashMap<Integer, Year>();
+    private int invalidDates;
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    /**
+     * The monthly sums of one year
+     */
+    private static final class Year {
+
+        private final int[] counts = new int[12];
+        private final long[] unscaled = new long[12];
+        private final int[] scales = new int[12];
+        private final double[] sums = new double[12];
+        private BigDecimal[] decimals;
+
+        private void add(int month, double value) {
+            sums[month] += value;
+            counts[month]++;
+        }
+
+        private void add(int month, long value, int scale) {
+            if (counts[month] == 0) {
+                unscaled[month] = value;
+                scales[month] = scale;
+                counts[month]++;
+                return;
+            } else if (decimals != null && decimals[month] != null) {
+                add(month, BigDecimal.valueOf(value, scale));
+                return;
+            }
+            int sumScale = Math.max(scale, scales[month]);
+            long a = rescale(unscaled[month], sumScale - scales[month]);
+            long b = rescale(value, sumScale - scale);
+            if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) {
+                add(month, BigDecimal.valueOf(value, scale));
+                return;
+            }
+            unscaled[month] = a + b;
+            scales[month] = sumScale;
+            counts[month]++;
+        }
+
+        private void add(int month, BigDecimal value) {
+            if (decimals == null) {
+                decimals = new BigDecimal[12];
+            }
+            if (decimals[month] == null) {
+                decimals[month] = counts[month] == 0 ? value : BigDecimal.valueOf(unscaled[month], scales[month]).add(value);
+            } else {
+                decimals[month] = decimals[month].add(value);
+            }
+            counts[month]++;
+        }
+
+        private String getAvg(int month, boolean exact) {
+            if (counts[month] == 0) {
+                return null;
+            } else if (!exact) {
+                return DoubleFunctions.toString(sums[month] / counts[month]);
+            }
+            BigDecimal sum = decimals != null && decimals[month] != null ? decimals[month] : BigDecimal.valueOf(unscaled[month], scales[month]);
+            return divideDecimal(sum, BigDecimal.valueOf(counts[month])).toString();
+        }
+    }
+
+    /**
+     * Multiply by the power of 10, or give {@code Long.MIN_VALUE} if the
+     * result is too large to be summed
+     */
+    private static long rescale(long value, int shift) {
+        if (shift >= POW10.length || Math.abs(value) > Long.MAX_VALUE / 2 / POW10[shift]) {
+            return Long.MIN_VALUE;
+        }
+        return value * POW10[shift];
+    }
+
+    private static boolean isSmall(long unscaled, int scale) {
+        return scale >= 0 && scale <= MAX_SCALE && Math.abs(unscaled) < MAX_UNSCALED;
+    }
+
+    /**
+     * Get the monthly sums of the year for the date
+     *
+     * @return The monthly sums, or {@code null} if the date is invalid
+     */
+    private Year getYear(int epochDay) {
+        if (epochDay == DateCodec.INVALID) {
+            invalidDates++;
+            return null;
+        }
+        int year = DateCodec.getYear(epochDay);
+        Year ret = years.get(year);
+        if (ret == null) {
+            ret = new Year();
+            years.put(year, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Add one daily weather record
+     *
+     * @param daily The daily record, which contains {@code w_date},
+     * {@code tmax} and {@code tmin}
+     * @return True if the daily mean temperature is added
+     */
+    public boolean add(Map daily) {
+        Object date = daily.get("w_date");
+        int epochDay = DateCodec.INVALID;
+        if (date instanceof String && !((String) date).trim().equals("")) {
+            String text = ((String) date).trim();
+            epochDay = DateCodec.parse(text);
+            if (epochDay == DateCodec.INVALID) {
+                epochDay = DateCodec.fromDate(convertFromAgmipDateString(text));
+            }
+        }
+        Object tmax = daily.get("tmax");
+        Object tmin = daily.get("tmin");
+        return add(epochDay, tmax instanceof String ? (String) tmax : null, tmin instanceof String ? (String) tmin : null);
+    }
+
+    /**
+     * Add the maximum and minimum temperature of one day
+     *
+     * @param epochDay The date as epoch day, see {@link DateCodec}
+     * @param tmax The maximum temperature, could be {@code null}
+     * @param tmin The minimum temperature, could be {@code null}
+     * @return True if the daily mean temperature is added
+     */
+    public boolean add(int epochDay, String tmax, String tmin) {
+        Year year = getYear(epochDay);
+        if (year == null || tmax == null || tmin == null) {
+            return false;
+        }
+        if (!exact) {
+            return add(year, epochDay, DoubleFunctions.parse(tmax.trim()), DoubleFunctions.parse(tmin.trim()));
+        }
+        try {
+            return add(year, epochDay, toBigDecimal(tmax.trim()), toBigDecimal(tmin.trim()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add the maximum and minimum temperature of one day. In {@code EXACT}
+     * mode the scale of the values is the one of
+     * {@link BigDecimal#valueOf(double)}.
+     *
+     * @param epochDay The date as epoch day, see {@link DateCodec}
+     * @param tmax The maximum temperature, {@code NaN} if missing
+     * @param tmin The minimum temperature, {@code NaN} if missing
+     * @return True if the daily mean temperature is added
+     */
+    public boolean add(int epochDay, double tmax, double tmin) {
+        Year year = getYear(epochDay);
+        if (year == null || Double.isNaN(tmax) || Double.isNaN(tmin) || Double.isInfinite(tmax) || Double.isInfinite(tmin)) {
+            return false;
+        } else if (!exact) {
+            return add(year, epochDay, tmax, tmin);
+        } else {
+            return add(year, epochDay, BigDecimal.valueOf(tmax), BigDecimal.valueOf(tmin));
+        }
+    }
+
+    /**
+     * Add all the daily records of the columnar data
+     *
+     * @param columns The columnar daily weather data of the station
+     */
+    public void addAll(DailyWeatherColumns columns) {
+        DailyWeatherColumns.Column tmax = columns.getColumn("tmax");
+        DailyWeatherColumns.Column tmin = columns.getColumn("tmin");
+        for (int i = 0; i < columns.size(); i++) {
+            int epochDay = columns.getEpochDay(i);
+            Year year = getYear(epochDay);
+            if (year == null || tmax == null || tmin == null) {
+                continue;
+            }
+            double max = tmax.getDouble(i);
+            double min = tmin.getDouble(i);
+            if (Double.isNaN(max) || Double.isNaN(min)) {
+                // Not a plain number, use the text
+                add(epochDay, tmax.getString(i), tmin.getString(i));
+            } else if (!exact) {
+                add(year, epochDay, max, min);
+            } else {
+                add(year, epochDay, tmax.getUnscaled(i), tmax.getScale(i), tmin.getUnscaled(i), tmin.getScale(i));
+            }
+        }
+    }
+
+    private boolean add(Year year, int epochDay, double tmax, double tmin) {
+        double mean = (tmax + tmin) / 2;
+        if (Double.isNaN(mean) || Double.isInfinite(mean)) {
+            return false;
+        }
+        year.add(DateCodec.getMonth(epochDay) - 1, mean);
+        return true;
+    }
+
+    private boolean add(Year year, int epochDay, BigDecimal tmax, BigDecimal tmin) {
+        if (tmax.scale() >= 0 && tmin.scale() >= 0 && tmax.unscaledValue().bitLength() < 63 && tmin.unscaledValue().bitLength() < 63) {
+            return add(year, epochDay, tmax.unscaledValue().longValue(), tmax.scale(), tmin.unscaledValue().longValue(), tmin.scale());
+        }
+        year.add(DateCodec.getMonth(epochDay) - 1, divideDecimal(tmax.add(tmin), TWO));
+        return true;
+    }
+
+    /**
+     * Add the daily mean temperature {@code (tmax + tmin) / 2}, which is an
+     * exact decimal with the same scale as the {@code BigDecimal} division
+     */
+    private boolean add(Year year, int epochDay, long tmax, int sMax, long tmin, int sMin) {
+        int month = DateCodec.getMonth(epochDay) - 1;
+        if (!isSmall(tmax, sMax) || !isSmall(tmin, sMin)) {
+            year.add(month, divideDecimal(BigDecimal.valueOf(tmax, sMax).add(BigDecimal.valueOf(tmin, sMin)), TWO));
+            return true;
+        }
+        int scale = Math.max(sMax, sMin);
+        long mean = tmax * POW10[scale - sMax] + tmin * POW10[scale - sMin];
+        if (mean % 2 == 0) {
+            mean /= 2;
+        } else {
+            mean *= 5;
+            scale++;
+        }
+        year.add(month, mean, scale);
+        return true;
+    }
+
+    /**
+     * Get the TAV and TAMP of the added records
+     *
+     * @return A {@code HashMap} contains {@code tav} and {@code tamp}, same as
+     * {@link WeatherHelper#getTavAndAmp(java.util.HashMap)}
+     */
+    public HashMap<String, String> getResults() {
+        if (invalidDates > 0) {
+            LOG.warn("There are {} daily data do not having a valid date", invalidDates);
+        }
+        HashMap<Integer, String[]> monthlyAvgs = new HashMap<Integer, String[]>();
+        for (Map.Entry<Integer, Year> entry : years.entrySet()) {
+            String[] avgs = new String[12];
+            for (int month = 0; month < avgs.length; month++) {
+                avgs[month] = entry.getValue().getAvg(month, exact);
+            }
+            monthlyAvgs.put(entry.getKey(), avgs);
+        }
+        return WeatherHelper.calcTavAndAmp(monthlyAvgs);
+    }
+}
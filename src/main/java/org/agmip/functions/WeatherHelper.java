@@ -1,12 +1,24 @@
 package org.agmip.functions;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.agmip.common.Accumulator;
+import org.agmip.common.DateCodec;
 import static org.agmip.common.Functions.*;
 import org.agmip.common.Functions.CompareMode;
+import org.agmip.common.Functions.PrecisionMode;
 import org.agmip.util.MapUtil;
 import static org.agmip.util.MapUtil.*;
 import org.agmip.util.MapUtil.BucketEntry;
@@ -21,6 +33,35 @@ import org.slf4j.LoggerFactory;
 public class WeatherHelper {
 
     private static final Logger LOG = LoggerFactory.getLogger(WeatherHelper.class);
+    private static volatile DerivedWeatherCache cache;
+
+    /**
+     * Set the cache of derived values used by {@link #getTavAndAmp(HashMap)}
+     * and {@link #getEto(HashMap)} for the whole process. The cache is not
+     * used by default.
+     *
+     * Each lookup still reads all the daily records of the station to build
+     * the checksum of the cache key, so a hit saves the calculation but not
+     * a pass over the data. The key is a fingerprint of the data rather than
+     * the data itself: two data sets with the same {@code wst_id}, station
+     * values, number of records and first and last date are only told apart
+     * by a 64-bit checksum, and if the checksums collide the cached values of
+     * the other data set are returned without any warning.
+     *
+     * @param derivedCache The cache, or {@code null} to disable the cache
+     */
+    public static void setCache(DerivedWeatherCache derivedCache) {
+        cache = derivedCache;
+    }
+
+    /**
+     * Get the cache of derived values
+     *
+     * @return The cache, or {@code null} if the cache is disabled
+     */
+    public static DerivedWeatherCache getCache() {
+        return cache;
+    }
 
     /**
      * Calculate the AMP (annual amplitude of mean monthly temperature oC) and
@@ -32,58 +73,86 @@ public class WeatherHelper {
      * is their ICASA variable name
      */
     public static HashMap<String, String> getTavAndAmp(HashMap data) {
-
-        HashMap<String, String> results = new HashMap<String, String>();
-        HashMap<Integer, MonthlyAvg> tyear = new HashMap<Integer, MonthlyAvg>();
-        MonthlyAvg tmonth;
-        MonthlyAvg tavAllYears;
-        ArrayList<String> tampAllYears;
-        String tav;
-        String tamp;
         ArrayList<HashMap<String, String>> dailyArr = getDailyData(data);
+        DerivedWeatherCache c = cache;
+        String key = null;
+        if (c != null) {
+            key = DerivedWeatherCache.getKey(getWthData(data), dailyArr);
+            HashMap<String, String> cached = c.getTavAndAmp(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        // Load daily data
+        TavAmpAccumulator acc = new TavAmpAccumulator();
         for (int i = 0; i < dailyArr.size(); i++) {
+            acc.add(dailyArr.get(i));
+        }
+        HashMap<String, String> results = acc.getResults();
+        if (c != null) {
+            c.putTavAndAmp(key, results);
+        }
+        return results;
+    }
 
-            String date;
-            int year;
-            int month;
-            String tmax;
-            String tmin;
-            String tavgDaily;
-
-            HashMap<String, String> dailyData = dailyArr.get(i);
-            date = getValueOr(dailyData, "w_date", "").trim();
-            if (date.equals("")) {
-                LOG.warn("There is daily data do not having a valid date");
-                continue;
-            } else {
-                Calendar cal = Calendar.getInstance();
-                cal.setTime(convertFromAgmipDateString(date));
-                year = cal.get(Calendar.YEAR);
-                month = cal.get(Calendar.MONTH);
-                tmonth = tyear.get(year);
-                if (tmonth == null) {
-                    tmonth = new MonthlyAvg();
-                    tyear.put(year, tmonth);
-                }
-            }
+    /**
+     * Calculate the AMP (annual amplitude of mean monthly temperature oC) and
+     * TAV (Annual average ambient temperature oC) from the columnar daily
+     * data, same as {@link #getTavAndAmp(HashMap)}
+     *
+     * @param columns The columnar daily weather data of the station
+     *
+     * @return A {@code HashMap} contains {@code TAV} and {@code TAMP}, the key
+     * is their ICASA variable name
+     */
+    public static HashMap<String, String> getTavAndAmp(DailyWeatherColumns columns) {
+        TavAmpAccumulator acc = new TavAmpAccumulator();
+        acc.addAll(columns);
+        return acc.getResults();
+    }
 
-            tmax = getValueOr(dailyData, "tmax", "").trim();
-            tmin = getValueOr(dailyData, "tmin", "").trim();
-            tavgDaily = average(tmax, tmin);
-            if (tavgDaily != null) {
-                tmonth.add(month, tavgDaily);
-            }
+    /**
+     * Calculate the AMP (annual amplitude of mean monthly temperature oC) and
+     * TAV (Annual average ambient temperature oC) from the daily records of
+     * the source one by one, same as {@link #getTavAndAmp(HashMap)}. The
+     * source is not closed.
+     *
+     * @param source The daily weather source of the station
+     *
+     * @return A {@code HashMap} contains {@code TAV} and {@code TAMP}, the key
+     * is their ICASA variable name
+     * @throws IOException if the daily records could not be read
+     */
+    public static HashMap<String, String> getTavAndAmp(DailyWeatherSource source) throws IOException {
+        TavAmpAccumulator acc = new TavAmpAccumulator();
+        while (source.hasNext()) {
+            acc.add(source.next());
         }
+        return acc.getResults();
+    }
+
+    /**
+     * Calculate the TAV and TAMP from the monthly average temperature of each
+     * year
+     *
+     * @param tyear The monthly average temperature by year, {@code null} for
+     * the month without data
+     * @return A {@code HashMap} contains {@code tav} and {@code tamp}
+     */
+    static HashMap<String, String> calcTavAndAmp(HashMap<Integer, String[]> tyear) {
+
+        HashMap<String, String> results = new HashMap<String, String>();
+        MonthlyAvg tavAllYears;
+        ArrayList<String> tampAllYears;
+        String tav;
+        String tamp;
 
         // Calculate daily data
         tavAllYears = new MonthlyAvg();
         tampAllYears = new ArrayList();
         for (Iterator<Integer> it = tyear.keySet().iterator(); it.hasNext();) {
             int year = it.next();
-            tmonth = tyear.get(year);
-            String[] tavgs = tmonth.getAllAvg();
+            String[] tavgs = tyear.get(year);
             // TAV
             for (int month = 0; month < tavgs.length; month++) {
                 tavAllYears.add(month, tavgs[month]);
@@ -112,33 +181,29 @@ public class WeatherHelper {
      */
     private static class MonthlyAvg {
 
-        private int[] days = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
-        private String[] avg = new String[12];
+        private Accumulator[] avg = new Accumulator[12];
 
         public void add(int month, String val) {
             if (val == null) {
                 return;
             }
             if (this.avg[month] == null) {
-                this.avg[month] = val;
-                days[month] = 1;
-            } else {
-                this.avg[month] = sum(this.avg[month], val);
-                days[month]++;
+                this.avg[month] = new Accumulator();
             }
+            this.avg[month].add(val);
         }
 
         public String getAvg(int month) {
-            if (days[month] <= 0) {
+            if (avg[month] == null) {
                 return null;
             } else {
-                return divide(avg[month], days[month] + "");
+                return avg[month].result();
             }
         }
 
         public String[] getAllAvg() {
-            String[] ret = new String[days.length];
-            for (int i = 0; i < days.length; i++) {
+            String[] ret = new String[avg.length];
+            for (int i = 0; i < avg.length; i++) {
                 ret[i] = getAvg(i);
             }
             return ret;
@@ -182,166 +247,578 @@ public class WeatherHelper {
      * @return An {@code ArrayList} of {@code ETo} for daily weather record.
      */
     public static HashMap<String, ArrayList<String>> getEto(HashMap data) {
-        HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
         HashMap wthData = getWthData(data);
         ArrayList<HashMap<String, String>> dailyArr = getDailyData(data);
+        DerivedWeatherCache c = cache;
+        if (c == null) {
+            return getEto(wthData, DailySeries.of(dailyArr));
+        }
+        String key = DerivedWeatherCache.getKey(wthData, dailyArr);
+        HashMap<String, ArrayList<String>> results = c.getEto(key);
+        if (results == null) {
+            results = getEto(wthData, DailySeries.of(dailyArr));
+            c.putEto(key, results);
+        }
+        return results;
+    }
 
-        // Step 1. Atmospheric pressure (P) [kPa]
-        String wst_elev = getValueOr(wthData, "wst_elev", "");
-        if (wst_elev.equals("")) {
-            return results;
+    /**
+     * Calculate the reference evapotranspiration (ETo) by means of the
+     * FAO-Penman Monteith equation from the columnar daily data, same as
+     * {@link #getEto(HashMap)}. In {@code EXACT} precision mode the daily
+     * steps are evaluated by a primitive kernel which gives the same results
+     * after rounding.
+     *
+     * @param columns The columnar daily weather data of the station
+     *
+     * @return An {@code ArrayList} of {@code ETo} for daily weather record.
+     */
+    public static HashMap<String, ArrayList<String>> getEto(DailyWeatherColumns columns) {
+        if (getPrecisionMode() == PrecisionMode.DOUBLE) {
+            return getEto(columns.getMetaData(), DailySeries.of(columns));
+        }
+        HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
+        EtoStation station = EtoStation.of(columns.getMetaData());
+        if (station != null) {
+            results.put("eto", new EtoKernel(station, columns).calculate());
         }
-        String P = multiply("101.3", pow(divide(substract("293", product("0.0065", wst_elev)), "293"), "5.26"));
+        return results;
+    }
 
-        // Step 2. Psychrometric constant (γ)
-        String gamma = product("0.664742", "0.001", P);
+    /**
+     * Calculate the reference evapotranspiration (ETo) by means of the given
+     * method.
+     *
+     * @param data The data map
+     * @param method The calculation method
+     *
+     * @return An {@code ArrayList} of {@code ETo} for daily weather record.
+     * @see #getEto(DailyWeatherColumns, EtoMethod)
+     */
+    public static HashMap<String, ArrayList<String>> getEto(HashMap data, EtoMethod method) {
+        if (method == EtoMethod.PENMAN_MONTEITH) {
+            return getEto(data);
+        }
+        return getEto(DailyWeatherColumns.fromData(data), method);
+    }
 
-        // Eq.17 (Step 8)
-        // latitude [rad]
-        String wst_lat = getValueOr(wthData, "wst_lat", "");
-        String phi = divide(product(wst_lat, Math.PI + ""), "180");
+    /**
+     * Calculate the reference evapotranspiration (ETo) from the columnar daily
+     * data by means of the given method. Hargreaves-Samani only uses the
+     * temperature and the latitude, and Priestley-Taylor does not use the
+     * wind; both are evaluated with {@code double} and are much cheaper than
+     * {@link #getEto(DailyWeatherColumns)} which is used for
+     * {@code PENMAN_MONTEITH}.
+     *
+     * @param columns The columnar daily weather data of the station
+     * @param method The calculation method
+     *
+     * @return An {@code ArrayList} of {@code ETo} for daily weather record.
+     */
+    public static HashMap<String, ArrayList<String>> getEto(DailyWeatherColumns columns, EtoMethod method) {
+        if (method == EtoMethod.PENMAN_MONTEITH) {
+            return getEto(columns);
+        }
+        HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
+        EtoStation station = null;
+        if (method == EtoMethod.PRIESTLEY_TAYLOR) {
+            station = EtoStation.of(columns.getMetaData());
+            if (station == null) {
+                return results;
+            }
+        } else if (method != EtoMethod.HARGREAVES_SAMANI) {
+            LOG.error("ETo method is not given");
+            return results;
+        }
+        results.put("eto", new EmpiricalEtoKernel(method, station, columns).calculate());
+        return results;
+    }
 
-        // Get other potentially necessary meta data from Ace data set
-        String psyvnt = getValueOr(wthData, "psyvnt", "").trim();
-        String aPsy = "";
-        if (psyvnt.equals("Forced")) {
-            aPsy = "0.000662";
-        } else if (psyvnt.equals("Natural")) {
-            aPsy = "0.00800";
+    /**
+     * Calculate the ETo from the daily records of the source one by one, same
+     * as {@link #getEto(HashMap)}. The source is not closed.
+     *
+     * @param source The daily weather source of the station
+     *
+     * @return An {@code ArrayList} of {@code ETo} for daily weather record.
+     * @throws IOException if the daily records could not be read
+     */
+    public static HashMap<String, ArrayList<String>> getEto(DailyWeatherSource source) throws IOException {
+        HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
+        EtoStation station = EtoStation.of(source.getStationData());
+        if (station == null) {
+            return results;
         }
-        String rPsy = multiply(aPsy, P);
-        String amth = getValueOr(wthData, "amth", "0.25");
-        String bmth = getValueOr(wthData, "bmth", "0.50");
 
-        // Calculate daily ETO
+        // Calculate daily ETO with only the current record in memory
+        ArrayList<Map> current = new ArrayList<Map>(1);
+        current.add(null);
+        DailySeries dailyArr = DailySeries.of(current);
         ArrayList<String> etoArr = new ArrayList<String>();
-        for (int i = 0; i < dailyArr.size(); i++) {
-            HashMap<String, String> dailyData = dailyArr.get(i);
+        while (source.hasNext()) {
+            current.set(0, source.next());
+            etoArr.add(getDailyEto(station, dailyArr, 0));
+        }
+        results.put("eto", etoArr);
+        return results;
+    }
 
-            // Get daily TMAX and TMIN
-            String tMin = getValueOr(dailyData, "tmin", "").trim();
-            String tMax = getValueOr(dailyData, "tmax", "").trim();
-            if (tMin.equals("") || tMax.equals("")) {
-                etoArr.add(null);
-                continue;
-            }
+    /**
+     * Calculate the ETo in parallel, same as {@link #getEto(HashMap)}. The
+     * daily records are split by year and each year is calculated as one
+     * task of the executor. The executor is not shut down, and should not be
+     * the one running the caller, otherwise the tasks could wait for each
+     * other.
+     *
+     * @param data The data map
+     * @param executor The executor to run the calculations
+     *
+     * @return An {@code ArrayList} of {@code ETo} for daily weather record.
+     */
+    public static HashMap<String, ArrayList<String>> getEto(HashMap data, ExecutorService executor) {
+        return getEto(getWthData(data), DailySeries.of(getDailyData(data)), null, executor);
+    }
 
-            // Step 3. Mean air temperature (Tmean) [°C]
-            String tMean = average(tMin, tMax);
-
-            // Step 4. Saturation vapour pressure (es)
-            String e_tMax = multiply("0.6108", exp(divide(multiply("17.27", tMax), sum(tMax, "237.3"))));
-            String e_tMin = multiply("0.6108", exp(divide(multiply("17.27", tMin), sum(tMin, "237.3"))));
-            String es = average(e_tMax, e_tMin);
-
-            // Step 5. Slope of the saturation vapour pressure curve (Δ)
-            String slope = divide(product("4098", "0.6108", exp(divide(multiply("17.27", tMean), sum(tMean, "237.3")))), pow(sum(tMean, "237.3"), "2"));
-
-            // Step 6. Actual vapour pressure (ea) [kPa]
-            String ea;
-            String alt1;
-            String alt2;
-            // Method 1 IF VPRSD is available in the ACE data base
-            if (!(alt1 = getValueOr(dailyData, "vprsd", "").trim()).equals("")) {
-                // ea = VPRSD
-                ea = alt1;
-
-            } // Method 2 IF TDEW is available in the ACE data base
-            else if (!(alt1 = getValueOr(dailyData, "tdew", "").trim()).equals("")) {
-                // derive ea from the given dew point temperature
-                ea = multiply("0.6108", exp(divide(multiply("17.27", alt1), sum(alt1, "237.3"))));
-
-            } // Method 3 IF RHMND and RHMXD are available in the ACE data base
-            else if (!(alt1 = getValueOr(dailyData, "rhmxd", "").trim()).equals("")
-                    && !(alt2 = getValueOr(dailyData, "rhmnd", getValueOr(dailyData, "rhumd", "")).trim()).equals("")) {
-                // ea from the given maximum and minimum Relative Humidity
-                ea = average(product(e_tMin, alt1, "0.01"), product(e_tMax, alt2, "0.01"));
-
-            } // Method 4 IF TDRY, TWET and PSYVNT are available in the ACE data base
-            else if (!(alt1 = getValueOr(dailyData, "tdry", "").trim()).equals("")
-                    && !(alt2 = getValueOr(dailyData, "twet", "").trim()).equals("")
-                    && rPsy != null) {
-                // derive ea from the psychrometric data
-                String e_tWet = multiply("0.6108", exp(divide(multiply("17.27", alt2), sum(alt2, "237.3"))));
-                ea = substract(e_tWet, multiply(rPsy, substract(alt1, alt2)));
-
-            } // Method 5 use Tmin as an approximation of Tdew
-            else {
-                ea = e_tMin;
+    /**
+     * Calculate the ETo from the columnar daily data in parallel, same as
+     * {@link #getEto(DailyWeatherColumns)}. The daily records are split by
+     * year and each year is calculated as one task of the executor. The
+     * executor is not shut down.
+     *
+     * @param columns The columnar daily weather data of the station
+     * @param executor The executor to run the calculations
+     *
+     * @return An {@code ArrayList} of {@code ETo} for daily weather record.
+     */
+    public static HashMap<String, ArrayList<String>> getEto(DailyWeatherColumns columns, ExecutorService executor) {
+        boolean isDouble = getPrecisionMode() == PrecisionMode.DOUBLE;
+        return getEto(columns.getMetaData(), DailySeries.of(columns), isDouble ? null : columns, executor);
+    }
+
+    /**
+     * Calculate the TAV, TAMP and ETo for a batch of weather stations in
+     * parallel with a fixed thread pool, which is shut down when finished.
+     *
+     * @param weathers The weather station data sets, e.g. the
+     * {@code weathers} array of the combined data
+     * @param threads The number of threads, or 0 for the number of available
+     * processors
+     *
+     * @return The results by station, see
+     * {@link #getTavAmpAndEto(List, ExecutorService)}
+     */
+    public static LinkedHashMap<String, HashMap<String, Object>> getTavAmpAndEto(List<? extends HashMap> weathers, int threads) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            return getTavAmpAndEto(weathers, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Calculate the TAV, TAMP and ETo for a batch of weather stations in
+     * parallel. Each station is calculated as one task of the executor, and a
+     * station which fails is logged and left out of the results without
+     * affecting the others. The executor is not shut down.
+     *
+     * @param weathers The weather station data sets, e.g. the
+     * {@code weathers} array of the combined data
+     * @param executor The executor to run the calculations
+     *
+     * @return The results in the input order, keyed by {@code wst_id}, or by
+     * {@code wst_id} and {@code clim_id} joined with "_" when the
+     * {@code wst_id} is used by more than one station. Each result contains
+     * {@code tav}, {@code tamp} and {@code eto} as given by
+     * {@link #getTavAndAmp(DailyWeatherColumns)} and
+     * {@link #getEto(DailyWeatherColumns)}.
+     */
+    public static LinkedHashMap<String, HashMap<String, Object>> getTavAmpAndEto(List<? extends HashMap> weathers, ExecutorService executor) {
+        LinkedHashMap<String, HashMap<String, Object>> results = new LinkedHashMap<String, HashMap<String, Object>>();
+        if (weathers == null || weathers.isEmpty()) {
+            return results;
+        }
+        String[] keys = getStationKeys(weathers);
+        ArrayList<Future<HashMap<String, Object>>> futures = new ArrayList<Future<HashMap<String, Object>>>();
+        for (final HashMap weather : weathers) {
+            futures.add(executor.submit(new Callable<HashMap<String, Object>>() {
+                @Override
+                public HashMap<String, Object> call() {
+                    return calcTavAmpAndEto(weather);
+                }
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.put(keys[i], futures.get(i).get());
+            } catch (ExecutionException e) {
+                LOG.error("Failed to calculate weather station [" + keys[i] + "]", e.getCause());
+            } catch (CancellationException e) {
+                LOG.error("Calculation of weather station [{}] is cancelled", keys[i]);
+            } catch (InterruptedException e) {
+                LOG.warn("Interrupted, the rest of {} weather stations are skipped", futures.size() - i);
+                for (Future future : futures) {
+                    future.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                break;
             }
+        }
+        return results;
+    }
 
-            // Step 7. Vapour pressure difference (es - ea)
-            String vpDiff = substract(es, ea);
+    private static HashMap<String, Object> calcTavAmpAndEto(HashMap weather) {
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(weather);
+        HashMap<String, Object> ret = new HashMap<String, Object>(getTavAndAmp(columns));
+        ret.putAll(getEto(columns));
+        return ret;
+    }
 
-            // Step 8. Extra terrestrial radiation (Ra) and daylight hours (N)
-            Date w_date = convertFromAgmipDateString(getValueOr(dailyData, "w_date", ""));
-            if (w_date == null) {
-                etoArr.add(null);
-                continue;
+    /**
+     * Get the unique key for each station, {@code wst_id}, or {@code wst_id}
+     * and {@code clim_id} when the {@code wst_id} is duplicated
+     */
+    private static String[] getStationKeys(List<? extends HashMap> weathers) {
+        String[] ids = new String[weathers.size()];
+        HashMap<String, Integer> counts = new HashMap<String, Integer>();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = getStationValue(weathers.get(i), "wst_id");
+            Integer count = counts.get(ids[i]);
+            counts.put(ids[i], count == null ? 1 : count + 1);
+        }
+        String[] keys = new String[ids.length];
+        HashSet<String> used = new HashSet<String>();
+        for (int i = 0; i < ids.length; i++) {
+            String key = ids[i];
+            if (counts.get(key) > 1) {
+                key += "_" + getStationValue(weathers.get(i), "clim_id");
             }
-            Calendar cal = Calendar.getInstance();
-            cal.setTime((w_date));
-            String J = cal.get(Calendar.DAY_OF_YEAR) + "";
-            String dr = sum("1", multiply("0.033", cos(product("2", divide(Math.PI + "", "365"), J))));
-            String delta = multiply("0.409", sin(substract(product("2", divide(Math.PI + "", "365"), J), "1.39")));
-            String omegas = acos(product("-1", tan(phi), tan(delta)));
-            String ra = divide(product("1440", "0.0820", dr, sum(product(omegas, sin(phi), sin(delta)), product(cos(phi), cos(delta), sin(omegas)))), Math.PI + ""); // TODO
-            String N = divide(multiply("24", omegas), Math.PI + "");
-
-            // Step 9. Solar radiation (Rs)
-            String rs;
-            // Method 1. IF SRAD is available in the ACE data base
-            if (!(alt1 = getValueOr(dailyData, "srad", "").trim()).equals("")) {
-                rs = alt1;
-            } // Method 2. IF SUNH is available in the ACE data base
-            else if (!(alt1 = getValueOr(dailyData, "sunh", "").trim()).equals("")) {
-                rs = multiply(sum(amth, divide(multiply(bmth, alt1), N)), ra);
-            } // Method 3. LSE use Tmin and Tmax to estimate Rs by means of the Hargreaves equation
-            else {
-                rs = product(getKrsValue(wthData), sqrt(substract(tMax, tMin)), ra);
+            String uniqueKey = key;
+            for (int n = 2; used.contains(uniqueKey); n++) {
+                uniqueKey = key + "_" + n;
             }
+            used.add(uniqueKey);
+            keys[i] = uniqueKey;
+        }
+        return keys;
+    }
 
-            // Step 10. Clear-Sky solar radiation (Rso)
-            String rso = multiply(sum("0.75", product("2e-5", wst_elev)), ra);
-
-            // Step 11. Net solar radiation (Rns)
-            String rns = multiply(substract("1", "0.23"), rs);
-
-            // Step 12. Net long wave  radiation (Rnl)
-            String rnl = product("4.903e-9",
-                    average(pow(sum(tMax, "273.16"), "4"), pow(sum(tMin, "273.16"), "4")),
-                    substract("0.34", multiply("0.14", sqrt(ea))),
-                    substract(divide(multiply("1.35", rs), rso), "0.35"));
-
-            // Step 13. Net radiation (Rn)
-            String rn = substract(rns, rnl);
-
-            // Step 14. Wind speed at 2 meter above ground level (u2)
-            // Method 1. WIND is given in the ACE data base
-            String u2;
-            if (!(alt1 = getValueOr(dailyData, "wind", "").trim()).equals("")) {
-                String uz = divide(multiply("1000", alt1), "86400", 4);
-                // CASE 1. Reference height for wind speed measurement (WNDHT)  is 2 meter
-                if (compare(alt2 = getValueOr(wthData, "wndht", "").trim(), "2", CompareMode.EQUAL)) {
-                    u2 = uz;
-                } // CASE 2. Reference height for wind speed measurement (WNDHT)  is NOT 2 meter
-                else {
-                    u2 = divide(multiply(uz, "4.87"), log(substract(multiply("67.8", alt2), "5.42")));
+    private static String getStationValue(HashMap weather, String key) {
+        String value = weather == null ? "" : getValueOr(getWthData(weather), key, "").trim();
+        return value.equals("") ? key + "-N/A" : value;
+    }
+
+    private static HashMap<String, ArrayList<String>> getEto(Map wthData, DailySeries dailyArr) {
+        HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
+        EtoStation station = EtoStation.of(wthData);
+        if (station == null) {
+            return results;
+        }
+
+        // Calculate daily ETO
+        results.put("eto", getDailyEto(station, dailyArr, 0, dailyArr.size()));
+        return results;
+    }
+
+    private static HashMap<String, ArrayList<String>> getEto(Map wthData, final DailySeries dailyArr, DailyWeatherColumns columns, ExecutorService executor) {
+        HashMap<String, ArrayList<String>> results = new HashMap<String, ArrayList<String>>();
+        final EtoStation station = EtoStation.of(wthData);
+        if (station == null) {
+            return results;
+        }
+        final EtoKernel kernel = columns == null ? null : new EtoKernel(station, columns);
+
+        // Calculate daily ETO of each year as one task
+        ArrayList<Future<ArrayList<String>>> futures = new ArrayList<Future<ArrayList<String>>>();
+        int from = 0;
+        while (from < dailyArr.size()) {
+            final int start = from;
+            final int end = getYearEnd(dailyArr, from);
+            futures.add(executor.submit(new Callable<ArrayList<String>>() {
+                @Override
+                public ArrayList<String> call() {
+                    if (kernel != null) {
+                        return kernel.calculate(start, end);
+                    } else {
+                        return getDailyEto(station, dailyArr, start, end);
+                    }
                 }
-            } else {
-                u2 = "2";
+            }));
+            from = end;
+        }
+        ArrayList<String> etoArr = new ArrayList<String>(dailyArr.size());
+        try {
+            for (Future<ArrayList<String>> future : futures) {
+                etoArr.addAll(future.get());
             }
-
-            // Step 15. Reference evapotranspiration (ETo)
-            String eto = divide(
-                    sum(product("0.408", slope, rn), divide(product(gamma, "900", u2, vpDiff), sum(tMean, "273"))),
-                    sum(slope, multiply(gamma, sum("1", multiply("0.34", u2)))));
-            etoArr.add(round(eto, 2));
+        } catch (ExecutionException e) {
+            for (Future future : futures) {
+                future.cancel(true);
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            LOG.warn("Interrupted, ETo is not calculated");
+            for (Future future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            return results;
         }
         results.put("eto", etoArr);
         return results;
     }
 
+    /**
+     * Get the end of the year which starts from the daily record, the
+     * records without valid date stay with the previous records
+     *
+     * @return The index of the first record of next year
+     */
+    private static int getYearEnd(DailySeries dailyArr, int from) {
+        int year = Integer.MIN_VALUE;
+        for (int i = from; i < dailyArr.size(); i++) {
+            int epochDay = dailyArr.getEpochDay(i);
+            if (epochDay == DateCodec.INVALID) {
+                continue;
+            } else if (year == Integer.MIN_VALUE) {
+                year = DateCodec.getYear(epochDay);
+            } else if (DateCodec.getYear(epochDay) != year) {
+                return i;
+            }
+        }
+        return dailyArr.size();
+    }
+
+    /**
+     * Calculate the ETo of the range of daily records
+     *
+     * @param station The station level terms
+     * @param dailyArr The daily weather records
+     * @param from The index of the first record, inclusive
+     * @param to The index of the last record, exclusive
+     * @return The ETo of each daily record in range
+     */
+    private static ArrayList<String> getDailyEto(EtoStation station, DailySeries dailyArr, int from, int to) {
+        ArrayList<String> etoArr = new ArrayList<String>(to - from);
+        for (int i = from; i < to; i++) {
+            etoArr.add(getDailyEto(station, dailyArr, i));
+        }
+        return etoArr;
+    }
+
+    /**
+     * The station level terms of the ETo calculation
+     */
+    static class EtoStation {
+
+        final Map wthData;
+        final String wst_elev;
+        final String P;
+        final String gamma;
+        final String rPsy;
+        final String amth;
+        final String bmth;
+        final SolarGeometry solar;
+
+        private EtoStation(Map wthData, String wst_elev, String P, String gamma, String phi, String rPsy, String amth, String bmth) {
+            this.wthData = wthData;
+            this.wst_elev = wst_elev;
+            this.P = P;
+            this.gamma = gamma;
+            this.rPsy = rPsy;
+            this.amth = amth;
+            this.bmth = bmth;
+            this.solar = SolarGeometry.of(phi);
+        }
+
+        /**
+         * Calculate the station level terms
+         *
+         * @param wthData The weather station data set
+         * @return The station terms, or {@code null} if the elevation is
+         * missing
+         */
+        static EtoStation of(Map wthData) {
+
+            // Step 1. Atmospheric pressure (P) [kPa]
+            String wst_elev = getValueOr(wthData, "wst_elev", "");
+            if (wst_elev.equals("")) {
+                return null;
+            }
+            String P = multiply("101.3", pow(divide(substract("293", product("0.0065", wst_elev)), "293"), "5.26"));
+
+            // Step 2. Psychrometric constant (γ)
+            String gamma = product("0.664742", "0.001", P);
+
+            // Eq.17 (Step 8)
+            String phi = getLatitude(wthData);
+
+            // Get other potentially necessary meta data from Ace data set
+            String psyvnt = getValueOr(wthData, "psyvnt", "").trim();
+            String aPsy = "";
+            if (psyvnt.equals("Forced")) {
+                aPsy = "0.000662";
+            } else if (psyvnt.equals("Natural")) {
+                aPsy = "0.00800";
+            }
+            String rPsy = multiply(aPsy, P);
+            String amth = getValueOr(wthData, "amth", "0.25");
+            String bmth = getValueOr(wthData, "bmth", "0.50");
+
+            return new EtoStation(wthData, wst_elev, P, gamma, phi, rPsy, amth, bmth);
+        }
+
+        /**
+         * Get the latitude of the station
+         *
+         * @param wthData The weather station data set
+         * @return The latitude [rad], or {@code null} if missing
+         */
+        static String getLatitude(Map wthData) {
+            String wst_lat = getValueOr(wthData, "wst_lat", "");
+            return divide(product(wst_lat, Math.PI + ""), "180");
+        }
+    }
+
+    /**
+     * Calculate the ETo of one daily record
+     *
+     * @param station The station level terms
+     * @param dailyArr The daily weather records
+     * @param i The index of daily record
+     * @return The ETo rounded to 2 decimals, or {@code null} if the record is
+     * not valid for calculation
+     */
+    static String getDailyEto(EtoStation station, DailySeries dailyArr, int i) {
+        Map wthData = station.wthData;
+        String wst_elev = station.wst_elev;
+        String gamma = station.gamma;
+        String rPsy = station.rPsy;
+        String amth = station.amth;
+        String bmth = station.bmth;
+
+        // Get daily TMAX and TMIN
+        String tMin = dailyArr.getTrimmed(i, "tmin");
+        String tMax = dailyArr.getTrimmed(i, "tmax");
+        if (tMin.equals("") || tMax.equals("")) {
+            return null;
+        }
+
+        // Step 3. Mean air temperature (Tmean) [°C]
+        String tMean = average(tMin, tMax);
+
+        // Step 4. Saturation vapour pressure (es)
+        String e_tMax = multiply("0.6108", exp(divide(multiply("17.27", tMax), sum(tMax, "237.3"))));
+        String e_tMin = multiply("0.6108", exp(divide(multiply("17.27", tMin), sum(tMin, "237.3"))));
+        String es = average(e_tMax, e_tMin);
+
+        // Step 5. Slope of the saturation vapour pressure curve (Δ)
+        String slope = divide(product("4098", "0.6108", exp(divide(multiply("17.27", tMean), sum(tMean, "237.3")))), pow(sum(tMean, "237.3"), "2"));
+
+        // Step 6. Actual vapour pressure (ea) [kPa]
+        String ea;
+        String alt1;
+        String alt2;
+        // Method 1 IF VPRSD is available in the ACE data base
+        if (!(alt1 = dailyArr.getTrimmed(i, "vprsd")).equals("")) {
+            // ea = VPRSD
+            ea = alt1;
+
+        } // Method 2 IF TDEW is available in the ACE data base
+        else if (!(alt1 = dailyArr.getTrimmed(i, "tdew")).equals("")) {
+            // derive ea from the given dew point temperature
+            ea = multiply("0.6108", exp(divide(multiply("17.27", alt1), sum(alt1, "237.3"))));
+
+        } // Method 3 IF RHMND and RHMXD are available in the ACE data base
+        else if (!(alt1 = dailyArr.getTrimmed(i, "rhmxd")).equals("")
+                && !(alt2 = dailyArr.getTrimmed(i, dailyArr.get(i, "rhmnd") != null ? "rhmnd" : "rhumd")).equals("")) {
+            // ea from the given maximum and minimum Relative Humidity
+            ea = average(product(e_tMin, alt1, "0.01"), product(e_tMax, alt2, "0.01"));
+
+        } // Method 4 IF TDRY, TWET and PSYVNT are available in the ACE data base
+        else if (!(alt1 = dailyArr.getTrimmed(i, "tdry")).equals("")
+                && !(alt2 = dailyArr.getTrimmed(i, "twet")).equals("")
+                && rPsy != null) {
+            // derive ea from the psychrometric data
+            String e_tWet = multiply("0.6108", exp(divide(multiply("17.27", alt2), sum(alt2, "237.3"))));
+            ea = substract(e_tWet, multiply(rPsy, substract(alt1, alt2)));
+
+        } // Method 5 use Tmin as an approximation of Tdew
+        else {
+            ea = e_tMin;
+        }
+
+        // Step 7. Vapour pressure difference (es - ea)
+        String vpDiff = substract(es, ea);
+
+        // Step 8. Extra terrestrial radiation (Ra) and daylight hours (N)
+        int w_date = dailyArr.getEpochDay(i);
+        if (w_date == DateCodec.INVALID) {
+            return null;
+        }
+        int J = DateCodec.getDayOfYear(w_date);
+        String ra = station.solar.getRa(J);
+        String N = station.solar.getDaylightHours(J);
+
+        // Step 9. Solar radiation (Rs)
+        String rs;
+        // Method 1. IF SRAD is available in the ACE data base
+        if (!(alt1 = dailyArr.getTrimmed(i, "srad")).equals("")) {
+            rs = alt1;
+        } // Method 2. IF SUNH is available in the ACE data base
+        else if (!(alt1 = dailyArr.getTrimmed(i, "sunh")).equals("")) {
+            rs = multiply(sum(amth, divide(multiply(bmth, alt1), N)), ra);
+        } // Method 3. LSE use Tmin and Tmax to estimate Rs by means of the Hargreaves equation
+        else {
+            rs = product(getKrsValue(wthData), sqrt(substract(tMax, tMin)), ra);
+        }
+
+        // Step 10. Clear-Sky solar radiation (Rso)
+        String rso = multiply(sum("0.75", product("2e-5", wst_elev)), ra);
+
+        // Step 11. Net solar radiation (Rns)
+        String rns = multiply(substract("1", "0.23"), rs);
+
+        // Step 12. Net long wave  radiation (Rnl)
+        String rnl = product("4.903e-9",
+                average(pow(sum(tMax, "273.16"), "4"), pow(sum(tMin, "273.16"), "4")),
+                substract("0.34", multiply("0.14", sqrt(ea))),
+                substract(divide(multiply("1.35", rs), rso), "0.35"));
+
+        // Step 13. Net radiation (Rn)
+        String rn = substract(rns, rnl);
+
+        // Step 14. Wind speed at 2 meter above ground level (u2)
+        // Method 1. WIND is given in the ACE data base
+        String u2;
+        if (!(alt1 = dailyArr.getTrimmed(i, "wind")).equals("")) {
+            String uz = divide(multiply("1000", alt1), "86400", 4);
+            // CASE 1. Reference height for wind speed measurement (WNDHT)  is 2 meter
+            if (compare(alt2 = getValueOr(wthData, "wndht", "").trim(), "2", CompareMode.EQUAL)) {
+                u2 = uz;
+            } // CASE 2. Reference height for wind speed measurement (WNDHT)  is NOT 2 meter
+            else {
+                u2 = divide(multiply(uz, "4.87"), log(substract(multiply("67.8", alt2), "5.42")));
+            }
+        } else {
+            u2 = "2";
+        }
+
+        // Step 15. Reference evapotranspiration (ETo)
+        String eto = divide(
+                sum(product("0.408", slope, rn), divide(product(gamma, "900", u2, vpDiff), sum(tMean, "273"))),
+                sum(slope, multiply(gamma, sum("1", multiply("0.34", u2)))));
+        return round(eto, 2);
+    }
+
     /**
      * Based on the location of weather station, return the adjustment
      * coefficient used for Solar radiation calculation. The default value is
@@ -350,7 +827,7 @@ public class WeatherHelper {
      * @param data The data map
      * @return adjustment coefficient [°C-0.5]
      */
-    private static String getKrsValue(HashMap data) {
+    static String getKrsValue(Map data) {
         // TODO waiting for GIS system imported
         return "0.16";  // or "0.19";
     }
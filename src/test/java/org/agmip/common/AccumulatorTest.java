@@ -0,0 +1,71 @@
+package org.agmip.common;
+
+import org.agmip.common.Functions.PrecisionMode;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class AccumulatorTest {
+
+    private static final String[] VALUES = {"12.5", "13.25", "-2", "7.1", "0.333"};
+
+    @Test
+    public void matchFunctions() {
+        Accumulator acc = new Accumulator(PrecisionMode.EXACT);
+        for (String v : VALUES) {
+            assertTrue("Valid value is skipped", acc.add(v));
+        }
+        assertEquals("Count is wrong", VALUES.length, acc.getCount());
+        PrecisionMode mode = Functions.getPrecisionMode();
+        try {
+            Functions.setPrecisionMode(PrecisionMode.EXACT);
+            assertEquals("Sum is not matched", Functions.sum(VALUES), acc.getSum());
+            assertEquals("Average is not matched", Functions.average(VALUES), acc.result());
+            assertEquals("Scaled average is not matched", Functions.average(2, VALUES), acc.result(2));
+            assertEquals("Min is not matched", Functions.min(VALUES), acc.getMin());
+            assertEquals("Max is not matched", Functions.max(VALUES), acc.getMax());
+        } finally {
+            Functions.setPrecisionMode(mode);
+        }
+    }
+
+    @Test
+    public void indivisibleAverage() {
+        Accumulator acc = new Accumulator(PrecisionMode.EXACT);
+        acc.add("1.5");
+        acc.add("2");
+        acc.add("3");
+        PrecisionMode mode = Functions.getPrecisionMode();
+        try {
+            Functions.setPrecisionMode(PrecisionMode.EXACT);
+            assertEquals("Average is not matched", Functions.average("1.5", "2", "3"), acc.result());
+        } finally {
+            Functions.setPrecisionMode(mode);
+        }
+    }
+
+    @Test
+    public void doubleMode() {
+        Accumulator acc = new Accumulator(PrecisionMode.DOUBLE);
+        acc.add("12.5");
+        acc.add(13.25);
+        acc.add(-2);
+        assertEquals("Sum is wrong", "23.75", acc.getSum());
+        assertEquals("Scaled average is wrong", "7.92", acc.result(2));
+        assertEquals("Min is wrong", "-2", acc.getMin());
+        assertEquals("Max is wrong", "13.25", acc.getMax());
+        assertEquals("Sum is wrong", 23.75, acc.doubleSum(), 0);
+    }
+
+    @Test
+    public void skipInvalidValue() {
+        Accumulator acc = new Accumulator(PrecisionMode.EXACT);
+        assertFalse("Null value is added", acc.add((String) null));
+        assertFalse("Invalid value is added", acc.add("abc"));
+        assertFalse("NaN is added", acc.add(Double.NaN));
+        assertNull("Average of nothing", acc.result());
+        assertNull("Sum of nothing", acc.getSum());
+        acc.add(1.5);
+        acc.reset();
+        assertEquals("Reset failed", 0, acc.getCount());
+    }
+}
@@ -0,0 +1,58 @@
+package org.agmip.common;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class AgmipDateTest {
+
+    @Test
+    public void valueOfRoundTrip() {
+        AgmipDate date = AgmipDate.valueOf("20120229");
+        assertEquals("Date string is wrong", "20120229", date.toString());
+        assertEquals("Year is wrong", 2012, date.getYear());
+        assertEquals("Month is wrong", 2, date.getMonth());
+        assertEquals("Day is wrong", 29, date.getDay());
+        assertEquals("Month day is wrong", 229, date.getMonthDay());
+        assertEquals("Day of year is wrong", 60, date.getDayOfYear());
+        assertEquals("Epoch date is wrong", AgmipDate.ofEpochDay(date.getEpochDay()), date);
+        assertEquals("Lenient date is wrong", date, AgmipDate.of(2012, 3, 0));
+    }
+
+    @Test
+    public void valueOfIntentionalFailure() {
+        assertNull("Parsed invalid date", AgmipDate.valueOf("20110229"));
+        assertNull("Parsed null date", AgmipDate.valueOf(null));
+        assertNull("Created invalid date", AgmipDate.ofEpochDay(DateCodec.INVALID));
+    }
+
+    @Test
+    public void dateOffsetMatchString() {
+        AgmipDate date = AgmipDate.valueOf("20120101");
+        assertEquals("Date offset is not matched", Functions.dateOffset("20120101", "-30"), Functions.dateOffset(date, -30).toString());
+        assertEquals("Date offset is not matched", Functions.dateOffset("20120101", "400"), Functions.dateOffset(date, 400).toString());
+        assertEquals("Year offset is not matched", Functions.yearOffset("20120229", "1"), Functions.yearOffset(AgmipDate.valueOf("20120229"), 1).toString());
+        assertNull("Offset missing date", Functions.dateOffset((AgmipDate) null, 1));
+        assertNull("Offset missing date", Functions.yearOffset((AgmipDate) null, 1));
+    }
+
+    @Test
+    public void calcDAP() {
+        AgmipDate pdate = AgmipDate.valueOf("20120301");
+        AgmipDate date = AgmipDate.valueOf("20120415");
+        assertEquals("DAP is not matched", Functions.calcDAP("20120415", "20120301"), Functions.calcDAP(date, pdate) + "");
+        assertEquals("Negative DAP is wrong", -45, Functions.calcDAP(pdate, date));
+        assertEquals("DAP for missing date", DateCodec.INVALID, Functions.calcDAP(date, null));
+    }
+
+    @Test
+    public void compare() {
+        AgmipDate d1 = AgmipDate.valueOf("20111231");
+        AgmipDate d2 = d1.plusDays(1);
+        assertEquals("Next day is wrong", "20120101", d2.toString());
+        assertTrue("Order is wrong", d1.isBefore(d2));
+        assertTrue("Order is wrong", d2.isAfter(d1));
+        assertTrue("Order is wrong", d1.compareTo(d2) < 0);
+        assertEquals("Difference is wrong", 1, d1.daysUntil(d2));
+        assertEquals("Hash code is not matched", AgmipDate.valueOf("20120101").hashCode(), d2.hashCode());
+    }
+}
@@ -0,0 +1,74 @@
+package org.agmip.common;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import static org.agmip.common.DateCodec.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class DateCodecTest {
+
+    @Test
+    public void parseEpoch() {
+        assertEquals("Epoch day is wrong", 0, DateCodec.parse("19700101"));
+        assertEquals("Epoch day is wrong", -1, DateCodec.parse("19691231"));
+        assertEquals("Epoch day is wrong", 15340, DateCodec.parse("20120101"));
+    }
+
+    @Test
+    public void parseIntentionalFailure() {
+        assertEquals("Parsed null date", INVALID, DateCodec.parse(null));
+        assertEquals("Parsed short date", INVALID, DateCodec.parse("1"));
+        assertEquals("Parsed invalid month", INVALID, DateCodec.parse("20121301"));
+        assertEquals("Parsed invalid day", INVALID, DateCodec.parse("20110229"));
+        assertEquals("Parsed non-digit date", INVALID, DateCodec.parse("2012-1-1"));
+    }
+
+    @Test
+    public void formatMatchSimpleDateFormat() {
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyyMMdd");
+        GregorianCalendar cal = new GregorianCalendar(1900, 0, 1);
+        int epochDay = DateCodec.parse("19000101");
+        while (cal.get(Calendar.YEAR) < 2101) {
+            String expected = fmt.format(cal.getTime());
+            assertEquals("Format is wrong", expected, format(epochDay));
+            assertEquals("Parse is wrong", epochDay, DateCodec.parse(expected));
+            assertEquals("Day of year is wrong for " + expected, cal.get(Calendar.DAY_OF_YEAR), getDayOfYear(epochDay));
+            cal.add(Calendar.DATE, 1);
+            epochDay++;
+        }
+    }
+
+    @Test
+    public void leapYear() {
+        assertTrue("2000 is leap year", isLeapYear(2000));
+        assertFalse("1900 is not leap year", isLeapYear(1900));
+        assertTrue("2012 is leap year", isLeapYear(2012));
+        assertEquals("Feb 29 is wrong", "20120229", format(DateCodec.parse("20120228") + 1));
+    }
+
+    @Test
+    public void lenientOf() {
+        assertEquals("Day 0 should be last day of previous month", "20111231", format(of(2012, 1, 0)));
+        assertEquals("Month 13 should be next January", "20130101", format(of(2012, 13, 1)));
+        assertEquals("Day overflow should move to next month", "20120301", format(of(2012, 2, 30)));
+    }
+
+    @Test
+    public void addYearsLeapDay() {
+        assertEquals("Feb 29 should become Feb 28", "20130228", format(addYears(DateCodec.parse("20120229"), 1)));
+        assertEquals("Feb 29 should be kept", "20160229", format(addYears(DateCodec.parse("20120229"), 4)));
+        assertEquals("Reverse offset is wrong", "20100315", format(addYears(DateCodec.parse("20120315"), -2)));
+    }
+
+    @Test
+    public void dateRoundTrip() {
+        Date d = toDate(DateCodec.parse("20120101"));
+        assertEquals("Date is wrong", new Date(2012 - 1900, 0, 1), d);
+        assertEquals("Epoch day is wrong", DateCodec.parse("20120101"), fromDate(d));
+        assertNull("Converted invalid date", toDate(INVALID));
+        assertEquals("Converted null date", INVALID, fromDate(null));
+    }
+}
@@ -0,0 +1,125 @@
+package org.agmip.common;
+
+import static org.agmip.common.DoubleFunctions.*;
+import org.agmip.common.Functions.CompareMode;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class DoubleFunctionsTest {
+
+    @Test
+    public void parseValid() {
+        assertEquals("Parse failed", 1.5, parse("1.5"), 0);
+        assertEquals("Parse failed", -2e-5, parse("-2e-5"), 0);
+        assertEquals("Parse failed", 100, parse("+100"), 0);
+    }
+
+    @Test
+    public void parseIntentionalFailure() {
+        assertTrue("Parsed null string", Double.isNaN(parse((String) null)));
+        assertTrue("Parsed blank string", Double.isNaN(parse("")));
+        assertTrue("Parsed invalid string", Double.isNaN(parse("abc")));
+        assertTrue("Parsed NaN string", Double.isNaN(parse("NaN")));
+        assertTrue("Parsed infinity string", Double.isNaN(parse("Infinity")));
+        assertTrue("Parsed suffixed string", Double.isNaN(parse("1.5d")));
+        assertTrue("Parsed string with space", Double.isNaN(parse(" 1.5")));
+    }
+
+    @Test
+    public void toStringPlain() {
+        assertEquals("Format failed", "3", DoubleFunctions.toString(3.0));
+        assertEquals("Format failed", "300", DoubleFunctions.toString(300.0));
+        assertEquals("Format failed", "0.00002", DoubleFunctions.toString(2e-5));
+        assertEquals("Format failed", "-1.25", DoubleFunctions.toString(-1.25));
+        assertNull("Formatted NaN", DoubleFunctions.toString(Double.NaN));
+    }
+
+    @Test
+    public void roundSameAsFunctions() {
+        double[] values = {1.005, 2.675, 3.14159, -1.5, 1234.5678, 0.125};
+        for (double value : values) {
+            assertEquals("Round is not matched with Functions.round", Functions.round(value + "", 2), round(value, 2));
+        }
+        assertNull("Rounded NaN", round(Double.NaN, 2));
+    }
+
+    @Test
+    public void roundHalfUpSimple() {
+        assertEquals("Round half up failed", 0.13, roundHalfUp(0.125, 2), 0);
+        assertEquals("Round half up failed", -0.13, roundHalfUp(-0.125, 2), 0);
+        assertEquals("Round half up failed", 3.1416, roundHalfUp(3.14159, 4), 0);
+    }
+
+    @Test
+    public void nearHalfWay() {
+        assertTrue("Half-way point is not detected", isNearHalfWay(1.005, 2, 1e-6));
+        assertTrue("Half-way point is not detected", isNearHalfWay(-0.1235, 3, 1e-6));
+        assertFalse("Value is near half-way point", isNearHalfWay(1.004, 2, 1e-6));
+        assertTrue("Large value can be rounded", isNearHalfWay(1e12 + 0.25, 3, 1e-6));
+        assertTrue("NaN can be rounded", isNearHalfWay(Double.NaN, 2, 1e-6));
+    }
+
+    @Test
+    public void sumMultiple() {
+        assertEquals("Sum failed", 6.5, sum(1, 2.5, 3), 0);
+    }
+
+    @Test
+    public void sumIntentionalFailure() {
+        assertTrue("Sum of NaN should be NaN", Double.isNaN(sum(1, Double.NaN)));
+        assertTrue("Sum of nothing should be NaN", Double.isNaN(sum()));
+    }
+
+    @Test
+    public void substractMultiple() {
+        assertEquals("Substract failed", 4.5, substract(10, 2.5, 3), 0);
+        assertEquals("Substract failed", 10, substract(10, (double[]) null), 0);
+    }
+
+    @Test
+    public void productMultiple() {
+        assertEquals("Product failed", 7.5, product(1.5, 2, 2.5), 0);
+    }
+
+    @Test
+    public void divideIntentionalFailure() {
+        assertEquals("Divide failed", 2.5, divide(5, 2), 0);
+        assertTrue("Divide by zero should be NaN", Double.isNaN(divide(5, 0)));
+    }
+
+    @Test
+    public void averageSimple() {
+        assertEquals("Average failed", 2, average(1, 2, 3), 0);
+        assertTrue("Average of nothing should be NaN", Double.isNaN(average()));
+    }
+
+    @Test
+    public void minMaxSkipNaN() {
+        assertEquals("Min failed", 1, min(Double.NaN, 3, 1, 2), 0);
+        assertEquals("Max failed", 3, max(Double.NaN, 3, 1, 2), 0);
+        assertTrue("Min of NaN should be NaN", Double.isNaN(min(Double.NaN)));
+    }
+
+    @Test
+    public void compareModes() {
+        assertTrue("Compare failed", compare(1, 2, CompareMode.LESS));
+        assertTrue("Compare failed", compare(2, 2, CompareMode.NOTLESS));
+        assertTrue("Compare failed", compare(3, 2, CompareMode.GREATER));
+        assertTrue("Compare failed", compare(2, 2, CompareMode.NOTGREATER));
+        assertTrue("Compare failed", compare(2, 2, CompareMode.EQUAL));
+        assertFalse("Compare with NaN should be false", compare(Double.NaN, 2, CompareMode.NOTLESS));
+    }
+
+    @Test
+    public void rangeReduction() {
+        double[] values = {100, 1.5, 3, Double.NaN, 2.25, -100};
+        assertEquals("Range sum is wrong", 4.5, sum(values, 1, 3), 0);
+        assertEquals("Range product is wrong", 4.5, product(values, 1, 3), 0);
+        assertEquals("Range average is wrong", 2.25, average(values, 1, 3), 0);
+        assertEquals("Range min is wrong", 1.5, min(values, 1, 5), 0);
+        assertEquals("Range max is wrong", 3, max(values, 1, 5), 0);
+        assertTrue("Range sum with NaN should be NaN", Double.isNaN(sum(values, 1, 5)));
+        assertTrue("Invalid range should be NaN", Double.isNaN(sum(values, 2, 2)));
+        assertTrue("Invalid range should be NaN", Double.isNaN(max(values, 0, 7)));
+    }
+}
@@ -0,0 +1,74 @@
+package org.agmip.common;
+
+import java.util.HashMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ExpressionTest {
+
+    @Test
+    public void evaluateSaturationVapourPressure() {
+        Expression exp = Expression.compile("0.6108 * exp(17.27 * t / (t + 237.3))", "t");
+        String expected = Functions.multiply("0.6108", Functions.exp(Functions.divide(Functions.multiply("17.27", "25"), Functions.sum("25", "237.3"), 20)));
+        assertEquals("Evaluation is not matched", Double.parseDouble(expected), exp.evaluate(25), 1e-12);
+    }
+
+    @Test
+    public void evaluatePrecedence() {
+        assertEquals("Precedence is wrong", 7, Expression.compile("1 + 2 * 3").evaluate(), 0);
+        assertEquals("Precedence is wrong", 9, Expression.compile("(1 + 2) * 3").evaluate(), 0);
+        assertEquals("Power should be right associative", 512, Expression.compile("2 ^ 3 ^ 2").evaluate(), 0);
+        assertEquals("Unary minus is wrong", -4, Expression.compile("-2 ^ 2").evaluate(), 0);
+        assertEquals("Functions are wrong", 3, Expression.compile("max(1, sqrt(9), min(2, 5))").evaluate(), 0);
+    }
+
+    @Test
+    public void constantFolding() {
+        Expression exp = Expression.compile("2 * PI / 365");
+        assertTrue("Literal formula should be folded", exp.isConstant());
+        assertEquals("Folded value is wrong", 2 * Math.PI / 365, exp.evaluate(), 0);
+        assertFalse("Formula with variable should not be folded", Expression.compile("2 * PI / 365 * j").isConstant());
+    }
+
+    @Test
+    public void collectVariables() {
+        Expression exp = Expression.compile("tmax * 0.5 + tmin * 0.5 - tmax");
+        assertArrayEquals("Variables are not collected by order", new String[]{"tmax", "tmin"}, exp.getVariables());
+        assertEquals("Slot is wrong", 1, exp.getSlot("tmin"));
+        assertEquals("Evaluation is wrong", -5, exp.evaluate(30, 20), 0);
+    }
+
+    @Test
+    public void evaluateMap() {
+        HashMap<String, String> daily = new HashMap<String, String>();
+        daily.put("tmax", "30.5");
+        daily.put("tmin", "20");
+        Expression exp = Expression.compile("(tmax + tmin) / 2", "tmax", "tmin");
+        assertEquals("Map evaluation is wrong", "25.25", exp.evaluate(daily));
+        daily.remove("tmin");
+        assertNull("Missing value should give null", exp.evaluate(daily));
+    }
+
+    @Test
+    public void minMaxIgnoreNaN() {
+        Expression exp = Expression.compile("min(a, b, 4) + max(a, b, -1)", "a", "b");
+        assertEquals("NaN should be ignored", 6, exp.evaluate(Double.NaN, 3), 0);
+        assertEquals("Variables are wrong", -1, exp.evaluate(-2, 1), 0);
+        assertTrue("No valid value should be NaN", Double.isNaN(Expression.compile("min(a, b)").evaluate(Double.NaN, Double.NaN)));
+    }
+
+    @Test
+    public void divideByZero() {
+        assertTrue("Divide by zero should be NaN", Double.isNaN(Expression.compile("1 / x").evaluate(0)));
+    }
+
+    @Test
+    public void compileIntentionalFailure() {
+        assertNull("Compiled unbalanced formula", Expression.compile("(1 + 2"));
+        assertNull("Compiled unknown function", Expression.compile("foo(1)"));
+        assertNull("Compiled undeclared variable", Expression.compile("a + b", "a"));
+        assertNull("Compiled invalid number", Expression.compile("1.2.3 + 1"));
+        assertNull("Compiled wrong arguments", Expression.compile("pow(2)"));
+        assertNull("Compiled null formula", Expression.compile(null));
+    }
+}
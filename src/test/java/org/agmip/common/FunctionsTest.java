@@ -4,9 +4,12 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Date;
 import static org.agmip.common.Functions.*;
 import org.agmip.common.Functions.CompareMode;
+import org.agmip.common.Functions.PrecisionMode;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -589,6 +592,59 @@ public class FunctionsTest {
         assertTrue(clearDirectory(f));
     }
     
+    @Test
+    public void toBigDecimalCacheTest() {
+        assertSame("Constant not pooled", toBigDecimal("273.16"), toBigDecimal("273.16"));
+        assertSame("Value not cached", toBigDecimal("1653.2"), toBigDecimal("1653.2"));
+        assertEquals("Scale not kept", 2, toBigDecimal("1.50").scale());
+        assertEquals("Parse failed", new BigDecimal("-1.2e3"), toBigDecimal("-1.2e3"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void toBigDecimalIntentionalFailure() {
+        toBigDecimal("abc");
+    }
+
+    @Test
+    public void bigDecimalOverloadsTest() {
+        BigDecimal a = new BigDecimal("1.5");
+        BigDecimal b = new BigDecimal("3");
+        PrecisionMode mode = getPrecisionMode();
+        try {
+            setPrecisionMode(PrecisionMode.EXACT);
+            assertEquals("Sum not matched", sum("1.5", "3", "1.5"), sumDecimal(a, b, a).toString());
+            assertEquals("Product not matched", product("1.5", "3", "1.5"), productDecimal(a, b, a).toString());
+            assertEquals("Divide not matched", divide("1.5", "3"), divideDecimal(a, b).toString());
+            assertEquals("Divide not matched", divide("3", "1.5"), divideDecimal(b, a).toString());
+            assertEquals("Indivisible divide not matched", divide("1", "3"), divideDecimal(BigDecimal.ONE, b).toString());
+            assertEquals("Scaled divide not matched", divide("1", "3", 4), divideDecimal(BigDecimal.ONE, b, 4).toString());
+        } finally {
+            setPrecisionMode(mode);
+        }
+        assertNull("Divided by zero", divideDecimal(a, BigDecimal.ZERO));
+        assertNull("Sum with missing value", sumDecimal(a, null));
+        assertTrue("Compare failed", compareDecimal(a, b, CompareMode.LESS));
+        assertTrue("Compare failed", compareDecimal(a, new BigDecimal("1.50"), CompareMode.EQUAL));
+        assertFalse("Compare missing value", compareDecimal(a, null, CompareMode.NOTLESS));
+    }
+
+    @Test
+    public void rangeReductionTest() {
+        String[] values = {"x", "1.5", "3", null, "2.25", "y"};
+        String[] sub = {"1.5", "3", "2.25"};
+        assertEquals("Range sum not matched", sum(sub), sum(sub, 0, 3));
+        assertNull("Range sum with null", sum(values, 1, 5));
+        assertEquals("Range sum not matched", sum("1.5", "3"), sum(values, 1, 3));
+        assertEquals("Range product not matched", product("1.5", "3"), product(Arrays.asList(values), 1, 3));
+        assertEquals("Range min not matched", min(sub), min(values, 1, 5));
+        assertEquals("Range max not matched", max(sub), max(Arrays.asList(values), 1, 5));
+        assertEquals("Range average not matched", average(sub), average(sub, 0, 3));
+        assertEquals("Range average not matched", average(2, sub), average(2, Arrays.asList(sub), 0, 3));
+        assertNull("Range with invalid value", average(values, 0, 2));
+        assertNull("Invalid range", sum(values, 3, 2));
+        assertNull("Invalid range", max(values, 0, 7));
+    }
+
     @Test
     public void clearDirectoryNormalCombine() throws IOException {
         File f = new File("\\test");
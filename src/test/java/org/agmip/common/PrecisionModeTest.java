@@ -0,0 +1,84 @@
+package org.agmip.common;
+
+import static org.agmip.common.Functions.*;
+import org.agmip.common.Functions.CompareMode;
+import org.agmip.common.Functions.PrecisionMode;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrecisionModeTest {
+
+    private static final String[][] CASES = {
+        {"1.15", "1.16", "0.5"},
+        {"46.9319", "4.585"},
+        {"1653.2", "0.0065", "293"},
+        {"-12.5", "0.001", "86400"},
+        {"0.1", "0.2", "0.3"}
+    };
+
+    private PrecisionMode initial;
+
+    @Before
+    public void saveMode() {
+        initial = getPrecisionMode();
+        setPrecisionMode(PrecisionMode.EXACT);
+    }
+
+    @After
+    public void resetMode() {
+        setPrecisionMode(initial);
+    }
+
+    private static double value(String v) {
+        return Double.parseDouble(v);
+    }
+
+    private static void assertClose(String message, String expected, String actual) {
+        double e = value(expected);
+        assertEquals(message, e, value(actual), Math.max(1e-15, Math.abs(e) * 1e-14));
+    }
+
+    @Test
+    public void nullMode() {
+        setPrecisionMode(PrecisionMode.DOUBLE);
+        setPrecisionMode(null);
+        assertEquals("Null mode should be exact", PrecisionMode.EXACT, getPrecisionMode());
+    }
+
+    @Test
+    public void doubleModeErrorBound() {
+        for (String[] c : CASES) {
+            String exactSum = sum(c);
+            String exactProduct = product(c);
+            String exactDiff = substract(c[0], c[1]);
+            String exactDivide = divide(c[0], c[1], 20);
+            setPrecisionMode(PrecisionMode.DOUBLE);
+            assertClose("Sum is out of bound", exactSum, sum(c));
+            assertClose("Product is out of bound", exactProduct, product(c));
+            assertClose("Difference is out of bound", exactDiff, substract(c[0], c[1]));
+            assertClose("Divide is out of bound", exactDivide, divide(c[0], c[1]));
+            setPrecisionMode(PrecisionMode.EXACT);
+        }
+    }
+
+    @Test
+    public void doubleModeScaledResult() {
+        setPrecisionMode(PrecisionMode.DOUBLE);
+        assertEquals("Scaled divide is wrong", "0.3333", divide("1", "3", 4));
+        assertEquals("Scaled average is wrong", "2.50", average(2, "2", "3"));
+        assertEquals("Trailing zeros should be removed", "2.5", sum("1.50", "1"));
+        assertTrue("Compare is wrong", compare("0.1", "0.10", CompareMode.EQUAL));
+    }
+
+    @Test
+    public void doubleModeInvalidValue() {
+        setPrecisionMode(PrecisionMode.DOUBLE);
+        assertNull("Sum with invalid value", sum("1", "a"));
+        assertNull("Multiply with missing value", multiply("1", null));
+        assertNull("Divided by zero", divide("1", "0"));
+        assertNull("Divided by zero", divide("1", "0", 2));
+        assertFalse("Compare invalid value", compare("NaN", "1", CompareMode.NOTLESS));
+    }
+}
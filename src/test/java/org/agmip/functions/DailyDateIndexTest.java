@@ -0,0 +1,108 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import org.agmip.common.DateCodec;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class DailyDateIndexTest {
+
+    /**
+     * The linear scan of month and day, same as the matching of
+     * {@code ExperimentHelper}
+     */
+    private static int scan(DailySeries series, String monthDay, int start) {
+        for (int j = start; j < series.size(); j++) {
+            String date = series.getDate(j);
+            boolean matched;
+            if (monthDay.equals("0229")) {
+                try {
+                    int year = Integer.parseInt(date.substring(2, 4));
+                    matched = date.endsWith(year % 4 != 0 ? "0228" : "0229");
+                } catch (Exception e) {
+                    matched = false;
+                }
+            } else {
+                matched = date.endsWith(monthDay);
+            }
+            if (matched) {
+                return j;
+            }
+        }
+        return series.size();
+    }
+
+    /**
+     * The linear scan of January 1st, which skips the rest of a year
+     */
+    private static int scanYearStart(DailySeries series, String date) {
+        for (int i = 0; i < series.size(); i++) {
+            String w_date = series.getDate(i);
+            if (w_date.equals(date)) {
+                return i;
+            } else if (w_date.endsWith("0101")) {
+                i += 364;
+            }
+        }
+        return series.size();
+    }
+
+    private ArrayList<HashMap<String, String>> dailyArr(long seed) {
+        Random rand = new Random(seed);
+        ArrayList<HashMap<String, String>> dailyArr = new ArrayList<HashMap<String, String>>();
+        int last = DateCodec.of(1988, 1, 1);
+        for (int day = DateCodec.of(1980, 1, 1); day < last; day++) {
+            int r = rand.nextInt(200);
+            HashMap<String, String> daily = new HashMap<String, String>();
+            if (r == 0) {
+                // Gap
+                continue;
+            } else if (r == 1) {
+                daily.put("w_date", "bad");
+            } else if (r == 2 && !dailyArr.isEmpty()) {
+                // Duplicate
+                daily.putAll(dailyArr.get(dailyArr.size() - 1));
+            } else {
+                daily.put("w_date", DateCodec.format(day));
+            }
+            dailyArr.add(daily);
+        }
+        return dailyArr;
+    }
+
+    @Test
+    public void matchLinearScan() {
+        String[] monthDays = {"0101", "0228", "0229", "0315", "1231", "1301", "101", "19850601"};
+        for (long seed = 0; seed < 6; seed++) {
+            HashMap<String, Object> data = new HashMap<String, Object>();
+            data.put("dailyWeather", dailyArr(seed));
+            DailySeries series;
+            if (seed % 2 == 0) {
+                series = DailySeries.of(WeatherHelper.getDailyData(data));
+            } else {
+                series = DailySeries.of(DailyWeatherColumns.fromData(data));
+            }
+            DailyDateIndex index = series.getDateIndex();
+            assertSame("Index should be built once", index, series.getDateIndex());
+            for (String monthDay : monthDays) {
+                for (int start = 0; start <= series.size(); start += 97) {
+                    assertEquals("Index of " + monthDay + " from " + start + " is wrong",
+                            scan(series, monthDay, start), index.find(monthDay, start));
+                }
+            }
+            for (int year = 1978; year < 1990; year++) {
+                assertEquals("Start of " + year + " is wrong", scanYearStart(series, year + "0101"), index.findYearStart(year + "0101"));
+            }
+        }
+    }
+
+    @Test
+    public void emptySeries() {
+        DailySeries series = DailySeries.of(new ArrayList<HashMap<String, String>>());
+        assertEquals("Empty series should give size", 0, series.getDateIndex().find("0101", 0));
+        assertEquals("Empty series should give size", 0, series.getDateIndex().find("0229", 0));
+        assertEquals("Empty series should give size", 0, series.getDateIndex().findYearStart("19800101"));
+    }
+}
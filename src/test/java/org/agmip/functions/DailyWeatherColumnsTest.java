@@ -0,0 +1,107 @@
+package org.agmip.functions;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.agmip.common.DateCodec;
+import org.agmip.util.JSONAdapter;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class DailyWeatherColumnsTest {
+
+    private HashMap<String, Object> load(String name) throws IOException {
+        URL resource = this.getClass().getResource(name);
+        BufferedReader br = new BufferedReader(
+                new InputStreamReader(
+                new FileInputStream(resource.getPath())));
+        try {
+            return JSONAdapter.fromJSON(br.readLine());
+        } finally {
+            br.close();
+        }
+    }
+
+    private HashMap<String, String> daily(String date, String tmax, String tmin, String rain) {
+        HashMap<String, String> daily = new HashMap<String, String>();
+        daily.put("w_date", date);
+        daily.put("tmax", tmax);
+        if (tmin != null) {
+            daily.put("tmin", tmin);
+        }
+        if (rain != null) {
+            daily.put("rain", rain);
+        }
+        return daily;
+    }
+
+    @Test
+    public void columnValues() {
+        HashMap<String, Object> data = new HashMap<String, Object>();
+        ArrayList<HashMap<String, String>> dailyArr = new ArrayList<HashMap<String, String>>();
+        dailyArr.add(daily("19890101", "26.30", "-0.5", "05"));
+        dailyArr.add(daily("19890102", " 1e1 ", "-0", "1.0"));
+        dailyArr.add(daily("1989/01/03", "abc", null, null));
+        data.put("dailyWeather", dailyArr);
+
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+        assertEquals("Size is wrong", 3, columns.size());
+        assertEquals("Text is not kept", "26.30", columns.getString("tmax", 0));
+        assertEquals("Value is wrong", 26.3, columns.getDouble("tmax", 0), 0);
+        assertEquals("Scale is lost", new BigDecimal("26.30"), columns.getDecimal("tmax", 0));
+        assertEquals("Negative value is wrong", "-0.5", columns.getString("tmin", 0));
+        assertEquals("Leading zero is lost", "05", columns.getString("rain", 0));
+        assertEquals("Exponent is lost", "1e1", columns.getString("tmax", 1));
+        assertEquals("Exponent value is wrong", new BigDecimal("1e1"), columns.getDecimal("tmax", 1));
+        assertEquals("Negative zero is lost", "-0", columns.getString("tmin", 1));
+        assertNull("Invalid value", columns.getDecimal("tmax", 2));
+        assertTrue("Invalid value is not present", columns.isPresent("tmax", 2));
+        assertTrue("Invalid value should be NaN", Double.isNaN(columns.getDouble("tmax", 2)));
+        assertFalse("Missing value is present", columns.isPresent("srad", 0));
+        assertNull("Missing value", columns.getString("srad", 0));
+        assertNull("Missing column", columns.getColumn("srad"));
+        assertEquals("Date is wrong", DateCodec.parse("19890102"), columns.getEpochDay(1));
+        assertEquals("Date text is lost", "1989/01/03", columns.getDate(2));
+        assertEquals("Invalid date", DateCodec.INVALID, columns.getEpochDay(2));
+    }
+
+    @Test
+    public void machakosMatchMap() throws IOException {
+        HashMap<String, Object> data = load("/machakos_wth_only.json");
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+
+        assertEquals("Meta data is wrong", "1221", columns.getMeta("wst_elev"));
+        assertEquals("TAV/TAMP is not matched", WeatherHelper.getTavAndAmp(data), WeatherHelper.getTavAndAmp(columns));
+        assertEquals("ETo is not matched", WeatherHelper.getEto(data), WeatherHelper.getEto(columns));
+
+        data.put("exp_dur", "3");
+        assertEquals("Planting date is not matched",
+                ExperimentHelper.getAutoPlantingDate(data, "01-15", "02-28", "9.0", "6"),
+                ExperimentHelper.getAutoPlantingDate(data, columns, "01-15", "02-28", "9.0", "6"));
+        assertEquals("Planting date is not matched",
+                ExperimentHelper.getAutoPlantingDate(data, "01-15", "02-28", "50.0", "6"),
+                ExperimentHelper.getAutoPlantingDate(data, columns, "01-15", "02-28", "50.0", "6"));
+    }
+
+    @Test
+    public void syntheticMatchMap() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(42).combinedExperiment(1981, 3, 6);
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+
+        assertEquals("TAV/TAMP is not matched", WeatherHelper.getTavAndAmp(data), WeatherHelper.getTavAndAmp(columns));
+        HashMap<String, ArrayList<String>> eto = WeatherHelper.getEto(columns);
+        assertEquals("ETo size is wrong", columns.size(), eto.get("eto").size());
+        assertEquals("ETo is not matched", WeatherHelper.getEto(data), eto);
+
+        String[] gdds = {"100", "300"};
+        String[] irvals = {"20", "25"};
+        ArrayList<HashMap<String, String>> irrEvts = ExperimentHelper.getAutoIrrigationEvent(data, columns, "2", "10", gdds, irvals);
+        assertEquals("Irrigation event number is wrong", 2, irrEvts.size());
+        assertEquals("Irrigation event is not matched", ExperimentHelper.getAutoIrrigationEvent(data, "2", "10", gdds, irvals), irrEvts);
+    }
+}
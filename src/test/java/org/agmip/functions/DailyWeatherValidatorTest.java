@@ -0,0 +1,74 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class DailyWeatherValidatorTest {
+
+    private HashMap<String, String> daily(String date, String tmax, String tmin, String srad, String rain) {
+        HashMap<String, String> daily = new HashMap<String, String>();
+        daily.put("w_date", date);
+        daily.put("tmax", tmax);
+        daily.put("tmin", tmin);
+        daily.put("srad", srad);
+        daily.put("rain", rain);
+        return daily;
+    }
+
+    @Test
+    public void cleanData() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(3).weather("V000", 2001, 2);
+        DailyWeatherReport report = new DailyWeatherValidator().validate(data);
+        assertTrue("Clean data has issues: " + report, report.isClean());
+        assertEquals("Records are wrong", 730, report.getRecords());
+        assertEquals("ETo is changed", WeatherHelper.getEto(data), WeatherHelper.getEto(report.getWeather()));
+        assertEquals("TAV/TAMP is changed", WeatherHelper.getTavAndAmp(data), WeatherHelper.getTavAndAmp(report.getWeather()));
+        assertEquals("Station data is changed", data.get("wst_elev"), report.getWeather().get("wst_elev"));
+    }
+
+    @Test
+    public void fillAndReport() {
+        HashMap<String, Object> data = new HashMap<String, Object>();
+        data.put("wst_id", "V001");
+        ArrayList<HashMap<String, String>> dailyArr = new ArrayList<HashMap<String, String>>();
+        dailyArr.add(daily("20010101", "20", "10", "15", "0"));
+        dailyArr.add(daily("20010102", "abc", "11", "60", "2"));
+        dailyArr.add(daily("20010104", "26", "12", "17", "0"));
+        dailyArr.add(daily("20010104", "27", "12", "17", "0"));
+        dailyArr.add(daily("bad-date", "27", "12", "17", "0"));
+        dailyArr.add(daily("20010105", "5", "15", "16", "0"));
+        dailyArr.add(daily("20010107", "30.5", "14", "19", ""));
+        dailyArr.add(daily("20010106", "28", "13", "18", "1"));
+        data.put("dailyWeather", dailyArr);
+
+        DailyWeatherReport report = new DailyWeatherValidator().validate(data);
+        assertFalse("Issues are not found", report.isClean());
+        assertEquals("Records are wrong", 8, report.getRecords());
+        assertEquals("Invalid dates are wrong", 1, report.getInvalidDates());
+        assertEquals("Duplicate dates are wrong", 1, report.getDuplicateDates());
+        assertEquals("Unordered dates are wrong", 1, report.getUnorderedDates());
+        assertEquals("Missing days are wrong", 1, report.getMissingDays());
+        assertEquals("Reversed temperatures are wrong", 1, report.getReversedTemperatures());
+        assertEquals("Report is wrong", "V001: 8 records, 1 invalid dates, 1 duplicate dates, 1 unordered dates, 1 missing days, 1 TMAX < TMIN; "
+                + "rain 1 missing, 2 unfilled; srad 1 out of range, 2 filled; tmax 1 invalid, 3 filled; tmin 2 filled", report.toString());
+        assertEquals("Filled count is wrong", Integer.valueOf(3), report.getVariableIssues().get("tmax").get("filled"));
+
+        ArrayList<HashMap<String, String>> cleanArr = WeatherHelper.getDailyData(report.getWeather());
+        assertEquals("Daily records are not dense", 7, cleanArr.size());
+        String[] dates = {"20010101", "20010102", "20010103", "20010104", "20010105", "20010106", "20010107"};
+        String[] tmax = {"20", "22", "24", "26", "27", "28", "30.5"};
+        String[] tmin = {"10", "11", "12", "12", "13", "13", "14"};
+        String[] srad = {"15", "16", "16", "17", "16", "18", "19"};
+        for (int i = 0; i < dates.length; i++) {
+            assertEquals("Date is wrong", dates[i], cleanArr.get(i).get("w_date"));
+            assertEquals("TMAX is wrong on " + dates[i], tmax[i], cleanArr.get(i).get("tmax"));
+            assertEquals("TMIN is wrong on " + dates[i], tmin[i], cleanArr.get(i).get("tmin"));
+            assertEquals("SRAD is wrong on " + dates[i], srad[i], cleanArr.get(i).get("srad"));
+        }
+        assertNull("RAIN should not be filled", cleanArr.get(2).get("rain"));
+        assertNull("RAIN should not be filled", cleanArr.get(6).get("rain"));
+        assertEquals("RAIN is wrong", "1", cleanArr.get(5).get("rain"));
+    }
+}
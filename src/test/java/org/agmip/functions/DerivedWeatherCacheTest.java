@@ -0,0 +1,68 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Test;
+
+public class DerivedWeatherCacheTest {
+
+    @After
+    public void tearDown() {
+        WeatherHelper.setCache(null);
+    }
+
+    @Test
+    public void hitAndMiss() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(13).combinedExperiment(2001, 1, 2);
+        HashMap<String, ArrayList<String>> expectedEto = WeatherHelper.getEto(data);
+        HashMap<String, String> expectedTav = WeatherHelper.getTavAndAmp(data);
+
+        DerivedWeatherCache cache = new DerivedWeatherCache(2);
+        WeatherHelper.setCache(cache);
+        assertEquals("ETo is wrong", expectedEto, WeatherHelper.getEto(data));
+        HashMap<String, ArrayList<String>> eto = WeatherHelper.getEto(data);
+        assertEquals("Cached ETo is wrong", expectedEto, eto);
+        assertEquals("TAV/TAMP is wrong", expectedTav, WeatherHelper.getTavAndAmp(data));
+        assertEquals("Cached TAV/TAMP is wrong", expectedTav, WeatherHelper.getTavAndAmp(data));
+        assertEquals("Hits are wrong", 2, cache.getHits());
+        assertEquals("Misses are wrong", 2, cache.getMisses());
+
+        // The results are copied
+        eto.get("eto").set(0, "-1");
+        assertEquals("Cached ETo is changed", expectedEto, WeatherHelper.getEto(data));
+
+        // The changed data is not taken from the cache
+        HashMap<String, Object> weather = (HashMap<String, Object>) data.get("weather");
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) weather.get("dailyWeather");
+        dailyArr.get(10).put("tmax", "40.1");
+        WeatherHelper.setCache(null);
+        HashMap<String, ArrayList<String>> changed = WeatherHelper.getEto(data);
+        WeatherHelper.setCache(cache);
+        assertEquals("Changed data is taken from the cache", changed, WeatherHelper.getEto(data));
+        assertEquals("Misses are wrong", 3, cache.getMisses());
+    }
+
+    @Test
+    public void lruEviction() {
+        DerivedWeatherCache cache = new DerivedWeatherCache(2);
+        WeatherHelper.setCache(cache);
+        HashMap<String, Object> w1 = new SyntheticAceGenerator(1).weather("S001", 2001, 1);
+        HashMap<String, Object> w2 = new SyntheticAceGenerator(1).weather("S002", 2001, 1);
+        HashMap<String, Object> w3 = new SyntheticAceGenerator(1).weather("S003", 2001, 1);
+        WeatherHelper.getTavAndAmp(w1);
+        WeatherHelper.getTavAndAmp(w2);
+        WeatherHelper.getTavAndAmp(w1);
+        WeatherHelper.getTavAndAmp(w3);
+        assertEquals("Size is wrong", 2, cache.size());
+        WeatherHelper.getTavAndAmp(w1);
+        assertEquals("Recently used station is evicted", 2, cache.getHits());
+        WeatherHelper.getTavAndAmp(w2);
+        assertEquals("Eldest station is not evicted", 4, cache.getMisses());
+
+        cache.clear();
+        assertEquals("Cache is not cleared", 0, cache.size());
+        assertEquals("Statistics are not cleared", 0, cache.getHits() + cache.getMisses());
+    }
+}
@@ -0,0 +1,47 @@
+package org.agmip.functions;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class DiagnosticsTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiagnosticsTest.class);
+
+    @Test
+    public void counters() {
+        Diagnostics diag = new Diagnostics(LOG, "test");
+        assertTrue("Should be enabled", diag.isEnabled());
+        for (int i = 0; i < 5; i++) {
+            diag.scanned();
+        }
+        diag.invalid();
+        diag.fallback();
+        diag.count("found");
+        diag.count("found");
+        assertEquals("Scanned is wrong", 5, diag.getScanned());
+        assertEquals("Invalid is wrong", 1, diag.getInvalid());
+        assertEquals("Fallbacks is wrong", 1, diag.getFallbacks());
+        assertEquals("Named counter is wrong", 2, diag.getCount("found"));
+        assertEquals("Summary is wrong", "test: 5 records scanned, 1 fallbacks, 1 invalid values, 2 found", diag.toString());
+        diag.log();
+
+        diag.reset();
+        assertEquals("Summary is not reset", "test: 0 records scanned, 0 fallbacks, 0 invalid values", diag.toString());
+    }
+
+    @Test
+    public void disabled() {
+        Logger log = LoggerFactory.getLogger("org.agmip.functions.DiagnosticsTest.disabled");
+        Diagnostics diag = Diagnostics.start(log, "test");
+        assertEquals("Should follow the debug level", log.isDebugEnabled(), diag.isEnabled());
+        if (!diag.isEnabled()) {
+            diag.scanned();
+            diag.count("found");
+            assertEquals("Disabled collector should not count", 0, diag.getScanned());
+            assertEquals("Disabled collector should not count", 0, diag.getCount("found"));
+            assertSame("Disabled collector should be shared", diag, Diagnostics.start(log, "other"));
+        }
+    }
+}
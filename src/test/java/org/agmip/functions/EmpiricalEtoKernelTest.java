@@ -0,0 +1,77 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class EmpiricalEtoKernelTest {
+
+    private HashMap<String, Object> weather() {
+        HashMap<String, Object> weather = new HashMap<String, Object>();
+        weather.put("wst_id", "E001");
+        weather.put("wst_lat", "45");
+        weather.put("wst_elev", "100");
+        ArrayList<HashMap<String, String>> dailyArr = new ArrayList<HashMap<String, String>>();
+        dailyArr.add(daily("20010715", "30", "15", "25", "12"));
+        dailyArr.add(daily("20010715", "30", "15", "", ""));
+        dailyArr.add(daily("20010715", "", "15", null, null));
+        dailyArr.add(daily("", "30", "15", null, null));
+        weather.put("dailyWeather", dailyArr);
+        return weather;
+    }
+
+    /**
+     * The missing values are filled from the first record, and the empty
+     * values are removed
+     */
+    private HashMap<String, String> daily(String date, String tmax, String tmin, String srad, String tdew) {
+        HashMap<String, String> daily = new HashMap<String, String>();
+        daily.put("w_date", date);
+        daily.put("tmax", tmax);
+        daily.put("tmin", tmin);
+        if (srad != null) {
+            daily.put("srad", srad);
+            daily.put("tdew", tdew);
+        }
+        return daily;
+    }
+
+    @Test
+    public void hargreavesSamani() {
+        HashMap<String, Object> data = weather();
+        ArrayList<String> eto = WeatherHelper.getEto(data, EtoMethod.HARGREAVES_SAMANI).get("eto");
+        assertEquals("ETo size is wrong", 4, eto.size());
+        // Ra = 40.60 on July 15th at 45°N
+        assertEquals("ETo is wrong", "5.95", eto.get(0));
+        assertEquals("ETo is wrong", "5.95", eto.get(1));
+        assertNull("Missing TMAX should give null", eto.get(2));
+        assertNull("Missing date should give null", eto.get(3));
+
+        // The elevation is not required
+        data.remove("wst_elev");
+        assertEquals("ETo without elevation is wrong", eto, WeatherHelper.getEto(data, EtoMethod.HARGREAVES_SAMANI).get("eto"));
+    }
+
+    @Test
+    public void priestleyTaylor() {
+        HashMap<String, Object> data = weather();
+        ArrayList<String> eto = WeatherHelper.getEto(data, EtoMethod.PRIESTLEY_TAYLOR).get("eto");
+        assertEquals("ETo size is wrong", 4, eto.size());
+        assertEquals("ETo with SRAD and TDEW is wrong", "5.24", eto.get(0));
+        assertEquals("ETo with estimated Rs and ea is wrong", "5.45", eto.get(1));
+        assertNull("Missing TMAX should give null", eto.get(2));
+        assertNull("Missing date should give null", eto.get(3));
+
+        data.remove("wst_elev");
+        assertTrue("Missing elevation should give empty result", WeatherHelper.getEto(data, EtoMethod.PRIESTLEY_TAYLOR).isEmpty());
+    }
+
+    @Test
+    public void penmanMonteith() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(5).weather("E002", 2001, 1);
+        assertEquals("ETo is not matched", WeatherHelper.getEto(data), WeatherHelper.getEto(data, EtoMethod.PENMAN_MONTEITH));
+        assertEquals("ETo is not matched for columns", WeatherHelper.getEto(data),
+                WeatherHelper.getEto(DailyWeatherColumns.fromData(data), EtoMethod.PENMAN_MONTEITH));
+    }
+}
@@ -0,0 +1,106 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+import org.agmip.common.Functions;
+import org.agmip.common.Functions.PrecisionMode;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class EtoKernelTest {
+
+    /**
+     * Generate the station with different methods for ea, Rs and u2
+     */
+    private HashMap<String, Object> station(String wstId, int variant) {
+        HashMap<String, Object> weather = new SyntheticAceGenerator(11).weather(wstId, 1991, 5);
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) weather.get("dailyWeather");
+        Random rand = new Random(variant);
+        if (variant == 1) {
+            weather.put("wndht", "10");
+        } else if (variant == 3) {
+            weather.put("psyvnt", "Forced");
+            weather.put("wst_elev", "0");
+        }
+        for (HashMap<String, String> daily : dailyArr) {
+            double tmin = Double.parseDouble(daily.get("tmin"));
+            switch (variant) {
+                case 1:
+                    daily.remove("tdew");
+                    daily.remove("srad");
+                    daily.put("rhmxd", String.valueOf(60 + rand.nextInt(40)));
+                    daily.put("rhmnd", String.format(Locale.US, "%.1f", 20 + rand.nextDouble() * 40));
+                    daily.put("sunh", String.format(Locale.US, "%.1f", rand.nextDouble() * 12));
+                    break;
+                case 2:
+                    daily.remove("tdew");
+                    daily.remove("srad");
+                    daily.remove("wind");
+                    daily.put("rhmxd", String.valueOf(60 + rand.nextInt(40)));
+                    daily.put("rhumd", String.valueOf(20 + rand.nextInt(40)));
+                    break;
+                case 3:
+                    daily.remove("tdew");
+                    daily.put("tdry", String.format(Locale.US, "%.1f", tmin + 5));
+                    daily.put("twet", String.format(Locale.US, "%.2f", tmin + rand.nextDouble() * 3));
+                    break;
+                case 4:
+                    daily.remove("tdew");
+                    daily.put("vprsd", String.format(Locale.US, "%.3f", 0.5 + rand.nextDouble() * 2));
+                    daily.put("tmax", String.format(Locale.US, "%.2f", tmin + 5 + rand.nextDouble() * 10));
+                    daily.put("tmin", String.valueOf(Math.round(tmin)));
+                    if (rand.nextInt(20) == 0) {
+                        daily.put("tmax", "1");
+                        daily.put("tmin", "-1");
+                    }
+                    break;
+                default:
+            }
+        }
+        return weather;
+    }
+
+    @Test
+    public void matchBigDecimalPath() {
+        for (int variant = 0; variant < 5; variant++) {
+            HashMap<String, Object> data = station("K00" + variant, variant);
+            ArrayList<String> expected = WeatherHelper.getEto(data).get("eto");
+            ArrayList<String> actual = WeatherHelper.getEto(DailyWeatherColumns.fromData(data)).get("eto");
+            assertEquals("ETo size is wrong", expected.size(), actual.size());
+            int valid = 0;
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals("ETo is not matched for variant " + variant + " on day " + i, expected.get(i), actual.get(i));
+                if (actual.get(i) != null) {
+                    valid++;
+                }
+            }
+            assertTrue("No valid ETo for variant " + variant, valid > expected.size() / 2);
+        }
+    }
+
+    @Test
+    public void invalidValues() {
+        HashMap<String, Object> data = station("K010", 0);
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) data.get("dailyWeather");
+        dailyArr.get(1).put("tmax", "abc");
+        dailyArr.get(2).put("tdew", "1e1");
+        dailyArr.get(3).put("wind", "");
+        dailyArr.get(4).put("w_date", "");
+        dailyArr.get(5).put("tmin", "-237.3");
+        assertEquals("ETo is not matched", WeatherHelper.getEto(data), WeatherHelper.getEto(DailyWeatherColumns.fromData(data)));
+    }
+
+    @Test
+    public void doubleMode() {
+        PrecisionMode mode = Functions.getPrecisionMode();
+        try {
+            Functions.setPrecisionMode(PrecisionMode.DOUBLE);
+            HashMap<String, Object> data = station("K020", 1);
+            assertEquals("ETo is not matched", WeatherHelper.getEto(data), WeatherHelper.getEto(DailyWeatherColumns.fromData(data)));
+        } finally {
+            Functions.setPrecisionMode(mode);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.agmip.ace.AcePathfinder;
 import org.agmip.ace.util.AcePathfinderUtil;
@@ -1041,4 +1042,30 @@ public class ExperimentHelperTest {
             }
         }
     }
+
+    @Test
+    public void testGetAutoPlantingDates() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(11).combinedExperiment(1981, 5, 3);
+        RainfallIndex rainfall = RainfallIndex.of(data);
+        List<PlantingRequest> requests = new ArrayList<PlantingRequest>();
+        String[][] rules = {{"01-15", "02-28", "9.0", "6"}, {"03-01", "05-15", "40", "5"},
+            {"11-01", "02-15", "20", "10"}, {"06-01", "06-10", "500", "5"}, {"03-01", "05-15", "x", "5"}};
+        for (int expDur = 1; expDur <= 5; expDur += 2) {
+            for (String[] rule : rules) {
+                HashMap<String, Object> exp = new HashMap<String, Object>(data);
+                exp.put("exp_dur", Integer.toString(expDur));
+                exp.put("sc_year", "1982");
+                requests.add(new PlantingRequest(exp, rule[0], rule[1], rule[2], rule[3]));
+            }
+        }
+
+        ArrayList<HashMap<String, ArrayList<String>>> expected = new ArrayList<HashMap<String, ArrayList<String>>>();
+        for (PlantingRequest request : requests) {
+            expected.add(ExperimentHelper.getAutoPlantingDate(request.getData(),
+                    request.getEDate(), request.getLDate(), request.getRain(), request.getDays()));
+        }
+        assertTrue("Invalid request should be empty", expected.get(4).isEmpty());
+        assertEquals("Batch result is not matched", expected, ExperimentHelper.getAutoPlantingDates(rainfall, requests));
+        assertEquals("Parallel result is not matched", expected, ExperimentHelper.getAutoPlantingDates(rainfall, requests, 3));
+    }
 }
@@ -0,0 +1,144 @@
+package org.agmip.functions;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.agmip.common.Functions;
+import static org.agmip.common.Functions.*;
+import org.agmip.util.JSONAdapter;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class GddAccumulatorTest {
+
+    private HashMap<String, Object> load(String name) throws IOException {
+        URL resource = this.getClass().getResource(name);
+        BufferedReader br = new BufferedReader(
+                new InputStreamReader(
+                new FileInputStream(resource.getPath())));
+        try {
+            return JSONAdapter.fromJSON(br.readLine());
+        } finally {
+            br.close();
+        }
+    }
+
+    @Test
+    public void testAverage() {
+        GddAccumulator gdd = new GddAccumulator(10);
+
+        assertEquals("GDD is wrong", 10, gdd.getDaily(30, 10, Double.NaN), 0);
+        assertEquals("Negative GDD should be 0", 0, gdd.getDaily(8, 2, Double.NaN), 0);
+        assertTrue("Invalid TMAX", Double.isNaN(gdd.getDaily(Double.NaN, 2, Double.NaN)));
+        assertEquals("Decimal GDD is not exact", 0.35, gdd.getDaily(12.4, 8.3, Double.NaN), 0);
+    }
+
+    @Test
+    public void testBaseCutoff() {
+        GddAccumulator gdd = new GddAccumulator(GddMethod.BASE_CUTOFF, 10, 30);
+
+        assertEquals("GDD is wrong", 10, gdd.getDaily(35, 5, Double.NaN), 0);
+        assertEquals("GDD is wrong", 5, gdd.getDaily(20, 10, Double.NaN), 0);
+        assertEquals("GDD should be 0", 0, gdd.getDaily(9, 0, Double.NaN), 0);
+    }
+
+    @Test
+    public void testSingleSine() {
+        assertEquals("Not intercepted", 15, new GddAccumulator(GddMethod.SINGLE_SINE, 5, Double.NaN).getDaily(30, 10, Double.NaN), 1e-9);
+        assertEquals("Intercepted by base", 10 / Math.PI, new GddAccumulator(GddMethod.SINGLE_SINE, 10, Double.NaN).getDaily(20, 0, Double.NaN), 1e-9);
+        assertEquals("Intercepted by cutoff", 20 - 10 / Math.PI, new GddAccumulator(GddMethod.SINGLE_SINE, 0, 20).getDaily(30, 10, Double.NaN), 1e-9);
+        assertEquals("Intercepted by both", 5, new GddAccumulator(GddMethod.SINGLE_SINE, 5, 15).getDaily(20, 0, Double.NaN), 1e-9);
+        assertEquals("Above cutoff", 10, new GddAccumulator(GddMethod.SINGLE_SINE, 5, 15).getDaily(25, 16, Double.NaN), 1e-9);
+        assertEquals("Below base", 0, new GddAccumulator(GddMethod.SINGLE_SINE, 5, 15).getDaily(5, -3, Double.NaN), 0);
+    }
+
+    @Test
+    public void testDoubleSine() {
+        GddAccumulator gdd = new GddAccumulator(GddMethod.DOUBLE_SINE, 10, Double.NaN);
+
+        assertEquals("GDD is wrong", 12.5, gdd.getDaily(30, 10, 20), 1e-9);
+        assertEquals("Next TMIN is missing", 10, gdd.getDaily(30, 10, Double.NaN), 1e-9);
+    }
+
+    /**
+     * The decimal calculation replaced by the accumulator
+     */
+    private static ArrayList<String> decimalTargetDates(DailyWeatherColumns columns, String base, String[] targets) {
+        ArrayList<String> dates = new ArrayList<String>();
+        String calGdd = "0";
+        int j = 0;
+        for (int i = 0; i < columns.size() && j < targets.length; i++) {
+            String tavg = average(columns.getString("tmax", i), columns.getString("tmin", i));
+            String gdd = substract(tavg, base);
+            if (gdd != null && compare(gdd, "0", CompareMode.GREATER)) {
+                calGdd = sum(calGdd, gdd);
+            }
+            if (compare(calGdd, targets[j], CompareMode.NOTLESS)) {
+                dates.add(columns.getDate(i));
+                calGdd = "0";
+                j++;
+            }
+        }
+        return dates;
+    }
+
+    @Test
+    public void matchDecimalCalculation() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(13).combinedExperiment(1981, 3, 3);
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+        String base = "5.5";
+
+        // Targets reached exactly on the day, or missed by 0.05
+        ArrayList<String> targets = new ArrayList<String>();
+        BigDecimal acc = BigDecimal.ZERO;
+        for (int i = 0; i < columns.size() && targets.size() < 150; i++) {
+            BigDecimal gdd = new BigDecimal(Functions.average(columns.getString("tmax", i), columns.getString("tmin", i)))
+                    .subtract(new BigDecimal(base));
+            if (gdd.signum() > 0) {
+                acc = acc.add(gdd);
+            }
+            if (i % 7 == 6) {
+                targets.add((i % 2 == 0 ? acc : acc.add(new BigDecimal("0.05"))).toString());
+                acc = BigDecimal.ZERO;
+            }
+        }
+        String[] targetArr = targets.toArray(new String[0]);
+        double[] values = new double[targetArr.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Double.parseDouble(targetArr[i]);
+        }
+
+        ArrayList<String> expected = decimalTargetDates(columns, base, targetArr);
+        assertTrue("Not enough targets reached", expected.size() > 100);
+        assertEquals("Target dates are not matched", expected, new GddAccumulator(5.5).getTargetDates(columns, 0, values));
+    }
+
+    @Test
+    public void irrigationByMethod() throws IOException {
+        HashMap<String, Object> data = load("/machakos.json");
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+        String[] gddArr = {"400", "160", "240", "180"};
+        String[] irvalArr = {"30", "50", "40", "20"};
+
+        assertEquals("Average method is not matched",
+                ExperimentHelper.getAutoIrrigationEvent(data, "4", "5", gddArr, irvalArr),
+                ExperimentHelper.getAutoIrrigationEvent(data, columns, "4", GddMethod.AVERAGE, "5", "", gddArr, irvalArr));
+
+        ArrayList<HashMap<String, String>> events = ExperimentHelper.getAutoIrrigationEvent(data, columns, "4", GddMethod.DOUBLE_SINE, "5", "30", gddArr, irvalArr);
+        int start = 0;
+        while (!columns.getDate(start).equals("19990415")) {
+            start++;
+        }
+        ArrayList<String> dates = new GddAccumulator(GddMethod.DOUBLE_SINE, 5, 30).getTargetDates(columns, start, 400, 160, 240, 180);
+        assertEquals("The generated irrigation events is not enough", dates.size(), events.size());
+        for (int i = 0; i < dates.size(); i++) {
+            assertEquals("Irrigation date is wrong", dates.get(i), events.get(i).get("date"));
+        }
+        assertTrue("Invalid method", ExperimentHelper.getAutoIrrigationEvent(data, columns, "4", null, "5", "", gddArr, irvalArr).isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package org.agmip.functions;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.agmip.util.JSONAdapter;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JsonDailyWeatherSourceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(Map data) throws IOException {
+        File file = folder.newFile();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(SyntheticAceGenerator.toJSON(data));
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private ArrayList<Map<String, String>> readAll(DailyWeatherSource source) throws IOException {
+        ArrayList<Map<String, String>> records = new ArrayList<Map<String, String>>();
+        try {
+            while (source.hasNext()) {
+                records.add(source.next());
+            }
+        } finally {
+            source.close();
+        }
+        return records;
+    }
+
+    @Test
+    public void machakosMatchMap() throws IOException {
+        File file = new File(this.getClass().getResource("/machakos_wth_only.json").getPath());
+        HashMap data = JSONAdapter.fromJSONFile(file.getPath());
+
+        JsonDailyWeatherSource source = new JsonDailyWeatherSource(file);
+        assertEquals("Station data is wrong", "1221", source.getStationData().get("wst_elev"));
+        assertEquals("Daily records are not matched", WeatherHelper.getDailyData(data), readAll(source));
+        assertEquals("TAV/TAMP is not matched", WeatherHelper.getTavAndAmp(data), WeatherHelper.getTavAndAmp(new JsonDailyWeatherSource(file)));
+        assertEquals("ETo is not matched", WeatherHelper.getEto(data), WeatherHelper.getEto(new JsonDailyWeatherSource(file)));
+        assertEquals("ETo is not matched for map source", WeatherHelper.getEto(data), WeatherHelper.getEto(new MapDailyWeatherSource(data)));
+    }
+
+    @Test
+    public void weathersArray() throws IOException {
+        HashMap<String, ArrayList<HashMap<String, Object>>> pkg = new SyntheticAceGenerator(9).dataset(1, 3, 1, 1, 2000, 1);
+        HashMap<String, Object> weather = pkg.get("weathers").get(1);
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) weather.get("dailyWeather");
+        dailyArr.get(0).put("sunh", "");
+        dailyArr.get(1).put("vprsd", "1.5");
+        dailyArr.get(2).remove("tdew");
+        dailyArr.get(3).put("srad", "");
+        File file = write(pkg);
+
+        JsonDailyWeatherSource source = new JsonDailyWeatherSource(file, 1);
+        assertEquals("Station is wrong", weather.get("wst_id"), source.getStationData().get("wst_id"));
+        assertEquals("Daily records are not matched", WeatherHelper.getDailyData(weather), readAll(source));
+        assertEquals("ETo is not matched", WeatherHelper.getEto(weather), WeatherHelper.getEto(new JsonDailyWeatherSource(file, 1)));
+
+        source = new JsonDailyWeatherSource(file, 5);
+        assertTrue("Station data should be empty", source.getStationData().isEmpty());
+        assertFalse("Missing station has records", source.hasNext());
+    }
+
+    @Test
+    public void irrigationMatchMap() throws IOException {
+        HashMap<String, Object> data = new SyntheticAceGenerator(42).combinedExperiment(1981, 2, 3);
+        File file = write(data);
+        String[] gdds = {"100", "300"};
+        String[] irvals = {"20", "25"};
+
+        ArrayList<HashMap<String, String>> expected = ExperimentHelper.getAutoIrrigationEvent(data, "2", "10", gdds, irvals);
+        assertEquals("Irrigation event number is wrong", 2, expected.size());
+        DailyWeatherSource source = new JsonDailyWeatherSource(file);
+        try {
+            assertEquals("Irrigation event is not matched", expected, ExperimentHelper.getAutoIrrigationEvent(data, source, "2", "10", gdds, irvals));
+        } finally {
+            source.close();
+        }
+        assertEquals("TAV/TAMP is not matched", WeatherHelper.getTavAndAmp(data), WeatherHelper.getTavAndAmp(new JsonDailyWeatherSource(file)));
+    }
+}
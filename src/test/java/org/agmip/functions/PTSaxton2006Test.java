@@ -0,0 +1,61 @@
+package org.agmip.functions;
+
+import static org.agmip.common.Functions.*;
+import org.agmip.common.Functions.PrecisionMode;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class PTSaxton2006Test {
+
+    private static void assertMatchExact(String sand, String clay, String om, String slcf) {
+        String[] paras = {sand, clay, om};
+        String[] gravelParas = {sand, clay, om, slcf};
+        String id = sand + ", " + clay + ", " + om + ", " + slcf;
+        assertEquals("SLLL is not matched for " + id,
+                divide(PTSaxton2006.calcMoisture1500Kpa(sand, clay, om), "100", 3), PTSaxton2006.getSLLL(paras));
+        assertEquals("SLDUL is not matched for " + id,
+                divide(PTSaxton2006.calcMoisture33Kpa(sand, clay, om), "100", 3), PTSaxton2006.getSLDUL(paras));
+        assertEquals("SLSAT is not matched for " + id,
+                divide(PTSaxton2006.calcSaturatedMoisture(sand, clay, om), "100", 3), PTSaxton2006.getSLSAT(paras));
+        assertEquals("SKSAT is not matched for " + id,
+                divide(PTSaxton2006.calcSatMatric(sand, clay, om), "10", 3), PTSaxton2006.getSKSAT(paras));
+        assertEquals("SKSAT is not matched for " + id,
+                divide(PTSaxton2006.calcSatBulk(sand, clay, om, divide(slcf, "100")), "10", 3), PTSaxton2006.getSKSAT(gravelParas));
+        assertEquals("SLBDM is not matched for " + id,
+                round(PTSaxton2006.calcNormalDensity(sand, clay, om), 2), PTSaxton2006.getSLBDM(paras));
+        assertEquals("SLBDM is not matched for " + id,
+                round(PTSaxton2006.calcGravePlusDensity(sand, clay, om, divide(slcf, "100")), 2), PTSaxton2006.getSLBDM(gravelParas));
+    }
+
+    @Test
+    public void primitiveMatchExact() {
+        PrecisionMode mode = getPrecisionMode();
+        try {
+            setPrecisionMode(PrecisionMode.EXACT);
+            for (int sand = 5; sand <= 85; sand += 4) {
+                for (int clay = 5; clay <= 95 - sand; clay += 6) {
+                    for (int om = 1; om <= 50; om += 7) {
+                        assertMatchExact(sand + ".5", clay + "", om / 10.0 + "", (sand + clay) % 60 + "");
+                    }
+                }
+            }
+        } finally {
+            setPrecisionMode(mode);
+        }
+    }
+
+    @Test
+    public void nonPlainInput() {
+        PrecisionMode mode = getPrecisionMode();
+        try {
+            setPrecisionMode(PrecisionMode.EXACT);
+            assertMatchExact("45%", "20", "2", "10");
+            assertMatchExact("45", "120", "2", "10");
+            assertMatchExact("45", "20", "abc", "10");
+            assertMatchExact("45", "20", "2", "");
+        } finally {
+            setPrecisionMode(mode);
+        }
+        assertNull("Missing parameters", PTSaxton2006.getSLLL(new String[]{"45", "20"}));
+    }
+}
@@ -0,0 +1,148 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class PlantingCriteriaTest {
+
+    private static double value(DailyWeatherColumns columns, String var, int i) {
+        return Double.parseDouble(columns.getString(var, i));
+    }
+
+    /**
+     * Check the criteria of the test day by day, the rainfall is accumulated
+     * from the start of the window while the temperatures are checked over
+     * the full n days
+     */
+    private static boolean isMet(DailyWeatherColumns columns, int start, int day) {
+        if (day - 7 + 1 < 0) {
+            return false;
+        }
+        double rain = 0;
+        for (int j = Math.max(start, day - 5 + 1); j <= day; j++) {
+            rain += value(columns, "rain", j);
+        }
+        double tmax = 0;
+        for (int j = day - 7 + 1; j <= day; j++) {
+            tmax += value(columns, "tmax", j);
+        }
+        if (rain < 20 || tmax / 7 < 15) {
+            return false;
+        }
+        for (int j = day - 3 + 1; j <= day; j++) {
+            if (value(columns, "tmin", j) <= 5) {
+                return false;
+            }
+        }
+        for (int j = day; j < day + 10; j++) {
+            if (j >= columns.size() || value(columns, "tmin", j) <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void compositeMatchDailyCheck() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(5).combinedExperiment(1981, 5, 3);
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+        PlantingCriteria criteria = new PlantingCriteria()
+                .rainAtLeast(5, 20)
+                .averageAtLeast("tmax", 7, 15)
+                .minAbove("tmin", 3, 5)
+                .noFrost(10);
+        String[][] windows = {{"0301", "0515"}, {"0901", "1215"}, {"1201", "0110"}};
+
+        for (String[] window : windows) {
+            ArrayList<String> expected = new ArrayList<String>();
+            for (int year = 1981; year <= 1985; year++) {
+                int start = -1;
+                int end = -1;
+                for (int i = 0; i < columns.size(); i++) {
+                    if (start < 0 && columns.getDate(i).equals(year + window[0])) {
+                        start = i;
+                    } else if (start >= 0 && columns.getDate(i).endsWith(window[1])) {
+                        end = i;
+                        break;
+                    }
+                }
+                if (end < 0) {
+                    end = columns.size();
+                }
+                String pdate = year + window[1];
+                for (int day = start; day <= end && day < columns.size(); day++) {
+                    if (isMet(columns, start, day)) {
+                        pdate = columns.getDate(day);
+                        break;
+                    }
+                }
+                expected.add(pdate);
+            }
+            HashMap<String, ArrayList<String>> results = ExperimentHelper.getAutoPlantingDate(data, columns, window[0], window[1], criteria);
+            assertEquals("Planting date is not matched for " + window[0], expected, results.get("pdate"));
+        }
+    }
+
+    @Test
+    public void fullWindowBeforeStart() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(5).combinedExperiment(1981, 1, 3);
+        HashMap<String, Object> weather = (HashMap<String, Object>) data.get("weather");
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) weather.get("dailyWeather");
+        for (HashMap<String, String> daily : dailyArr) {
+            String date = daily.get("w_date");
+            if (date.equals("19810227") || date.equals("19810228")) {
+                daily.put("tmin", "0");
+                daily.put("tmax", "30");
+            } else if (date.compareTo("19810301") >= 0 && date.compareTo("19810310") <= 0) {
+                daily.put("tmin", "10");
+                daily.put("tmax", "20");
+            }
+        }
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+
+        HashMap<String, ArrayList<String>> results = ExperimentHelper.getAutoPlantingDate(data, columns, "0301", "0310",
+                new PlantingCriteria().minAbove("tmin", 3, 5));
+        assertEquals("Days before the window are not checked", "19810303", results.get("pdate").get(0));
+        results = ExperimentHelper.getAutoPlantingDate(data, columns, "0301", "0310",
+                new PlantingCriteria().maxBelow("tmax", 3, 25));
+        assertEquals("Days before the window are not checked", "19810303", results.get("pdate").get(0));
+        results = ExperimentHelper.getAutoPlantingDate(data, columns, "0301", "0310",
+                new PlantingCriteria().averageAtLeast("tmin", 3, 5));
+        assertEquals("Days before the window are not checked", "19810302", results.get("pdate").get(0));
+        results = ExperimentHelper.getAutoPlantingDate(data, columns, "0101", "0110",
+                new PlantingCriteria().minAbove("tmin", 3, -100));
+        assertEquals("Days before the data should not meet", "19810103", results.get("pdate").get(0));
+    }
+
+    @Test
+    public void rainMatchLegacy() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(9).combinedExperiment(1981, 4, 3);
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+        String[][] params = {{"01-15", "02-28", "9.0", "6"}, {"03-01", "05-15", "40", "5"},
+            {"11-01", "02-15", "20", "10"}, {"06-01", "06-10", "500", "5"}};
+
+        for (String[] p : params) {
+            PlantingCriteria criteria = new PlantingCriteria().rainAtLeast(Integer.parseInt(p[3]), Double.parseDouble(p[2]));
+            assertEquals("Planting date is not matched",
+                    ExperimentHelper.getAutoPlantingDate(data, p[0], p[1], p[2], p[3]),
+                    ExperimentHelper.getAutoPlantingDate(data, columns, p[0], p[1], criteria));
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(9).combinedExperiment(1981, 1, 3);
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+
+        assertTrue("Empty criteria", ExperimentHelper.getAutoPlantingDate(data, columns, "03-01", "05-15", new PlantingCriteria()).isEmpty());
+        assertTrue("Invalid date", ExperimentHelper.getAutoPlantingDate(data, columns, "ab-01", "05-15", new PlantingCriteria().noFrost(3)).isEmpty());
+        try {
+            new PlantingCriteria().rainAtLeast(0, 10);
+            fail("Non-positive days is accepted");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class RainfallIndexTest {
+
+    private static RainfallIndex index(String... rains) {
+        ArrayList<HashMap<String, String>> dailyArr = new ArrayList<HashMap<String, String>>();
+        for (int i = 0; i < rains.length; i++) {
+            HashMap<String, String> daily = new HashMap<String, String>();
+            daily.put("w_date", "198201" + (i < 9 ? "0" : "") + (i + 1));
+            if (rains[i] != null) {
+                daily.put("rain", rains[i]);
+            }
+            dailyArr.add(daily);
+        }
+        return new RainfallIndex(DailySeries.of(dailyArr));
+    }
+
+    @Test
+    public void testValues() {
+        RainfallIndex rainfall = index("1.5", null, "x", " 2 ", "");
+
+        assertEquals("Size is wrong", 5, rainfall.size());
+        assertTrue("Value is invalid", rainfall.isValid(0));
+        assertEquals("Value is wrong", 1.5, rainfall.get(0), 0);
+        assertTrue("Missing value is invalid", rainfall.isValid(1));
+        assertEquals("Missing value should be 0", 0, rainfall.get(1), 0);
+        assertFalse("Text is valid", rainfall.isValid(2));
+        assertTrue("Padded value is invalid", rainfall.isValid(3));
+        assertFalse("Blank is valid", rainfall.isValid(4));
+        assertFalse("Index out of range is valid", rainfall.isValid(-1));
+        assertFalse("Index out of range is valid", rainfall.isValid(5));
+    }
+
+    @Test
+    public void testSum() {
+        RainfallIndex rainfall = index("1.5", null, "x", "2", "0.5", "4");
+
+        assertEquals("Total is wrong", 8.0, rainfall.getSum(0, 6), 0);
+        assertEquals("Invalid value should be 0", 2.0, rainfall.getSum(1, 4), 0);
+        assertEquals("Range is not clipped", 8.0, rainfall.getSum(-3, 10), 0);
+        assertEquals("Empty range", 0, rainfall.getSum(4, 4), 0);
+    }
+
+    @Test
+    public void testFindFirst() {
+        RainfallIndex rainfall = index("1", "2", "0", "0", "3", "3", "x", "1", "5");
+
+        assertEquals("First in n days", 1, rainfall.findFirst(0, 9, 2, 3));
+        assertEquals("Window start is not respected", 4, rainfall.findFirst(1, 9, 2, 3));
+        assertEquals("Window is wrong", 5, rainfall.findFirst(0, 9, 2, 6));
+        assertEquals("Invalid value should be 0", 8, rainfall.findFirst(6, 9, 3, 6));
+        assertEquals("Not found", -1, rainfall.findFirst(0, 9, 2, 7));
+        assertEquals("Range is not respected", -1, rainfall.findFirst(0, 5, 3, 6));
+    }
+
+    @Test
+    public void testSharedIndexMatchCall() {
+        HashMap<String, Object> data = new SyntheticAceGenerator(7).combinedExperiment(1981, 4, 3);
+        ArrayList<HashMap<String, String>> dailyArr = WeatherHelper.getDailyData(data);
+        // Invalid values are skipped in the same way
+        dailyArr.get(20).put("rain", "x");
+        dailyArr.get(45).put("rain", "");
+        dailyArr.get(400).put("rain", "trace");
+        data.put("exp_dur", "4");
+        RainfallIndex rainfall = RainfallIndex.of(data);
+        DailyWeatherColumns columns = DailyWeatherColumns.fromData(data);
+        RainfallIndex columnRainfall = RainfallIndex.of(columns);
+
+        String[][] params = {{"01-15", "02-28", "9.0", "6"}, {"01-01", "03-31", "30", "3"},
+            {"11-01", "02-15", "20", "10"}, {"06-01", "06-10", "500", "5"}};
+        for (String[] p : params) {
+            HashMap<String, ArrayList<String>> expected = ExperimentHelper.getAutoPlantingDate(data, p[0], p[1], p[2], p[3]);
+            assertEquals("Planting date is not matched",
+                    expected, ExperimentHelper.getAutoPlantingDate(data, rainfall, p[0], p[1], p[2], p[3]));
+            assertEquals("Planting date is not matched",
+                    expected, ExperimentHelper.getAutoPlantingDate(data, columnRainfall, p[0], p[1], p[2], p[3]));
+            assertEquals("Planting date is not matched",
+                    ExperimentHelper.getAutoFillPlantingDate(data, p[0], p[1], p[2], p[3]),
+                    ExperimentHelper.getAutoFillPlantingDate(data, rainfall, p[0], p[1], p[2], p[3]));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.agmip.functions;
+
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SlidingWindowTest {
+
+    @Test
+    public void matchNaiveWindow() {
+        Random rand = new Random(3);
+        double[] values = new double[500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rand.nextInt(20) == 0 ? Double.NaN : Math.round(rand.nextGaussian() * 100) / 10.0;
+        }
+        int[] sizes = {1, 2, 5, 30};
+        for (int days : sizes) {
+            SlidingWindow window = new SlidingWindow(days);
+            for (int i = 0; i < values.length; i++) {
+                window.add(values[i]);
+                double sum = 0;
+                double min = Double.NaN;
+                double max = Double.NaN;
+                int missing = 0;
+                for (int j = Math.max(0, i - days + 1); j <= i; j++) {
+                    if (Double.isNaN(values[j])) {
+                        missing++;
+                        continue;
+                    }
+                    sum += values[j];
+                    min = Double.isNaN(min) ? values[j] : Math.min(min, values[j]);
+                    max = Double.isNaN(max) ? values[j] : Math.max(max, values[j]);
+                }
+                String msg = days + " days at " + i;
+                assertEquals("Size is wrong, " + msg, Math.min(i + 1, days), window.size());
+                assertEquals("Missing is wrong, " + msg, missing, window.getMissing());
+                assertEquals("Sum is wrong, " + msg, sum, window.getSum(), 1e-9);
+                assertEquals("Min is wrong, " + msg, min, window.getMin(), 0);
+                assertEquals("Max is wrong, " + msg, max, window.getMax(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        SlidingWindow window = new SlidingWindow(3);
+        window.add(5);
+        window.add(Double.NaN);
+        window.reset();
+        window.add(2);
+
+        assertEquals("Size is wrong", 1, window.size());
+        assertEquals("Missing is wrong", 0, window.getMissing());
+        assertEquals("Sum is wrong", 2, window.getSum(), 0);
+        assertEquals("Min is wrong", 2, window.getMin(), 0);
+        assertEquals("Max is wrong", 2, window.getMax(), 0);
+    }
+}
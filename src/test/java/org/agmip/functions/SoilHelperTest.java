@@ -8,6 +8,7 @@ import java.util.HashMap;
 import static org.agmip.util.MapUtil.*;
 import static org.junit.Assert.*;
 import org.agmip.ace.util.AcePathfinderUtil;
+import org.agmip.common.Functions;
 import org.agmip.util.MapUtil;
 import org.junit.Before;
 import org.junit.Test;
@@ -59,6 +60,27 @@ public class SoilHelperTest {
         log.info("getRootDistribution() output: {}", result.toString());
     }
 
+    @Test
+    public void testGetRootDistributionMatchExact() {
+        HashMap<String, Object> data = new HashMap<String, Object>();
+        data.put("soil", new SyntheticAceGenerator(11).soil("SYNT000001", 30));
+        ArrayList<HashMap<String, String>> layers = SoilHelper.getSoilLayer(data);
+        String[][] params = {{"1", "20", "180"}, {"0.8", "5", "60"}, {"1", "200", "180"}};
+
+        for (String[] p : params) {
+            String k = Functions.divide(Math.log(0.02) + "", Functions.substract(p[2], p[1]));
+            ArrayList<String> expected = new ArrayList<String>();
+            String last = "0";
+            for (HashMap<String, String> layer : layers) {
+                String mid = Functions.average(layer.get("sllb"), last);
+                expected.add(Functions.round(SoilHelper.getGrowthFactor(mid, p[1], k, p[0]), 3));
+                last = layer.get("sllb");
+            }
+            assertEquals("getRootDistribution: not matched for " + Arrays.toString(p),
+                    expected, SoilHelper.getRootDistribution(data, "slrgf", p[0], p[1], p[2]).get("slrgf"));
+        }
+    }
+
     @Test
     public void testGetIcnDistribution() throws IOException, Exception {
         String icin = "25";
@@ -0,0 +1,54 @@
+package org.agmip.functions;
+
+import static org.agmip.common.Functions.*;
+import org.agmip.common.Functions.PrecisionMode;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SolarGeometryTest {
+
+    @Test
+    public void matchDailyCalculation() {
+        String[] lats = {"-1.58", "0", "45.5", "66.6", "80"};
+        for (String lat : lats) {
+            String phi = divide(product(lat, Math.PI + ""), "180");
+            SolarGeometry solar = SolarGeometry.of(phi);
+            for (int d = 1; d <= SolarGeometry.DAYS; d++) {
+                String J = d + "";
+                String dr = sum("1", multiply("0.033", cos(product("2", divide(Math.PI + "", "365"), J))));
+                String delta = multiply("0.409", sin(substract(product("2", divide(Math.PI + "", "365"), J), "1.39")));
+                String omegas = acos(product("-1", tan(phi), tan(delta)));
+                String ra = divide(product("1440", "0.0820", dr, sum(product(omegas, sin(phi), sin(delta)), product(cos(phi), cos(delta), sin(omegas)))), Math.PI + "");
+                String N = divide(multiply("24", omegas), Math.PI + "");
+                assertEquals("Ra is not matched for " + lat + " on day " + d, ra, solar.getRa(d));
+                assertEquals("N is not matched for " + lat + " on day " + d, N, solar.getDaylightHours(d));
+                if (ra != null) {
+                    assertEquals("Ra value is wrong", Double.parseDouble(ra), solar.getRaValue(d), 1e-9);
+                    assertEquals("N value is wrong", Double.parseDouble(N), solar.getDaylightHoursValue(d), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sharedTables() {
+        String phi = divide(product("-1.58", Math.PI + ""), "180");
+        PrecisionMode mode = getPrecisionMode();
+        try {
+            setPrecisionMode(PrecisionMode.EXACT);
+            assertSame("Tables are not shared", SolarGeometry.of(phi), SolarGeometry.of(phi));
+            SolarGeometry exact = SolarGeometry.of(phi);
+            setPrecisionMode(PrecisionMode.DOUBLE);
+            assertNotSame("Tables are shared across precision modes", exact, SolarGeometry.of(phi));
+        } finally {
+            setPrecisionMode(mode);
+        }
+    }
+
+    @Test
+    public void missingLatitude() {
+        SolarGeometry solar = SolarGeometry.of(null);
+        assertNull("Ra without latitude", solar.getRa(1));
+        assertTrue("Ra value without latitude", Double.isNaN(solar.getRaValue(1)));
+    }
+}
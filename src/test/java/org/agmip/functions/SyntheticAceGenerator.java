@@ -0,0 +1,306 @@
+package org.agmip.functions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.agmip.common.DateCodec;
+import org.agmip.common.DoubleFunctions;
+import org.agmip.util.JSONAdapter;
+
+/**
+ * Deterministic generator of ACE-shaped data sets for scale tests and
+ * benchmarks.
+ *
+ * Every station, soil profile and experiment is generated from its own random
+ * stream derived from the seed and its ID, so the same call always returns
+ * the same data, no matter how many other records have been generated
+ * before. The values are formatted as the strings used by the ACE JSON
+ * files.
+ */
+public class SyntheticAceGenerator {
+
+    private static final String[] CROPS = {"MAZ", "WHT", "RIC", "SOY", "SGB"};
+    private final long seed;
+
+    /**
+     * @param seed The random seed
+     */
+    public SyntheticAceGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    private Random random(String id) {
+        return new Random(seed * 31 + id.hashCode());
+    }
+
+    private static String round(double value, int scale) {
+        return DoubleFunctions.round(value, scale);
+    }
+
+    /**
+     * Generate a weather station with daily weather from January 1st of the
+     * start year.
+     *
+     * @param wstId The weather station ID
+     * @param startYear The first year of daily data
+     * @param years The number of years of daily data
+     * @return The weather station data set with {@code dailyWeather}
+     */
+    public HashMap<String, Object> weather(String wstId, int startYear, int years) {
+        Random rand = random("wst_" + wstId);
+        double lat = -40 + rand.nextDouble() * 90;
+        double elev = rand.nextDouble() * 2500;
+        double tmean = 28 - Math.abs(lat) * 0.35 - elev * 0.0065 + rand.nextGaussian();
+        double tamp = 1 + Math.abs(lat) * 0.3;
+        double wetProb = 0.15 + rand.nextDouble() * 0.3;
+
+        HashMap<String, Object> weather = new HashMap<String, Object>();
+        weather.put("wst_id", wstId);
+        weather.put("wst_name", "SYNTHETIC STATION " + wstId);
+        weather.put("clim_id", "0XXX");
+        weather.put("wst_lat", round(lat, 2));
+        weather.put("wst_long", round(-180 + rand.nextDouble() * 360, 2));
+        weather.put("wst_elev", round(elev, 0));
+        weather.put("tav", round(tmean, 1));
+        weather.put("tamp", round(tamp * 2, 1));
+        weather.put("refht", "2");
+        weather.put("wndht", "2");
+
+        ArrayList<HashMap<String, String>> daily = new ArrayList<HashMap<String, String>>();
+        int first = DateCodec.of(startYear, 1, 1);
+        int last = DateCodec.of(startYear + years, 1, 1);
+        double hemisphere = lat < 0 ? -1 : 1;
+        for (int day = first; day < last; day++) {
+            double season = hemisphere * Math.sin(2 * Math.PI * (DateCodec.getDayOfYear(day) - 105) / 365.25);
+            double tavg = tmean + tamp * season + rand.nextGaussian() * 1.5;
+            double range = 8 + rand.nextDouble() * 6;
+            double tmin = tavg - range / 2;
+            boolean wet = rand.nextDouble() < wetProb * (1 + 0.5 * season);
+            HashMap<String, String> rec = new HashMap<String, String>();
+            rec.put("w_date", DateCodec.format(day));
+            rec.put("tmax", round(tavg + range / 2, 1));
+            rec.put("tmin", round(tmin, 1));
+            rec.put("tdew", round(tmin - rand.nextDouble() * 3, 1));
+            rec.put("srad", round(Math.max(1, 17 + 6 * season - (wet ? 5 : 0) + rand.nextGaussian() * 2), 1));
+            rec.put("rain", wet ? round(-Math.log(1 - rand.nextDouble()) * 9, 1) : "0");
+            rec.put("wind", round(80 + rand.nextDouble() * 200, 0));
+            daily.add(rec);
+        }
+        weather.put("dailyWeather", daily);
+        return weather;
+    }
+
+    /**
+     * Generate a soil profile.
+     *
+     * @param soilId The soil ID
+     * @param layers The number of soil layers
+     * @return The soil data set with {@code soilLayer}
+     */
+    public HashMap<String, Object> soil(String soilId, int layers) {
+        Random rand = random("soil_" + soilId);
+        HashMap<String, Object> soil = new HashMap<String, Object>();
+        soil.put("soil_id", soilId);
+        soil.put("sl_source", "SYNTHETIC");
+        soil.put("soil_name", "SYNTHETIC SOIL " + soilId);
+        soil.put("salb", round(0.1 + rand.nextDouble() * 0.1, 2));
+
+        ArrayList<HashMap<String, String>> soilLayers = new ArrayList<HashMap<String, String>>();
+        int depth = 0;
+        double clay = 10 + rand.nextDouble() * 30;
+        double sand = 20 + rand.nextDouble() * (70 - clay);
+        for (int i = 0; i < layers; i++) {
+            depth += i == 0 ? 5 : 5 + rand.nextInt(26);
+            clay = Math.min(60, Math.max(5, clay + rand.nextGaussian() * 3));
+            sand = Math.min(95 - clay, Math.max(5, sand + rand.nextGaussian() * 3));
+            double slll = 0.05 + clay * 0.004 + rand.nextDouble() * 0.02;
+            double sldul = slll + 0.08 + rand.nextDouble() * 0.08;
+            HashMap<String, String> layer = new HashMap<String, String>();
+            layer.put("sllb", depth + "");
+            layer.put("slcly", round(clay, 1));
+            layer.put("slsil", round(100 - clay - sand, 1));
+            layer.put("slsnd", round(sand, 1));
+            layer.put("sloc", round(Math.max(0.05, 2.0 * Math.exp(-depth / 40.0)), 2));
+            layer.put("slbdm", round(1.15 + depth * 0.001 + rand.nextDouble() * 0.2, 2));
+            layer.put("slll", round(slll, 3));
+            layer.put("sldul", round(sldul, 3));
+            layer.put("slsat", round(sldul + 0.1 + rand.nextDouble() * 0.05, 3));
+            layer.put("sksat", round(0.5 + rand.nextDouble() * 10, 2));
+            soilLayers.add(layer);
+        }
+        soil.put("soilLayer", soilLayers);
+        return soil;
+    }
+
+    /**
+     * Generate an experiment with the management events and the initial
+     * conditions for every soil layer.
+     *
+     * @param exname The experiment name
+     * @param wstId The weather station ID
+     * @param soilId The soil ID
+     * @param layers The number of soil layers for initial conditions
+     * @param startYear The start year of the experiment
+     * @param expDur The duration of the experiment in years
+     * @param events The number of fertilizer and irrigation events for each
+     * year
+     * @return The experiment data set with {@code management} and
+     * {@code initial_conditions}
+     */
+    public HashMap<String, Object> experiment(String exname, String wstId, String soilId, int layers, int startYear, int expDur, int events) {
+        Random rand = random("exp_" + exname);
+        HashMap<String, Object> exp = new HashMap<String, Object>();
+        String crid = CROPS[rand.nextInt(CROPS.length)];
+        exp.put("exname", exname);
+        exp.put("local_name", "SYNTHETIC EXPERIMENT " + exname);
+        exp.put("wst_id", wstId);
+        exp.put("soil_id", soilId);
+        exp.put("crid", crid);
+        exp.put("exp_dur", expDur + "");
+        exp.put("sc_year", startYear + "");
+        exp.put("fl_lat", round(-40 + rand.nextDouble() * 90, 2));
+        exp.put("fl_long", round(-180 + rand.nextDouble() * 360, 2));
+
+        ArrayList<HashMap<String, String>> eventList = new ArrayList<HashMap<String, String>>();
+        int firstPdate = DateCodec.of(startYear, 3, 1) + rand.nextInt(60);
+        for (int y = 0; y < expDur; y++) {
+            int pdate = DateCodec.addYears(firstPdate, y);
+            HashMap<String, String> planting = new HashMap<String, String>();
+            planting.put("event", "planting");
+            planting.put("date", DateCodec.format(pdate));
+            planting.put("crid", crid);
+            planting.put("plpop", round(4 + rand.nextDouble() * 4, 1));
+            planting.put("plrs", "75");
+            planting.put("pldp", "5");
+            eventList.add(planting);
+            for (int i = 0; i < events; i++) {
+                int offset = (i + 1) * 100 / (events + 1);
+                HashMap<String, String> fert = new HashMap<String, String>();
+                fert.put("event", "fertilizer");
+                fert.put("date", DateCodec.format(pdate + offset));
+                fert.put("fecd", "FE005");
+                fert.put("feacd", "AP002");
+                fert.put("fedep", "5");
+                fert.put("feamn", round(20 + rand.nextDouble() * 40, 0));
+                eventList.add(fert);
+                HashMap<String, String> irr = new HashMap<String, String>();
+                irr.put("event", "irrigation");
+                irr.put("date", DateCodec.format(pdate + offset + 3));
+                irr.put("irop", "IR001");
+                irr.put("irval", round(10 + rand.nextDouble() * 20, 0));
+                eventList.add(irr);
+            }
+            HashMap<String, String> harvest = new HashMap<String, String>();
+            harvest.put("event", "harvest");
+            harvest.put("date", DateCodec.format(pdate + 120 + rand.nextInt(20)));
+            eventList.add(harvest);
+        }
+        HashMap<String, Object> management = new HashMap<String, Object>();
+        management.put("events", eventList);
+        exp.put("management", management);
+
+        ArrayList<HashMap<String, String>> icLayers = new ArrayList<HashMap<String, String>>();
+        HashMap<String, Object> soil = soil(soilId, layers);
+        for (Object layer : (ArrayList) soil.get("soilLayer")) {
+            HashMap<String, String> soilLayer = (HashMap<String, String>) layer;
+            HashMap<String, String> icLayer = new HashMap<String, String>();
+            icLayer.put("icbl", soilLayer.get("sllb"));
+            icLayer.put("ich2o", soilLayer.get("sldul"));
+            icLayer.put("icnh4", round(0.2 + rand.nextDouble(), 1));
+            icLayer.put("icno3", round(0.5 + rand.nextDouble() * 3, 1));
+            icLayers.add(icLayer);
+        }
+        HashMap<String, Object> ic = new HashMap<String, Object>();
+        ic.put("icdat", DateCodec.format(firstPdate - 7));
+        ic.put("icpcr", crid);
+        ic.put("soilLayer", icLayers);
+        exp.put("initial_conditions", ic);
+        return exp;
+    }
+
+    /**
+     * Generate an experiment with its weather and soil embedded under the
+     * {@code weather} and {@code soil} keys, which is the data holder used by
+     * the helper functions.
+     *
+     * @param startYear The first year of daily weather and of the experiment
+     * @param years The number of years of daily weather and of the experiment
+     * @param layers The number of soil layers
+     * @return The experiment data holder
+     */
+    public HashMap<String, Object> combinedExperiment(int startYear, int years, int layers) {
+        HashMap<String, Object> exp = experiment("SYNT0001", "SYNT", "SYNT000001", layers, startYear, years, 2);
+        exp.put("weather", weather("SYNT", startYear, years));
+        exp.put("soil", soil("SYNT000001", layers));
+        return exp;
+    }
+
+    /**
+     * Generate an ACE data package with {@code experiments}, {@code soils} and
+     * {@code weathers}. The experiments are assigned to the stations and soils
+     * in turn.
+     *
+     * @param experiments The number of experiments
+     * @param stations The number of weather stations
+     * @param soils The number of soil profiles
+     * @param layers The number of layers for each soil profile
+     * @param startYear The first year of daily weather and of the experiments
+     * @param years The number of years of daily weather and of the experiments
+     * @return The ACE data package
+     */
+    public HashMap<String, ArrayList<HashMap<String, Object>>> dataset(int experiments, int stations, int soils, int layers, int startYear, int years) {
+        HashMap<String, ArrayList<HashMap<String, Object>>> ret = new HashMap<String, ArrayList<HashMap<String, Object>>>();
+        ArrayList<HashMap<String, Object>> wthList = new ArrayList<HashMap<String, Object>>();
+        ArrayList<HashMap<String, Object>> soilList = new ArrayList<HashMap<String, Object>>();
+        ArrayList<HashMap<String, Object>> expList = new ArrayList<HashMap<String, Object>>();
+        for (int i = 0; i < stations; i++) {
+            wthList.add(weather(stationId(i), startYear, years));
+        }
+        for (int i = 0; i < soils; i++) {
+            soilList.add(soil(soilId(i), layers));
+        }
+        for (int i = 0; i < experiments; i++) {
+            String exname = String.format("SYNT%04dXX", i);
+            expList.add(experiment(exname, stationId(i % stations), soilId(i % soils), layers, startYear, years, 2));
+        }
+        ret.put("experiments", expList);
+        ret.put("soils", soilList);
+        ret.put("weathers", wthList);
+        return ret;
+    }
+
+    /**
+     * Get the ID of the N-th station generated by
+     * {@link #dataset(int, int, int, int, int, int)}
+     *
+     * @param index The index of the station
+     * @return The station ID
+     */
+    public static String stationId(int index) {
+        return String.format("S%03d", index);
+    }
+
+    /**
+     * Get the ID of the N-th soil generated by
+     * {@link #dataset(int, int, int, int, int, int)}
+     *
+     * @param index The index of the soil
+     * @return The soil ID
+     */
+    public static String soilId(int index) {
+        return String.format("SYNT%06d", index);
+    }
+
+    /**
+     * Serialize the generated data to ACE JSON
+     *
+     * @param data The generated data
+     * @return The JSON string
+     * @throws IOException if the data can not be serialized
+     */
+    public static String toJSON(Map data) throws IOException {
+        return JSONAdapter.toJSON(data);
+    }
+}
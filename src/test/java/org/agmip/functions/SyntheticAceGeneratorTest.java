@@ -0,0 +1,50 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.agmip.util.JSONAdapter;
+import org.agmip.util.MapUtil;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SyntheticAceGeneratorTest {
+
+    @Test
+    public void deterministic() throws Exception {
+        String json1 = SyntheticAceGenerator.toJSON(new SyntheticAceGenerator(7).dataset(3, 2, 2, 4, 1990, 2));
+        String json2 = SyntheticAceGenerator.toJSON(new SyntheticAceGenerator(7).dataset(3, 2, 2, 4, 1990, 2));
+        String json3 = SyntheticAceGenerator.toJSON(new SyntheticAceGenerator(8).dataset(3, 2, 2, 4, 1990, 2));
+        assertEquals("Same seed should give same data", json1, json2);
+        assertFalse("Different seed should give different data", json1.equals(json3));
+        assertEquals("Station should not depend on generating order",
+                new SyntheticAceGenerator(7).weather("S001", 1990, 2),
+                new SyntheticAceGenerator(7).dataset(3, 2, 2, 4, 1990, 2).get("weathers").get(1));
+    }
+
+    @Test
+    public void datasetSize() throws Exception {
+        HashMap<String, ArrayList<HashMap<String, Object>>> data = new SyntheticAceGenerator(1).dataset(20, 3, 5, 6, 1981, 30);
+        assertEquals("Experiment number is wrong", 20, data.get("experiments").size());
+        assertEquals("Station number is wrong", 3, data.get("weathers").size());
+        assertEquals("Soil number is wrong", 5, data.get("soils").size());
+        ArrayList daily = (ArrayList) data.get("weathers").get(0).get("dailyWeather");
+        assertEquals("Daily weather number is wrong", 30 * 365 + 7, daily.size());
+        assertEquals("First date is wrong", "19810101", MapUtil.getValueOr((HashMap) daily.get(0), "w_date", ""));
+        assertEquals("Last date is wrong", "20101231", MapUtil.getValueOr((HashMap) daily.get(daily.size() - 1), "w_date", ""));
+        ArrayList layers = (ArrayList) data.get("soils").get(0).get("soilLayer");
+        assertEquals("Soil layer number is wrong", 6, layers.size());
+        HashMap mgn = (HashMap) data.get("experiments").get(19).get("management");
+        assertEquals("Event number is wrong", 30 * 6, ((ArrayList) mgn.get("events")).size());
+        assertEquals("Station is not assigned", "S001", data.get("experiments").get(19).get("wst_id"));
+    }
+
+    @Test
+    public void usableByHelpers() throws Exception {
+        HashMap<String, Object> exp = new SyntheticAceGenerator(3).combinedExperiment(2000, 3, 8);
+        HashMap<String, Object> roundTrip = JSONAdapter.fromJSON(SyntheticAceGenerator.toJSON(exp));
+        assertNotNull("TAV is missing", WeatherHelper.getTavAndAmp(roundTrip).get("tav"));
+        assertEquals("ETo is not calculated for each day", 1096, WeatherHelper.getEto(roundTrip).get("eto").size());
+        assertEquals("Planting date is not searched for each year", 3, ExperimentHelper.getAutoPlantingDate(roundTrip, "03-01", "05-31", "25", "4").get("pdate").size());
+        assertEquals("Root distribution is not calculated for each layer", 8, SoilHelper.getRootDistribution(roundTrip, "slrgf", "1", "20", "180").get("slrgf").size());
+    }
+}
@@ -0,0 +1,125 @@
+package org.agmip.functions;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+import org.agmip.common.Accumulator;
+import org.agmip.common.DateCodec;
+import static org.agmip.common.Functions.*;
+import org.agmip.common.Functions.PrecisionMode;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class TavAmpAccumulatorTest {
+
+    /**
+     * Calculate the monthly averages with the string functions
+     */
+    private HashMap<String, String> byStrings(ArrayList<HashMap<String, String>> dailyArr) {
+        HashMap<Integer, Accumulator[]> tyear = new HashMap<Integer, Accumulator[]>();
+        for (HashMap<String, String> daily : dailyArr) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(convertFromAgmipDateString(daily.get("w_date")));
+            Accumulator[] months = tyear.get(cal.get(Calendar.YEAR));
+            if (months == null) {
+                months = new Accumulator[12];
+                tyear.put(cal.get(Calendar.YEAR), months);
+            }
+            String tavg = average(daily.get("tmax"), daily.get("tmin"));
+            if (tavg != null) {
+                int month = cal.get(Calendar.MONTH);
+                if (months[month] == null) {
+                    months[month] = new Accumulator();
+                }
+                months[month].add(tavg);
+            }
+        }
+        HashMap<Integer, String[]> avgs = new HashMap<Integer, String[]>();
+        for (Integer year : tyear.keySet()) {
+            String[] avg = new String[12];
+            for (int i = 0; i < 12; i++) {
+                avg[i] = tyear.get(year)[i] == null ? null : tyear.get(year)[i].result();
+            }
+            avgs.put(year, avg);
+        }
+        return WeatherHelper.calcTavAndAmp(avgs);
+    }
+
+    private ArrayList<HashMap<String, String>> dailyData() {
+        HashMap<String, Object> weather = new SyntheticAceGenerator(7).weather("T001", 1990, 3);
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) weather.get("dailyWeather");
+        Random rand = new Random(7);
+        for (HashMap<String, String> daily : dailyArr) {
+            switch (rand.nextInt(8)) {
+                case 0:
+                    daily.put("tmax", String.valueOf(rand.nextInt(40) - 5));
+                    break;
+                case 1:
+                    daily.put("tmin", String.format(Locale.US, "%.9f", rand.nextDouble() * 20 - 10));
+                    break;
+                case 2:
+                    daily.put("tmax", "2.5e1");
+                    break;
+                case 3:
+                    daily.put("tmin", "abc");
+                    break;
+                case 4:
+                    daily.put("tmax", "123456789012.3456789");
+                    break;
+                default:
+            }
+        }
+        return dailyArr;
+    }
+
+    @Test
+    public void matchStringPath() {
+        ArrayList<HashMap<String, String>> dailyArr = dailyData();
+        HashMap<String, String> expected = byStrings(dailyArr);
+
+        TavAmpAccumulator acc = new TavAmpAccumulator();
+        for (HashMap<String, String> daily : dailyArr) {
+            acc.add(daily);
+        }
+        assertEquals("TAV/TAMP is not matched", expected, acc.getResults());
+        assertNotNull("TAV is missing", expected.get("tav"));
+
+        HashMap<String, Object> data = new HashMap<String, Object>();
+        data.put("dailyWeather", dailyArr);
+        acc = new TavAmpAccumulator();
+        acc.addAll(DailyWeatherColumns.fromData(data));
+        assertEquals("TAV/TAMP is not matched for columns", expected, acc.getResults());
+    }
+
+    @Test
+    public void doubleMode() {
+        PrecisionMode mode = getPrecisionMode();
+        try {
+            setPrecisionMode(PrecisionMode.DOUBLE);
+            ArrayList<HashMap<String, String>> dailyArr = dailyData();
+            TavAmpAccumulator acc = new TavAmpAccumulator();
+            for (HashMap<String, String> daily : dailyArr) {
+                acc.add(daily);
+            }
+            assertEquals("TAV/TAMP is not matched", byStrings(dailyArr), acc.getResults());
+        } finally {
+            setPrecisionMode(mode);
+        }
+    }
+
+    @Test
+    public void primitiveValues() {
+        TavAmpAccumulator acc = new TavAmpAccumulator();
+        int start = DateCodec.parse("20010101");
+        for (int i = 0; i < 365; i++) {
+            assertTrue("Value is not added", acc.add(start + i, 20 + DateCodec.getMonth(start + i), 10.5));
+        }
+        assertFalse("Missing value is added", acc.add(start, Double.NaN, 10.5));
+        assertFalse("Invalid date is added", acc.add(DateCodec.INVALID, 20, 10.5));
+        HashMap<String, String> results = acc.getResults();
+        assertEquals("TAMP is wrong", "5.50", results.get("tamp"));
+        assertNotNull("TAV is missing", results.get("tav"));
+    }
+}
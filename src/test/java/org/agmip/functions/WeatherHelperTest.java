@@ -3,6 +3,9 @@ package org.agmip.functions;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.agmip.ace.AcePathfinder;
 import org.agmip.ace.util.AcePathfinderUtil;
 import org.agmip.util.JSONAdapter;
@@ -3746,4 +3749,53 @@ public class WeatherHelperTest {
         assertEquals("getEto5: ", expected, acctual.get("eto"));
         log.info("getEto() output5: {}", acctual.toString());
     }
+
+    @Test
+    public void testGetTavAmpAndEtoBatch() throws Exception {
+        ArrayList<HashMap<String, Object>> weathers = new SyntheticAceGenerator(3).dataset(1, 4, 1, 1, 2001, 1).get("weathers");
+        HashMap<String, Object> dup = new SyntheticAceGenerator(3).weather(SyntheticAceGenerator.stationId(0), 2001, 1);
+        dup.put("clim_id", "0A1X");
+        weathers.add(dup);
+        HashMap<String, Object> broken = new HashMap<String, Object>();
+        broken.put("wst_id", "BRKN");
+        ArrayList<HashMap<String, String>> dailyArr = new ArrayList<HashMap<String, String>>();
+        dailyArr.add(null);
+        broken.put("dailyWeather", dailyArr);
+        weathers.add(1, broken);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        LinkedHashMap<String, HashMap<String, Object>> results;
+        try {
+            results = WeatherHelper.getTavAmpAndEto(weathers, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        String id = SyntheticAceGenerator.stationId(0);
+        assertArrayEquals("Station keys are wrong",
+                new String[]{id + "_0XXX", SyntheticAceGenerator.stationId(1), SyntheticAceGenerator.stationId(2), SyntheticAceGenerator.stationId(3), id + "_0A1X"},
+                results.keySet().toArray(new String[0]));
+        HashMap<String, Object> expected = new HashMap<String, Object>(WeatherHelper.getTavAndAmp(dup));
+        expected.putAll(WeatherHelper.getEto(dup));
+        assertEquals("Station result is wrong", expected, results.get(id + "_0A1X"));
+        assertEquals("Results are not same with thread number", results, WeatherHelper.getTavAmpAndEto(weathers, 0));
+    }
+
+    @Test
+    public void testGetEtoParallel() throws Exception {
+        HashMap<String, Object> data = new SyntheticAceGenerator(5).weather("PARL", 1990, 12);
+        ArrayList<HashMap<String, String>> dailyArr = (ArrayList<HashMap<String, String>>) data.get("dailyWeather");
+        dailyArr.get(365).put("w_date", "");
+        dailyArr.get(800).put("tmax", "1e1");
+        HashMap<String, ArrayList<String>> expected = WeatherHelper.getEto(data);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals("Parallel ETo is not matched", expected, WeatherHelper.getEto(data, executor));
+            assertEquals("Parallel ETo is not matched for columns", expected, WeatherHelper.getEto(DailyWeatherColumns.fromData(data), executor));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("ETo size is wrong", dailyArr.size(), expected.get("eto").size());
+    }
 }